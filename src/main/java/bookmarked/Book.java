@@ -1,29 +1,50 @@
 package bookmarked;
 
 import java.time.LocalDate;
-import java.time.Period;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 
+/**
+ * Represents a book in the library. Once the book is added to a {@link BookList}, its ID and quantities
+ * are kept in the columns of the list and the book only reads and writes them there; until then, and
+ * after it leaves the list, they are kept in a small array of its own.
+ * The dates of every loan are kept by the user who borrowed the book, not by the book.
+ */
 public class Book {
-
-    private static final int EXTENSION_DAYS = 7;
+    public static final int UNASSIGNED_ID = -1;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    private static final LocalDate DEFAULT_RETURNED_DATE = LocalDate.of(1900, 1, 1);
-    public boolean isBorrowed;
+    // positions of the values of a book that is not in any list
+    private static final int ID = 0;
+    private static final int NUMBER_TOTAL = 1;
+    private static final int NUMBER_BORROWED = 2;
+    private static final int NUMBER_IN_INVENTORY = 3;
+    // number of users currently borrowing this book, kept up to date as users borrow and return it
+    private static final int NUMBER_OF_LOANS = 4;
+    // set when the book is deleted, until BookList compacts it away
+    private static final int IS_DELETED = 5;
+    private static final int NUMBER_OF_VALUES = 6;
     private String description;
-    private LocalDate borrowDate;
-    private LocalDate returnDate;
-    private int numberInInventory;
-    private int numberBorrowed;
-    private int numberTotal;
+    private BookColumns columns;
+    private int row;
+    private int[] values;
 
 
     public Book(String description) {
+        this.values = new int[NUMBER_OF_VALUES];
+        this.values[ID] = UNASSIGNED_ID;
         this.description = description;
-        this.isBorrowed = false;
-        this.borrowDate = null;
-        this.returnDate = DEFAULT_RETURNED_DATE;
+    }
+
+    public int getBookId() {
+        return this.columns == null ? this.values[ID] : this.columns.getBookId(this.row);
+    }
+
+    public void setBookId(int bookId) {
+        if (this.columns == null) {
+            this.values[ID] = bookId;
+        } else {
+            this.columns.setBookId(this.row, bookId);
+        }
     }
 
     public String getName() {
@@ -31,96 +52,153 @@ public class Book {
     }
 
     public boolean isAvailable() {
-        return this.numberInInventory > 0;
+        return getNumberInInventory() > 0;
     }
 
-    public void borrowBook(LocalDate borrowDate, Period borrowPeriod) {
+    /**
+     * Moves a copy of this book from the inventory to the borrowed copies, if any copy is available.
+     */
+    public void borrowBook() {
         if (isAvailable()) {
-            this.isBorrowed = true;
-            this.numberInInventory--;
-            this.numberBorrowed++;
-            this.borrowDate = borrowDate;
-            this.returnDate = borrowDate.plus(borrowPeriod);
+            setNumberInInventory(getNumberInInventory() - 1);
+            setNumberBorrowed(getNumberBorrowed() + 1);
         }
     }
 
-    public void extendDueDate() {
-        if (this.isBorrowed) {
-            this.returnDate = this.returnDate.plusDays(EXTENSION_DAYS);
-        }
+    public void setReturned() {
+        setNumberInInventory(getNumberInInventory() + 1);
+        setNumberBorrowed(getNumberBorrowed() - 1);
     }
 
-    public LocalDate getBorrowDate() {
-        return this.borrowDate;
+    public void setName(String bookName) {
+        this.description = bookName;
     }
 
-    public LocalDate getReturnDate() {
-        return this.returnDate;
+    public String getBorrowedStatus() {
+        return (getNumberBorrowed() > 0 ? ", borrowed" : "available"); // mark done task with X
     }
 
-    public void setBorrowDate(LocalDate borrowDate) {
-        this.borrowDate = borrowDate;
+    public void setNumberInInventory(int newNumber) {
+        if (this.columns == null) {
+            this.values[NUMBER_IN_INVENTORY] = newNumber;
+        } else {
+            this.columns.setNumberInInventory(this.row, newNumber);
+        }
     }
 
-    public void setReturnDate(LocalDate returnDate) {
-        this.returnDate = returnDate;
+    public int getNumberInInventory() {
+        return this.columns == null ? this.values[NUMBER_IN_INVENTORY] : this.columns.getNumberInInventory(this.row);
     }
 
-    public void setReturned() {
-        this.isBorrowed = false;
-        this.borrowDate = null;
-        this.returnDate = DEFAULT_RETURNED_DATE;
-        this.numberInInventory++;
-        this.numberBorrowed--;
+    public void setNumberBorrowed(int newNumber) {
+        if (this.columns == null) {
+            this.values[NUMBER_BORROWED] = newNumber;
+        } else {
+            this.columns.setNumberBorrowed(this.row, newNumber);
+        }
     }
 
-    public void setName(String bookName) {
-        this.description = bookName;
+    public int getNumberBorrowed() {
+        return this.columns == null ? this.values[NUMBER_BORROWED] : this.columns.getNumberBorrowed(this.row);
     }
 
-    public String getFormattedReturnDate() {
-        return isBorrowed ? returnDate.format(DATE_FORMATTER) : "Not borrowed";
+    public void setNumberTotal(int newNumber) {
+        if (this.columns == null) {
+            this.values[NUMBER_TOTAL] = newNumber;
+        } else {
+            this.columns.setNumberTotal(this.row, newNumber);
+        }
     }
 
-    public String getBorrowedStatus() {
-        return (isBorrowed ? ", borrowed" : "available"); // mark done task with X
+    public int getNumberTotal() {
+        return this.columns == null ? this.values[NUMBER_TOTAL] : this.columns.getNumberTotal(this.row);
     }
 
-    public void setNumberInInventory(int newNumber) {
-        this.numberInInventory = newNumber;
+    public void setNumberOfLoans(int newNumber) {
+        if (this.columns == null) {
+            this.values[NUMBER_OF_LOANS] = newNumber;
+        } else {
+            this.columns.setNumberOfLoans(this.row, newNumber);
+        }
     }
 
-    public int getNumberInInventory() {
-        return this.numberInInventory;
+    public int getNumberOfLoans() {
+        return this.columns == null ? this.values[NUMBER_OF_LOANS] : this.columns.getNumberOfLoans(this.row);
     }
 
-    public void setNumberBorrowed(int newNumber) {
-        this.numberBorrowed = newNumber;
+    public boolean isDeleted() {
+        return this.columns == null ? this.values[IS_DELETED] != 0 : this.columns.isDeleted(this.row);
     }
 
-    public int getNumberBorrowed() {
-        return this.numberBorrowed;
+    void markDeleted() {
+        if (this.columns == null) {
+            this.values[IS_DELETED] = 1;
+        } else {
+            this.columns.markDeleted(this.row);
+        }
     }
 
-    public void setNumberTotal(int newNumber) {
-        this.numberTotal = newNumber;
+    /**
+     * Moves the ID and quantities of this book into a row of the given columns, taking it out of
+     * any other columns first.
+     *
+     * @param newColumns The columns of the list the book is added to.
+     */
+    void moveTo(BookColumns newColumns) {
+        leaveColumns();
+        this.row = newColumns.addRow(this);
+        this.columns = newColumns;
+        this.values = null;
+    }
+
+    /**
+     * Takes the ID and quantities of this book out of its columns, when it leaves the list that owns them.
+     */
+    void leaveColumns() {
+        if (this.columns == null) {
+            return;
+        }
+
+        int[] ownValues = new int[NUMBER_OF_VALUES];
+        ownValues[ID] = getBookId();
+        ownValues[NUMBER_TOTAL] = getNumberTotal();
+        ownValues[NUMBER_BORROWED] = getNumberBorrowed();
+        ownValues[NUMBER_IN_INVENTORY] = getNumberInInventory();
+        ownValues[NUMBER_OF_LOANS] = getNumberOfLoans();
+        ownValues[IS_DELETED] = isDeleted() ? 1 : 0;
+        this.columns.removeRow(this.row);
+        this.columns = null;
+        this.values = ownValues;
     }
 
-    public int getNumberTotal() {
-        return this.numberTotal;
+    boolean isIn(BookColumns bookColumns) {
+        return this.columns == bookColumns;
+    }
+
+    int getRow() {
+        return this.row;
     }
 
     @Override
     public String toString() {
-        String formattedNumberInventoryBorrowed = "Number of books in inventory: " + this.numberInInventory
-                + ". Number of books borrowed: " + this.numberBorrowed;
-        return this.description + ". " + formattedNumberInventoryBorrowed + ".";
+        String formattedNumberInventoryBorrowed = "Number of books in inventory: " + getNumberInInventory()
+                + ". Number of books borrowed: " + getNumberBorrowed();
+        return getName() + ". " + formattedNumberInventoryBorrowed + ".";
     }
 
     @Override
     public boolean equals(Object obj) {
         Book otherBook = (Book) obj;
-        return Objects.equals(this.description, otherBook.getName());
+        return Objects.equals(getName(), otherBook.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getName());
+    }
+
+    public static String formatDate(LocalDate date) {
+        return date.format(DATE_FORMATTER);
     }
 
     public static boolean isOverdue(LocalDate returnDate) {
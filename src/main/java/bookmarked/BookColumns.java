@@ -0,0 +1,269 @@
+package bookmarked;
+
+import java.util.Arrays;
+
+/**
+ * Holds the IDs and quantities of the books in a {@link BookList}, one primitive array per quantity,
+ * so that a pass over the whole catalog reads contiguous arrays instead of following every book.
+ * Every book in the list has a row, which stays the same when books are moved around the list, and
+ * the rows of removed books are reused. Rows are found by book ID through an open-addressing table,
+ * so the catalog keeps no boxed key or map entry for any book.
+ */
+class BookColumns {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY_SLOT = 0;
+    private Book[] books = new Book[INITIAL_CAPACITY];
+    private int[] bookIds = new int[INITIAL_CAPACITY];
+    private int[] numbersTotal = new int[INITIAL_CAPACITY];
+    private int[] numbersBorrowed = new int[INITIAL_CAPACITY];
+    private int[] numbersInInventory = new int[INITIAL_CAPACITY];
+    private int[] numbersOfLoans = new int[INITIAL_CAPACITY];
+    private boolean[] areDeleted = new boolean[INITIAL_CAPACITY];
+    private int numberOfRows = 0;
+    private int[] freeRows = new int[INITIAL_CAPACITY];
+    private int numberOfFreeRows = 0;
+    // the row of every book that can be looked up by ID, plus one so that an empty slot is zero
+    private int[] rowSlots = new int[INITIAL_CAPACITY * 2];
+    private int numberOfIndexedIds = 0;
+
+    /**
+     * Gives a book a row, copying its ID and quantities into it, and makes it findable by its ID.
+     *
+     * @param book The book, which must not be in any other columns.
+     * @return The row of the book.
+     */
+    int addRow(Book book) {
+        int row;
+        if (this.numberOfFreeRows > 0) {
+            this.numberOfFreeRows -= 1;
+            row = this.freeRows[this.numberOfFreeRows];
+        } else {
+            if (this.numberOfRows == this.books.length) {
+                growRows();
+            }
+            row = this.numberOfRows;
+            this.numberOfRows += 1;
+        }
+
+        this.books[row] = book;
+        this.bookIds[row] = book.getBookId();
+        this.numbersTotal[row] = book.getNumberTotal();
+        this.numbersBorrowed[row] = book.getNumberBorrowed();
+        this.numbersInInventory[row] = book.getNumberInInventory();
+        this.numbersOfLoans[row] = book.getNumberOfLoans();
+        this.areDeleted[row] = book.isDeleted();
+        indexRow(row);
+        return row;
+    }
+
+    /**
+     * Frees the row of a book that left the list, so that it can be given to another book.
+     *
+     * @param row The row of the book.
+     */
+    void removeRow(int row) {
+        unindexRow(row);
+        this.books[row] = null;
+        if (this.numberOfFreeRows == this.freeRows.length) {
+            this.freeRows = Arrays.copyOf(this.freeRows, this.freeRows.length * 2);
+        }
+        this.freeRows[this.numberOfFreeRows] = row;
+        this.numberOfFreeRows += 1;
+    }
+
+    /**
+     * Stops a book from being found by its ID, while keeping its row, as for a deleted book
+     * that is left in the list.
+     *
+     * @param row The row of the book.
+     */
+    void unindexRow(int row) {
+        int slot = findSlot(this.bookIds[row]);
+        if (slot != -1 && this.rowSlots[slot] - 1 == row) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Returns the book with the given ID.
+     *
+     * @param bookId The ID of the book.
+     * @return The book, or null if no book in the columns can be found by that ID.
+     */
+    Book getBookById(int bookId) {
+        int slot = findSlot(bookId);
+        return slot == -1 ? null : this.books[this.rowSlots[slot] - 1];
+    }
+
+    boolean containsBookId(int bookId) {
+        return findSlot(bookId) != -1;
+    }
+
+    /**
+     * Returns the row of the book with the given ID.
+     *
+     * @param bookId The ID of the book.
+     * @return The row, or -1 if no book in the columns can be found by that ID.
+     */
+    int findRow(int bookId) {
+        int slot = findSlot(bookId);
+        return slot == -1 ? -1 : this.rowSlots[slot] - 1;
+    }
+
+    /**
+     * Returns the number of rows ever given out, which is one more than the highest row in use.
+     */
+    int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+    int getBookId(int row) {
+        return this.bookIds[row];
+    }
+
+    /**
+     * Changes the ID of a book, moving it to its new ID in the lookup if it could be found by the old one.
+     */
+    void setBookId(int row, int bookId) {
+        int slot = findSlot(this.bookIds[row]);
+        boolean isIndexed = slot != -1 && this.rowSlots[slot] - 1 == row;
+        if (isIndexed) {
+            removeSlot(slot);
+        }
+        this.bookIds[row] = bookId;
+        if (isIndexed) {
+            indexRow(row);
+        }
+    }
+
+    int getNumberTotal(int row) {
+        return this.numbersTotal[row];
+    }
+
+    void setNumberTotal(int row, int numberTotal) {
+        this.numbersTotal[row] = numberTotal;
+    }
+
+    int getNumberBorrowed(int row) {
+        return this.numbersBorrowed[row];
+    }
+
+    void setNumberBorrowed(int row, int numberBorrowed) {
+        this.numbersBorrowed[row] = numberBorrowed;
+    }
+
+    int getNumberInInventory(int row) {
+        return this.numbersInInventory[row];
+    }
+
+    void setNumberInInventory(int row, int numberInInventory) {
+        this.numbersInInventory[row] = numberInInventory;
+    }
+
+    int getNumberOfLoans(int row) {
+        return this.numbersOfLoans[row];
+    }
+
+    void setNumberOfLoans(int row, int numberOfLoans) {
+        this.numbersOfLoans[row] = numberOfLoans;
+    }
+
+    boolean isDeleted(int row) {
+        return this.areDeleted[row];
+    }
+
+    void markDeleted(int row) {
+        this.areDeleted[row] = true;
+    }
+
+    /**
+     * Frees every row. The books that had rows must have been given back their own values first.
+     */
+    void clear() {
+        Arrays.fill(this.books, 0, this.numberOfRows, null);
+        this.numberOfRows = 0;
+        this.numberOfFreeRows = 0;
+        Arrays.fill(this.rowSlots, EMPTY_SLOT);
+        this.numberOfIndexedIds = 0;
+    }
+
+    private void growRows() {
+        int newCapacity = this.books.length * 2;
+        this.books = Arrays.copyOf(this.books, newCapacity);
+        this.bookIds = Arrays.copyOf(this.bookIds, newCapacity);
+        this.numbersTotal = Arrays.copyOf(this.numbersTotal, newCapacity);
+        this.numbersBorrowed = Arrays.copyOf(this.numbersBorrowed, newCapacity);
+        this.numbersInInventory = Arrays.copyOf(this.numbersInInventory, newCapacity);
+        this.numbersOfLoans = Arrays.copyOf(this.numbersOfLoans, newCapacity);
+        this.areDeleted = Arrays.copyOf(this.areDeleted, newCapacity);
+    }
+
+    private int findSlot(int bookId) {
+        int mask = this.rowSlots.length - 1;
+        for (int slot = hash(bookId) & mask; this.rowSlots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            if (this.bookIds[this.rowSlots[slot] - 1] == bookId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes a row findable by its book ID, unless another row already has that ID.
+     */
+    private void indexRow(int row) {
+        if ((this.numberOfIndexedIds + 1) * 2 > this.rowSlots.length) {
+            rebuildSlots(this.rowSlots.length * 2);
+        }
+
+        int bookId = this.bookIds[row];
+        int mask = this.rowSlots.length - 1;
+        int slot = hash(bookId) & mask;
+        while (this.rowSlots[slot] != EMPTY_SLOT) {
+            if (this.bookIds[this.rowSlots[slot] - 1] == bookId) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.rowSlots[slot] = row + 1;
+        this.numberOfIndexedIds += 1;
+    }
+
+    /**
+     * Empties a slot, moving later entries of the same probe sequence back so that they can still be found.
+     */
+    private void removeSlot(int slot) {
+        int mask = this.rowSlots.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; this.rowSlots[next] != EMPTY_SLOT; next = (next + 1) & mask) {
+            int home = hash(this.bookIds[this.rowSlots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.rowSlots[hole] = this.rowSlots[next];
+                hole = next;
+            }
+        }
+        this.rowSlots[hole] = EMPTY_SLOT;
+        this.numberOfIndexedIds -= 1;
+    }
+
+    private void rebuildSlots(int numberOfSlots) {
+        int[] oldRowSlots = this.rowSlots;
+        this.rowSlots = new int[numberOfSlots];
+        int mask = numberOfSlots - 1;
+        for (int rowSlot : oldRowSlots) {
+            if (rowSlot == EMPTY_SLOT) {
+                continue;
+            }
+            int slot = hash(this.bookIds[rowSlot - 1]) & mask;
+            while (this.rowSlots[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            this.rowSlots[slot] = rowSlot;
+        }
+    }
+
+    private static int hash(int bookId) {
+        int mixed = bookId * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+}
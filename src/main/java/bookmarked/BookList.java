@@ -0,0 +1,503 @@
+package bookmarked;
+
+import bookmarked.user.User;
+import bookmarked.userbook.UserBookView;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Represents the list of books in the library, in the order they are shown to the user.
+ * Every book added to the list is given a permanent ID, which is kept when other books
+ * are added or deleted, and books can be looked up by their ID in constant time.
+ * Deleted books are left in place as tombstones, so that deleting a book does not move the
+ * books after it, and are removed together by {@link #compact()}.
+ * Books that have not been deleted can also be found by their exact title in constant time,
+ * and walked through in alphabetical order of their titles without sorting the list.
+ * The IDs and quantities of the books are kept in {@link BookColumns} owned by the list.
+ */
+public class BookList extends ArrayList<Book> {
+    private final BookColumns columns = new BookColumns();
+    private final LoanRegistry loanRegistry = new LoanRegistry();
+    private int nextBookId = 0;
+    private int numberOfDeletedBooks = 0;
+    // built when a title is first looked up, so that titles of a mapped catalog are not decoded at startup
+    private HashMap<String, Integer> positionsByTitle = null;
+    // built when books are first walked by title, with the positions of the books of every title in list order
+    private TreeMap<String, ArrayList<Integer>> positionsInTitleOrder = null;
+
+    public BookList() {
+        super();
+    }
+
+    /**
+     * Returns the book with the given ID.
+     *
+     * @param bookId The ID of the book.
+     * @return The book, or null if no book in the list has that ID.
+     */
+    public Book getBookById(int bookId) {
+        return this.columns.getBookById(bookId);
+    }
+
+    /**
+     * Checks whether a book with the given ID is in the list.
+     *
+     * @param bookId The ID of the book.
+     * @return true if the list contains a book with that ID, false otherwise.
+     */
+    public boolean containsBookId(int bookId) {
+        return this.columns.containsBookId(bookId);
+    }
+
+    /**
+     * Returns the position of the book with the given title, which has to match exactly.
+     *
+     * @param title The title of the book.
+     * @return The position of the book, or -1 if no book in the list has that title.
+     */
+    public int indexOfTitle(String title) {
+        if (this.positionsByTitle == null) {
+            buildTitleIndex();
+        }
+        Integer position = this.positionsByTitle.get(title);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Returns the book with the given title, which has to match exactly.
+     *
+     * @param title The title of the book.
+     * @return The book, or null if no book in the list has that title.
+     */
+    public Book getBookByTitle(String title) {
+        int position = indexOfTitle(title);
+        return position == -1 ? null : get(position);
+    }
+
+    /**
+     * Changes the title of a book in the list, so that it can be found by its new title.
+     *
+     * @param book     The book to rename.
+     * @param newTitle The new title of the book.
+     */
+    public void renameBook(Book book, String newTitle) {
+        String oldTitle = book.getName();
+        int position = indexOfTitle(oldTitle);
+        int sortedPosition = findSortedPosition(book);
+        book.setName(newTitle);
+        if (position != -1 && get(position) == book) {
+            this.positionsByTitle.remove(oldTitle);
+            this.positionsByTitle.putIfAbsent(newTitle, position);
+        }
+        if (sortedPosition != -1) {
+            removeSortedPosition(oldTitle, sortedPosition);
+            addSortedPosition(newTitle, sortedPosition);
+        }
+    }
+
+    /**
+     * Returns the books that have not been deleted, in alphabetical order of their titles.
+     * Books with the same title are in the order they are in the list.
+     *
+     * @return The books in title order.
+     */
+    public ArrayList<Book> getBooksInTitleOrder() {
+        return getBooksInTitleRange(null, null);
+    }
+
+    /**
+     * Returns the books that have not been deleted and whose titles are in the given range,
+     * in alphabetical order of their titles, without going through the books outside the range.
+     *
+     * @param fromTitle The first title in the range, or null to start from the first title.
+     * @param toTitle   The title just after the range, or null to go up to the last title.
+     * @return The books in the range, in title order.
+     */
+    public ArrayList<Book> getBooksInTitleRange(String fromTitle, String toTitle) {
+        if (this.positionsInTitleOrder == null) {
+            buildSortedTitleIndex();
+        }
+        NavigableMap<String, ArrayList<Integer>> positionsInRange = this.positionsInTitleOrder;
+        if (fromTitle != null) {
+            positionsInRange = positionsInRange.tailMap(fromTitle, true);
+        }
+        if (toTitle != null) {
+            positionsInRange = positionsInRange.headMap(toTitle, false);
+        }
+
+        ArrayList<Book> booksInRange = new ArrayList<>();
+        for (ArrayList<Integer> positions : positionsInRange.values()) {
+            for (int position : positions) {
+                booksInRange.add(get(position));
+            }
+        }
+        return booksInRange;
+    }
+
+    public LoanRegistry getLoanRegistry() {
+        return this.loanRegistry;
+    }
+
+    /**
+     * Counts a new loan of the book with the given ID, when a user borrows it.
+     *
+     * @param bookId   The ID of the borrowed book.
+     * @param borrower The user borrowing the book.
+     */
+    public void addLoan(int bookId, User borrower) {
+        Book book = this.columns.getBookById(bookId);
+        if (book != null) {
+            book.setNumberOfLoans(book.getNumberOfLoans() + 1);
+            this.loanRegistry.addLoan(bookId, borrower);
+        }
+    }
+
+    /**
+     * Stops counting a loan of the book with the given ID, when a user returns it.
+     *
+     * @param bookId   The ID of the returned book.
+     * @param borrower The user returning the book.
+     */
+    public void removeLoan(int bookId, User borrower) {
+        Book book = this.columns.getBookById(bookId);
+        if (book != null) {
+            book.setNumberOfLoans(book.getNumberOfLoans() - 1);
+            this.loanRegistry.removeLoan(bookId, borrower);
+        }
+    }
+
+    /**
+     * Counts the users borrowing every book, going through every loan once. Borrowed books are found
+     * through the ID lookup of the columns and counted by row, so no book ID is boxed on the way.
+     *
+     * @param listOfUsers The list of users who borrowed books.
+     * @return The number of loans of every book, in the order of the list, which is 0 for deleted books.
+     */
+    public int[] countLoans(ArrayList<User> listOfUsers) {
+        int[] numbersOfLoansByRow = new int[this.columns.getNumberOfRows()];
+        for (User user : listOfUsers) {
+            UserBookView userBooks = user.getUserBooks();
+            for (int i = 0; i < userBooks.size(); i += 1) {
+                int row = this.columns.findRow(userBooks.getBookId(i));
+                if (row != -1) {
+                    numbersOfLoansByRow[row] += 1;
+                }
+            }
+        }
+
+        int[] numbersOfLoans = new int[size()];
+        for (int i = 0; i < size(); i += 1) {
+            numbersOfLoans[i] = numbersOfLoansByRow[get(i).getRow()];
+        }
+        return numbersOfLoans;
+    }
+
+    /**
+     * Deletes the book at the given position, leaving it in the list as a tombstone that commands skip.
+     * The book can no longer be looked up by its ID.
+     *
+     * @param index The position of the book.
+     * @return The deleted book.
+     */
+    public Book delete(int index) {
+        Book deletedBook = get(index);
+        if (!deletedBook.isDeleted()) {
+            unregisterTitle(deletedBook, index);
+            deletedBook.markDeleted();
+            this.columns.unindexRow(deletedBook.getRow());
+            this.loanRegistry.removeBook(deletedBook.getBookId());
+            this.numberOfDeletedBooks += 1;
+        }
+        return deletedBook;
+    }
+
+    /**
+     * Returns the number of books in the list, not counting deleted books.
+     *
+     * @return The number of books that have not been deleted.
+     */
+    public int getNumberOfBooks() {
+        return size() - this.numberOfDeletedBooks;
+    }
+
+    /**
+     * Removes every deleted book in a single pass, moving the remaining books forward.
+     * Users refer to books by their ID, so no loan has to be updated.
+     *
+     * @return true if any remaining book moved to a new position, false otherwise.
+     */
+    public boolean compact() {
+        int numberOfRemainingBooks = 0;
+        boolean isAnyBookMoved = false;
+        for (int i = 0; i < size(); i += 1) {
+            Book book = get(i);
+            if (book.isDeleted()) {
+                unregisterBook(book);
+            } else {
+                isAnyBookMoved |= numberOfRemainingBooks != i;
+                super.set(numberOfRemainingBooks, book);
+                numberOfRemainingBooks += 1;
+            }
+        }
+        removeRange(numberOfRemainingBooks, size());
+        this.numberOfDeletedBooks = 0;
+        forgetTitleIndexes();
+        return isAnyBookMoved;
+    }
+
+    /**
+     * Compacts the list once deleted books outnumber the other books, so that the time spent
+     * compacting stays proportional to the number of books deleted.
+     *
+     * @return true if the list was compacted and any remaining book moved, false otherwise.
+     */
+    public boolean compactIfNeeded() {
+        if (this.numberOfDeletedBooks == 0 || this.numberOfDeletedBooks < getNumberOfBooks()) {
+            return false;
+        }
+        return compact();
+    }
+
+    /**
+     * Returns the position of the book with the same title as the given book, skipping deleted books.
+     */
+    @Override
+    public int indexOf(Object book) {
+        if (!(book instanceof Book)) {
+            return -1;
+        }
+        return indexOfTitle(((Book) book).getName());
+    }
+
+    @Override
+    public boolean contains(Object book) {
+        return indexOf(book) != -1;
+    }
+
+    @Override
+    public boolean add(Book book) {
+        registerBook(book);
+        super.add(book);
+        registerTitle(book, size() - 1);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Book book) {
+        registerBook(book);
+        super.add(index, book);
+        forgetTitleIndexes();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Book> books) {
+        for (Book book : books) {
+            add(book);
+        }
+        return !books.isEmpty();
+    }
+
+    @Override
+    public Book set(int index, Book book) {
+        Book replacedBook = super.set(index, book);
+        unregisterTitle(replacedBook, index);
+        if (replacedBook.isDeleted()) {
+            this.numberOfDeletedBooks -= 1;
+        }
+        unregisterBook(replacedBook);
+        registerBook(book);
+        registerTitle(book, index);
+        return replacedBook;
+    }
+
+    @Override
+    public Book remove(int index) {
+        Book removedBook = super.remove(index);
+        if (removedBook.isDeleted()) {
+            this.numberOfDeletedBooks -= 1;
+        }
+        unregisterBook(removedBook);
+        forgetTitleIndexes();
+        return removedBook;
+    }
+
+    @Override
+    public boolean remove(Object book) {
+        int index = indexOf(book);
+        if (index == -1) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Book> filter) {
+        boolean isRemoved = false;
+        for (int i = size() - 1; i >= 0; i -= 1) {
+            if (filter.test(get(i))) {
+                remove(i);
+                isRemoved = true;
+            }
+        }
+        return isRemoved;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> books) {
+        return removeIf(books::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> books) {
+        return removeIf(book -> !books.contains(book));
+    }
+
+    @Override
+    public void sort(Comparator<? super Book> comparator) {
+        super.sort(comparator);
+        forgetTitleIndexes();
+    }
+
+    @Override
+    public void clear() {
+        for (Book book : this) {
+            unregisterBook(book);
+        }
+        super.clear();
+        this.columns.clear();
+        this.loanRegistry.clear();
+        this.numberOfDeletedBooks = 0;
+        forgetTitleIndexes();
+    }
+
+    /**
+     * Gives the book a new ID if it does not have one yet, or if its ID is already used
+     * by another book in the list, and moves it into a row of the columns, where it can be found by its ID.
+     * A book that was in another list is taken out of that list's columns.
+     */
+    private void registerBook(Book book) {
+        book.leaveColumns();
+        int bookId = book.getBookId();
+        if (bookId == Book.UNASSIGNED_ID || this.columns.containsBookId(bookId)) {
+            bookId = this.nextBookId;
+            book.setBookId(bookId);
+        }
+
+        book.moveTo(this.columns);
+        this.nextBookId = Math.max(this.nextBookId, bookId + 1);
+    }
+
+    /**
+     * Gives a book that leaves the list its own copy of its ID and quantities, unless it has since
+     * been added to another list.
+     */
+    private void unregisterBook(Book book) {
+        if (book.isIn(this.columns)) {
+            book.leaveColumns();
+        }
+    }
+
+    private void buildTitleIndex() {
+        this.positionsByTitle = new HashMap<>();
+        for (int i = 0; i < size(); i += 1) {
+            registerTitle(get(i), i);
+        }
+    }
+
+    private void buildSortedTitleIndex() {
+        this.positionsInTitleOrder = new TreeMap<>();
+        for (int i = 0; i < size(); i += 1) {
+            if (!get(i).isDeleted()) {
+                addSortedPosition(get(i).getName(), i);
+            }
+        }
+    }
+
+    /**
+     * Forgets both title indexes, after books have moved to new positions, so that they are built again when needed.
+     */
+    private void forgetTitleIndexes() {
+        this.positionsByTitle = null;
+        this.positionsInTitleOrder = null;
+    }
+
+    /**
+     * Records the position of a book by its title, unless the title is already used by an earlier book,
+     * and adds it to the books in title order.
+     */
+    private void registerTitle(Book book, int index) {
+        if (book.isDeleted()) {
+            return;
+        }
+        if (this.positionsByTitle != null) {
+            this.positionsByTitle.putIfAbsent(book.getName(), index);
+        }
+        if (this.positionsInTitleOrder != null) {
+            addSortedPosition(book.getName(), index);
+        }
+    }
+
+    private void unregisterTitle(Book book, int index) {
+        if (book.isDeleted()) {
+            return;
+        }
+        if (this.positionsByTitle != null) {
+            this.positionsByTitle.remove(book.getName(), index);
+        }
+        if (this.positionsInTitleOrder != null) {
+            removeSortedPosition(book.getName(), index);
+        }
+    }
+
+    /**
+     * Returns the position of a book that is in the books in title order.
+     *
+     * @return The position of the book, or -1 if the books in title order have not been built
+     *         or the book is not in them.
+     */
+    private int findSortedPosition(Book book) {
+        if (this.positionsInTitleOrder == null) {
+            return -1;
+        }
+        ArrayList<Integer> positions = this.positionsInTitleOrder.get(book.getName());
+        if (positions == null) {
+            return -1;
+        }
+        for (int position : positions) {
+            if (get(position) == book) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the position of a book under its title, keeping the positions of books with the same title in list order.
+     */
+    private void addSortedPosition(String title, int index) {
+        ArrayList<Integer> positions = this.positionsInTitleOrder.computeIfAbsent(title, key -> new ArrayList<>(1));
+        int insertionPoint = Collections.binarySearch(positions, index);
+        if (insertionPoint < 0) {
+            positions.add(-insertionPoint - 1, index);
+        }
+    }
+
+    private void removeSortedPosition(String title, int index) {
+        ArrayList<Integer> positions = this.positionsInTitleOrder.get(title);
+        if (positions == null) {
+            return;
+        }
+        positions.remove(Integer.valueOf(index));
+        if (positions.isEmpty()) {
+            this.positionsInTitleOrder.remove(title);
+        }
+    }
+}
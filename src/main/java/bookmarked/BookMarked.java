@@ -1,38 +1,87 @@
 package bookmarked;
 
 import bookmarked.parser.Parser;
+import bookmarked.storage.BinaryBookStorage;
+import bookmarked.storage.BinaryStorageBackend;
+import bookmarked.storage.DatabaseStorageBackend;
+import bookmarked.storage.ShardedStorageBackend;
+import bookmarked.storage.StartupTimings;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
 import bookmarked.storage.UserStorage;
 import bookmarked.ui.Ui;
 import bookmarked.storage.BookStorage;
-import bookmarked.user.User;
-import bookmarked.arguments.StorageValidation;
+import bookmarked.user.UserList;
 
 import java.io.File;
 import java.util.Scanner;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class BookMarked {
-    public static ArrayList<Book> listOfBooks = new ArrayList<>();
-    public static ArrayList<User> listOfUsers = new ArrayList<>();
-    private static final String BOOK_FILE_PATH = "./book.txt";
-    private static final String USER_FILE_PATH = "./user.txt";
+    public static BookList listOfBooks = new BookList();
+    public static UserList listOfUsers = new UserList();
+    private static final String BOOK_FILE_PATH = System.getProperty("bookmarked.bookFile", "./book.txt");
+    private static final String USER_FILE_PATH = System.getProperty("bookmarked.userFile", "./user.txt");
+    private static final String DATABASE_URL = System.getProperty("bookmarked.databaseUrl");
+    private static final String SHARD_DIRECTORY = System.getProperty("bookmarked.shardDirectory");
+    private static final int NUMBER_OF_SHARDS = Integer.getInteger("bookmarked.shardCount",
+            ShardedStorageBackend.DEFAULT_NUMBER_OF_SHARDS);
 
     public static void main(String[] args) {
+        StartupTimings.start();
         Ui.greetings();
 
-        File bookDataFile = BookStorage.createFile(BOOK_FILE_PATH);
-        listOfBooks = BookStorage.readFileStorage(bookDataFile);
-
-        File userDataFile = UserStorage.createFile(USER_FILE_PATH);
-        listOfUsers = UserStorage.readFileStorage(userDataFile, listOfBooks);
-        UserStorage.writeUserToTxt(userDataFile, listOfUsers);
-
-        StorageValidation.validateUsersAndBooksLists(listOfUsers, listOfBooks);
-        BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
+        StorageBackend storage = createStorageBackend();
+        StartupTimings.endPhase("open storage");
+        CompletableFuture<Void> libraryLoaded = loadLibrary(storage);
 
         Scanner in = new Scanner(System.in);
         String newItem = in.nextLine();
 
-        Parser.runCommand(newItem, in, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+        Parser.runCommand(newItem, in, listOfBooks, storage, listOfUsers, libraryLoaded);
+    }
+
+    /**
+     * Loads the library on a background thread, so that the prompt is shown straight away.
+     * The lists must not be used until the returned future is done.
+     *
+     * @param storage The storage from which the library is loaded.
+     * @return A future that is done once both lists have been loaded.
+     */
+    private static CompletableFuture<Void> loadLibrary(StorageBackend storage) {
+        Executor loadExecutor = runnable -> {
+            Thread loadThread = new Thread(runnable, "bookmarked-loader");
+            loadThread.setDaemon(true);
+            loadThread.start();
+        };
+        return CompletableFuture.runAsync(() -> {
+            storage.load(listOfBooks, listOfUsers);
+            StartupTimings.endPhase("finish loading");
+            StartupTimings.printTimings();
+        }, loadExecutor);
+    }
+
+    /**
+     * Chooses where the library is stored: a database if a JDBC URL is given, shard files if a
+     * shard directory is given, otherwise a binary catalog or txt file depending on the extension
+     * of the book file.
+     *
+     * @return The storage backend to use.
+     */
+    private static StorageBackend createStorageBackend() {
+        if (DATABASE_URL != null) {
+            return new DatabaseStorageBackend(DATABASE_URL);
+        }
+        if (SHARD_DIRECTORY != null) {
+            return new ShardedStorageBackend(new File(SHARD_DIRECTORY), NUMBER_OF_SHARDS);
+        }
+
+        File bookDataFile = BookStorage.createFile(BOOK_FILE_PATH);
+        File userDataFile = UserStorage.createFile(USER_FILE_PATH);
+        if (BinaryBookStorage.isBinaryFile(bookDataFile)) {
+            return new BinaryStorageBackend(bookDataFile, userDataFile);
+        }
+        return new TextStorageBackend(bookDataFile, userDataFile);
     }
 }
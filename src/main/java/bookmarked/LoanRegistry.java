@@ -0,0 +1,139 @@
+package bookmarked;
+
+import bookmarked.user.User;
+import bookmarked.userbook.UserBookView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Keeps track of the users borrowing every book, and of the books borrowed by every user, so that
+ * either can be found without going through every user. Users are told apart by identity, because
+ * a user reloaded from storage replaces the old user with the same name.
+ * If the loans of some users were never read into memory, such as users restored from a snapshot
+ * without their books, the registry is incomplete and is rebuilt from the users before it is next used.
+ */
+public class LoanRegistry {
+    private final HashMap<Integer, Set<User>> borrowersByBookId = new HashMap<>();
+    private final IdentityHashMap<User, HashSet<Integer>> bookIdsByBorrower = new IdentityHashMap<>();
+    private boolean isComplete = true;
+
+    /**
+     * Records that a user is borrowing a book.
+     *
+     * @param bookId   The ID of the borrowed book.
+     * @param borrower The user borrowing the book.
+     */
+    public void addLoan(int bookId, User borrower) {
+        this.borrowersByBookId.computeIfAbsent(bookId, id -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .add(borrower);
+        this.bookIdsByBorrower.computeIfAbsent(borrower, user -> new HashSet<>()).add(bookId);
+    }
+
+    /**
+     * Records that a user returned a book.
+     *
+     * @param bookId   The ID of the returned book.
+     * @param borrower The user who returned the book.
+     */
+    public void removeLoan(int bookId, User borrower) {
+        Set<User> borrowers = this.borrowersByBookId.get(bookId);
+        if (borrowers != null && borrowers.remove(borrower) && borrowers.isEmpty()) {
+            this.borrowersByBookId.remove(bookId);
+        }
+        HashSet<Integer> bookIds = this.bookIdsByBorrower.get(borrower);
+        if (bookIds != null && bookIds.remove(bookId) && bookIds.isEmpty()) {
+            this.bookIdsByBorrower.remove(borrower);
+        }
+    }
+
+    /**
+     * Forgets every loan of a book that is deleted.
+     *
+     * @param bookId The ID of the deleted book.
+     */
+    public void removeBook(int bookId) {
+        Set<User> borrowers = this.borrowersByBookId.remove(bookId);
+        if (borrowers == null) {
+            return;
+        }
+        for (User borrower : borrowers) {
+            HashSet<Integer> bookIds = this.bookIdsByBorrower.get(borrower);
+            bookIds.remove(bookId);
+            if (bookIds.isEmpty()) {
+                this.bookIdsByBorrower.remove(borrower);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a user is borrowing a book.
+     *
+     * @param borrower The user.
+     * @param bookId   The ID of the book.
+     * @return true if the user is borrowing the book, false otherwise.
+     */
+    public boolean hasBorrowed(User borrower, int bookId) {
+        HashSet<Integer> bookIds = this.bookIdsByBorrower.get(borrower);
+        return bookIds != null && bookIds.contains(bookId);
+    }
+
+    /**
+     * Returns the users borrowing a book.
+     *
+     * @param bookId The ID of the book.
+     * @return The users borrowing the book, in order of their names.
+     */
+    public ArrayList<User> getBorrowers(int bookId) {
+        ArrayList<User> borrowers = new ArrayList<>(this.borrowersByBookId.getOrDefault(bookId, Set.of()));
+        borrowers.sort(Comparator.comparing(User::getName));
+        return borrowers;
+    }
+
+    /**
+     * Notes that some loans are not in the registry, so that it is rebuilt before it is next used.
+     */
+    public void markIncomplete() {
+        this.isComplete = false;
+    }
+
+    /**
+     * Rebuilds the registry from the books borrowed by every user, if any loans are missing from it.
+     *
+     * @param listOfUsers The list of users.
+     */
+    public void rebuildIfIncomplete(ArrayList<User> listOfUsers) {
+        if (!this.isComplete) {
+            rebuild(listOfUsers);
+        }
+    }
+
+    /**
+     * Rebuilds the registry from the books borrowed by every user.
+     *
+     * @param listOfUsers The list of users.
+     */
+    public void rebuild(ArrayList<User> listOfUsers) {
+        clear();
+        for (User user : listOfUsers) {
+            UserBookView userBooks = user.getUserBooks();
+            for (int i = 0; i < userBooks.size(); i += 1) {
+                addLoan(userBooks.getBookId(i), user);
+            }
+        }
+    }
+
+    /**
+     * Forgets every loan.
+     */
+    public void clear() {
+        this.borrowersByBookId.clear();
+        this.bookIdsByBorrower.clear();
+        this.isComplete = true;
+    }
+}
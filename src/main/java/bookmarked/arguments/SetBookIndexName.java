@@ -1,18 +1,16 @@
 package bookmarked.arguments;
 
-import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.exceptions.BookNotFoundException;
 import bookmarked.exceptions.IndexOutOfListBounds;
 
-import java.util.ArrayList;
-
 public class SetBookIndexName {
     private int bookIndex;
     private String bookName;
     private String inputArgument;
-    private ArrayList<Book> listOfBooks;
+    private BookList listOfBooks;
 
-    public SetBookIndexName(String inputArgument, ArrayList<Book> listOfBooks) {
+    public SetBookIndexName(String inputArgument, BookList listOfBooks) {
         this.inputArgument = inputArgument;
         this.listOfBooks = listOfBooks;
     }
@@ -43,7 +41,8 @@ public class SetBookIndexName {
 
     public int checkBookIndexValidity() throws IndexOutOfListBounds {
         int bookIndex = Integer.parseInt(this.inputArgument);
-        if (bookIndex < 0 || bookIndex > this.listOfBooks.size()) {
+        if (bookIndex < 0 || bookIndex > this.listOfBooks.size()
+                || (bookIndex > 0 && this.listOfBooks.get(bookIndex - 1).isDeleted())) {
             throw new IndexOutOfListBounds();
         }
         return bookIndex - 1;
@@ -55,22 +54,12 @@ public class SetBookIndexName {
             throw new BookNotFoundException();
         }
 
-        for (int i = 0; i < this.listOfBooks.size(); i += 1) {
-            String currentBookName = this.listOfBooks.get(i).getName();
-            if (currentBookName.equals(bookName)) {
-                this.bookIndex = i;
-            }
-        }
+        this.bookIndex = this.listOfBooks.indexOfTitle(bookName);
     }
 
 
     public boolean doesBookExists() {
-        for (Book book : listOfBooks) {
-            if (book.getName().matches(bookName)) {
-                return true;
-            }
-        }
-        return false;
+        return this.listOfBooks.indexOfTitle(bookName) != -1;
     }
 
 
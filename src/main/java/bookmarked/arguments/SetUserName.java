@@ -1,14 +1,12 @@
 package bookmarked.arguments;
 
-import bookmarked.storage.UserStorage;
 import bookmarked.user.User;
-import bookmarked.Book;
+import bookmarked.user.UserList;
+import bookmarked.BookList;
 import bookmarked.exceptions.UserNotFoundException;
 import bookmarked.exceptions.InvalidStringException;
 
 
-import java.io.File;
-import java.util.ArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -16,25 +14,23 @@ import java.util.regex.PatternSyntaxException;
 
 public class SetUserName {
     private final String userName;
-    private final ArrayList<User> listOfUsers;
+    private final UserList listOfUsers;
 
 
-    public SetUserName(String userName, ArrayList<User> listOfUsers) {
+    public SetUserName(String userName, UserList listOfUsers) {
         this.userName = userName;
         this.listOfUsers = listOfUsers;
     }
 
     public User checkUserNameValidity() throws UserNotFoundException {
-        for (User user : listOfUsers) {
-            if (user.getName().matches(this.userName)) {
-                return user;
-            }
+        User user = listOfUsers.getUserByName(this.userName);
+        if (user == null) {
+            throw new UserNotFoundException();
         }
-        throw new UserNotFoundException();
+        return user;
     }
 
-    public User checkBorrowUserNameValidity(ArrayList<Book> listOfBooks, File userDataFile)
-            throws InvalidStringException {
+    public User checkBorrowUserNameValidity(BookList listOfBooks) throws InvalidStringException {
         // If user not found, create a new user and add the borrowed book
         try {
             boolean hasSpecialCharacters = checkSpecialCharacters(this.userName);
@@ -45,15 +41,13 @@ public class SetUserName {
             throw new InvalidStringException();
         }
 
-        for (User user : listOfUsers) {
-            if (user.getName().matches(this.userName)) {
-                return user;
-            }
+        User user = listOfUsers.getUserByName(this.userName);
+        if (user != null) {
+            return user;
         }
 
         User newUser = new User(userName, listOfBooks);
         listOfUsers.add(newUser);
-        UserStorage.writeUserToTxt(userDataFile, listOfUsers);
         return newUser;
     }
 
@@ -1,18 +1,18 @@
 package bookmarked.arguments;
 
 import bookmarked.Book;
-import bookmarked.exceptions.DifferentUserBookStorageException;
+import bookmarked.BookList;
+import bookmarked.storage.RecordCodec;
 import bookmarked.user.User;
 import bookmarked.ui.Ui;
+import bookmarked.userbook.UserBookView;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 
 public class StorageValidation {
     public static boolean isValidLine(ArrayList<User> listOfUsers, User currentUser, String[] userAttributes) {
-        // check valid user
-        if (listOfUsers.contains(currentUser) || isValidDate(userAttributes[0])) {
+        // check valid user, only skipping a user whose name is exactly the same as an earlier user's
+        if (isDuplicateUser(listOfUsers, currentUser) || isValidDate(userAttributes[0])) {
             Ui.printInvalidUserMessage();
             return true;
         }
@@ -27,35 +27,64 @@ public class StorageValidation {
         return false;
     }
 
-    private static boolean isValidDate(String dateInString) {
-        try {
-            LocalDate date = LocalDate.parse(dateInString);
-            return true;
-        } catch (DateTimeParseException e) {
-            return false;
+    private static boolean isDuplicateUser(ArrayList<User> listOfUsers, User currentUser) {
+        int position = listOfUsers.indexOf(currentUser);
+        return position != -1 && listOfUsers.get(position).getName().equals(currentUser.getName());
+    }
+
+    /**
+     * Gives the books borrowed by a user read from storage to an earlier user whose name only differs
+     * in case. Users are now matched without regard to case, but such users were kept apart by older
+     * versions, so both may be found in an existing file. A book borrowed by both is kept with the
+     * dates of the earlier user.
+     *
+     * @param keptUser    The user read earlier, who keeps every loan.
+     * @param mergedUser  The user read later, who is not kept.
+     * @param listOfBooks The list of books.
+     */
+    public static void mergeUsers(User keptUser, User mergedUser, BookList listOfBooks) {
+        UserBookView mergedBooks = mergedUser.getUserBooks();
+        for (int i = 0; i < mergedBooks.size(); i += 1) {
+            int bookId = mergedBooks.getBookId(i);
+            listOfBooks.removeLoan(bookId, mergedUser);
+            if (!keptUser.getUserBooks().contains(bookId)) {
+                keptUser.borrowBook(bookId, mergedBooks.getBorrowDate(i), mergedBooks.getReturnDueDate(i));
+            }
         }
+        Ui.printMergedUsersMessage(keptUser.getName(), mergedUser.getName());
+    }
+
+    private static boolean isValidDate(String dateInString) {
+        return RecordCodec.parseDate(dateInString) != null;
     }
 
-    public static void validateUsersAndBooksLists(ArrayList<User> listOfUsers, ArrayList<Book> listOfBooks) {
+    /**
+     * Makes the number of copies of every book borrowed match the users who borrowed it, counting
+     * every loan in a single pass. The counts become the loan counters of the books, which are
+     * then kept up to date as books are borrowed and returned.
+     *
+     * @param listOfUsers The list of users who borrowed books.
+     * @param listOfBooks The list of books.
+     * @return true if the quantities of any book were changed, false otherwise.
+     */
+    public static boolean validateUsersAndBooksLists(ArrayList<User> listOfUsers, BookList listOfBooks) {
+        int[] numbersOfLoans = listOfBooks.countLoans(listOfUsers);
+        boolean isAnyBookModified = false;
         for (int i = 0; i < listOfBooks.size(); i += 1) {
             Book currentBook = listOfBooks.get(i);
-            int numberOfBooksBorrowedByIndex = 0;
-            for (User currentUser : listOfUsers) {
-                if (currentUser.getUserBooksIndex().contains(i)) {
-                    numberOfBooksBorrowedByIndex += 1;
-                }
-            }
+            currentBook.setNumberOfLoans(numbersOfLoans[i]);
 
             int numberOfBookBorrowedInBook = currentBook.getNumberBorrowed();
             int oldNumberInInventory = currentBook.getNumberInInventory();
-
-            syncBookQuantity(numberOfBooksBorrowedByIndex, numberOfBookBorrowedInBook,
-                    currentBook, oldNumberInInventory);
-
+            if (syncBookQuantity(numbersOfLoans[i], numberOfBookBorrowedInBook,
+                    currentBook, oldNumberInInventory)) {
+                isAnyBookModified = true;
+            }
         }
+        return isAnyBookModified;
     }
 
-    private static void syncBookQuantity(int numberOfBooksBorrowedByIndex, int numberOfBookBorrowedInBook,
+    private static boolean syncBookQuantity(int numberOfBooksBorrowedByIndex, int numberOfBookBorrowedInBook,
                                          Book currentBook, int oldNumberInInventory) {
         if (numberOfBooksBorrowedByIndex > numberOfBookBorrowedInBook) {
             // change number of books borrowed and total books in book storage to follow user storage
@@ -72,17 +101,12 @@ public class StorageValidation {
             currentBook.setNumberInInventory(oldNumberInInventory + differenceInBorrowed);
             Ui.printModifyBookQuantityMessage(currentBook.getName());
         }
-    }
 
-    public static void checkValidBookInBookStorage(ArrayList<Book> listOfBooks, int bookIndex, String bookTitle)
-            throws DifferentUserBookStorageException {
-        if (!listOfBooks.get(bookIndex).getName().equals(bookTitle)) {
-            throw new DifferentUserBookStorageException();
-        }
+        return numberOfBooksBorrowedByIndex != numberOfBookBorrowedInBook;
     }
 
-    public static void checkValidBookIndex(ArrayList<Book> listOfBooks, int bookIndex) {
-        if (bookIndex < 0 || bookIndex > listOfBooks.size()) {
+    public static void checkValidBookId(BookList listOfBooks, int bookId) {
+        if (!listOfBooks.containsBookId(bookId)) {
             throw new IndexOutOfBoundsException();
         }
     }
@@ -1,19 +1,16 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.arguments.TitleValidity;
 import bookmarked.exceptions.NegativeQuantityException;
 import bookmarked.exceptions.MaxIntNumberException;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.WrongQuantityException;
 import bookmarked.exceptions.InvalidStringException;
-import bookmarked.storage.BookStorage;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
 
-import java.io.File;
-import java.util.ArrayList;
-
-
 /**
  * Represents a command to add books to the library system.
  * This class is responsible for handling the 'add' command input by the user.
@@ -25,8 +22,8 @@ public class AddCommand extends Command {
     private static final String COMMAND_STRING = "add";
     private static final String ARGUMENT_STRING = " /quantity ";
     private final String newItem;
-    private final File bookDataFile;
-    private ArrayList<Book> listOfBooks;
+    private final StorageBackend storage;
+    private BookList listOfBooks;
     private String[] splitQuantity;
     private int quantityToAdd;
     private boolean hasQuantityArgument;
@@ -37,12 +34,12 @@ public class AddCommand extends Command {
      *
      * @param newItem      The title of the new item to be added.
      * @param listOfBooks  The current list of books maintained in the library.
-     * @param bookDataFile The file used for data storage of book information.
+     * @param storage     The storage in which changes to books and users are kept.
      */
-    public AddCommand(String newItem, ArrayList<Book> listOfBooks, File bookDataFile) {
+    public AddCommand(String newItem, BookList listOfBooks, StorageBackend storage) {
         this.newItem = newItem;
         this.listOfBooks = listOfBooks;
-        this.bookDataFile = bookDataFile;
+        this.storage = storage;
         this.hasQuantityArgument = false;
     }
 
@@ -62,8 +59,6 @@ public class AddCommand extends Command {
 
         try {
             processAddCommand(newSplitBook);
-            assert !this.listOfBooks.isEmpty() : "The current list of books should not be empty";
-            BookStorage.writeBookToTxt(this.bookDataFile, listOfBooks);
         } catch (EmptyArgumentsException e) {
             Ui.printEmptyArgumentsMessage();
         }
@@ -180,6 +175,7 @@ public class AddCommand extends Command {
             this.listOfBooks.add(bookName);
             bookName.setNumberInInventory(quantityToAdd);
             bookName.setNumberTotal(quantityToAdd);
+            this.storage.getUnitOfWork().registerChangedBook(bookName);
             System.out.println("Added " + bookName.getName() + " with " + quantityToAdd + " copies!");
         } else {    // if the current book already exists in the library
 
@@ -191,6 +187,7 @@ public class AddCommand extends Command {
 
             inputBook.setNumberInInventory(newNumberInInventory);
             inputBook.setNumberTotal(newNumberTotal);
+            this.storage.getUnitOfWork().registerChangedBook(inputBook);
             System.out.println("Added " + quantityToAdd + " copies of " + inputBook.getName() + "!");
         }
     }
@@ -203,11 +200,6 @@ public class AddCommand extends Command {
      * @return The Book object if found, or null if no matching book is found.
      */
     public Book getExistingBook(String title) {
-        for (Book currentBook : this.listOfBooks) {
-            if (currentBook.getName().matches(title)) {
-                return currentBook;
-            }
-        }
-        return null;
+        return this.listOfBooks.getBookByTitle(title);
     }
 }
@@ -1,6 +1,8 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.LoanRegistry;
 import bookmarked.exceptions.BookNotFoundException;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.EmptyListException;
@@ -9,18 +11,16 @@ import bookmarked.exceptions.InvalidStringException;
 import bookmarked.exceptions.InvalidUserException;
 import bookmarked.exceptions.WrongInputFormatException;
 import bookmarked.user.User;
-import bookmarked.storage.BookStorage;
+import bookmarked.user.UserList;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
-import bookmarked.storage.UserStorage;
 
 import bookmarked.arguments.InputValidity;
 import bookmarked.arguments.SetBookIndexName;
 import bookmarked.arguments.SetUserName;
 
-import java.io.File;
 import java.time.LocalDate;
 import java.time.Period;
-import java.util.ArrayList;
 
 
 /**
@@ -45,27 +45,24 @@ public class BorrowCommand extends Command {
     private int bookIndex = -1;
     private String userName;
     private String newItem;
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<User> listOfUsers;
-    private File bookDataFile;
-    private File userDataFile;
+    private BookList listOfBooks;
+    private UserList listOfUsers;
+    private final StorageBackend storage;
 
     /**
      * Constructs a BorrowCommand with necessary book and user details.
      *
      * @param listOfBooks The list of books available for borrowing.
-     * @param bookDataFile The data file where book data is stored.
+     * @param storage     The storage in which changes to books and users are kept.
      * @param listOfUsers The list of users in the library system.
      * @param newItem The new item to be added or command details.
-     * @param userDataFile The data file where user data is stored.
      */
-    public BorrowCommand(ArrayList<Book> listOfBooks, File bookDataFile,
-                         ArrayList<User> listOfUsers, String newItem, File userDataFile) {
+    public BorrowCommand(BookList listOfBooks, StorageBackend storage,
+                         UserList listOfUsers, String newItem) {
         this.newItem = newItem;
         this.listOfBooks = listOfBooks;
         this.listOfUsers = listOfUsers;
-        this.bookDataFile = bookDataFile;
-        this.userDataFile = userDataFile;
+        this.storage = storage;
     }
 
     /**
@@ -92,7 +89,6 @@ public class BorrowCommand extends Command {
 
         try {
             runBorrowCommand();
-            BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
         } catch (EmptyListException e) {
             Ui.printEmptyListMessage();
         } catch (WrongInputFormatException e) {
@@ -143,13 +139,16 @@ public class BorrowCommand extends Command {
         }
 
         Book bookToBorrow = this.listOfBooks.get(this.bookIndex);
-        if (bookToBorrow.isAvailable() && !isBookBorrowed(this.userName, bookToBorrow)) {
-            bookToBorrow.borrowBook(LocalDate.now(), DEFAULT_BORROW_PERIOD);
-            updateListOfUsers(LocalDate.now());
+        if (bookToBorrow.isAvailable() && !isBookBorrowed(bookToBorrow)) {
+            LocalDate borrowDate = LocalDate.now();
+            bookToBorrow.borrowBook();
+            updateListOfUsers(borrowDate);
+            this.storage.getUnitOfWork().registerChangedBook(bookToBorrow);
+            this.storage.getUnitOfWork().registerChangedUser(this.currentUser);
 
             System.out.println("Borrowed " + this.bookName + " by " + userName + "!");
-            System.out.println("Please return by " + bookToBorrow.getFormattedReturnDate() + ".");
-        } else if (isBookBorrowed(userName, bookToBorrow)) {
+            System.out.println("Please return by " + Book.formatDate(borrowDate.plus(DEFAULT_BORROW_PERIOD)) + ".");
+        } else if (isBookBorrowed(bookToBorrow)) {
             Ui.printUserAlreadyBorrowedBookMessage(userName);
         } else {
             Ui.printNoAvailableCopiesInInventoryMessage();
@@ -164,8 +163,8 @@ public class BorrowCommand extends Command {
      */
     private void updateListOfUsers(LocalDate borrowDate) {
         LocalDate returnDueDate = borrowDate.plus(DEFAULT_BORROW_PERIOD);
-        this.currentUser.borrowBook(this.bookIndex, borrowDate, returnDueDate);
-        UserStorage.writeUserToTxt(this.userDataFile, this.listOfUsers);
+        int bookId = this.listOfBooks.get(this.bookIndex).getBookId();
+        this.currentUser.borrowBook(bookId, borrowDate, returnDueDate);
     }
 
     /**
@@ -211,7 +210,7 @@ public class BorrowCommand extends Command {
     public void setUserArgument() throws InvalidUserException {
         SetUserName setUserName = new SetUserName(this.splitUser[1].trim(), listOfUsers);
         try {
-            this.currentUser = setUserName.checkBorrowUserNameValidity(listOfBooks, userDataFile);
+            this.currentUser = setUserName.checkBorrowUserNameValidity(listOfBooks);
             this.userName = this.currentUser.getName();
         } catch (InvalidStringException e) {
             throw new InvalidUserException();
@@ -220,52 +219,15 @@ public class BorrowCommand extends Command {
     }
 
     /**
-     * Checks if the specified book is already borrowed by the given user.
+     * Checks if the specified book is already borrowed by the current user.
      *
-     * @param userBorrowing The name of the user borrowing the book.
      * @param bookToBorrow The book to check if borrowed.
      * @return True if the book is already borrowed by the user; false otherwise.
      */
-    private Boolean isBookBorrowed(String userBorrowing, Book bookToBorrow) {
-        for (int i = 0; i < listOfUsers.size(); i += 1) {
-            if (isBookBorrowedByCorrectUser(userBorrowing, bookToBorrow, this.currentUser)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * Determines if the specified book is borrowed by the correct user.
-     *
-     * @param userBorrowing The name of the user to check against.
-     * @param bookToBorrow The book to be checked.
-     * @param currentUser The current user attempting to borrow the book.
-     * @return True if the book is borrowed by the user; false otherwise.
-     */
-    private static boolean isBookBorrowedByCorrectUser(String userBorrowing, Book bookToBorrow, User currentUser) {
-        if (currentUser.getName().equals(userBorrowing)) {
-            ArrayList<Book> currentUserBooks = currentUser.getUserBooks();
-            return isBookInUserBooks(bookToBorrow, currentUserBooks);
-        }
-        return false;
-    }
-
-    /**
-     * Checks if the specified book is in the list of books borrowed by a user.
-     *
-     * @param bookToBorrow The book to be checked.
-     * @param currentUserBooks The list of books borrowed by the user.
-     * @return True if the book is in the user's list of borrowed books; false otherwise.
-     */
-    private static boolean isBookInUserBooks(Book bookToBorrow, ArrayList<Book> currentUserBooks) {
-        for (Book currentBook : currentUserBooks) {
-            if (currentBook.equals(bookToBorrow)) {
-                return true;    // user has the book
-            }
-        }
-        return false;
+    private boolean isBookBorrowed(Book bookToBorrow) {
+        LoanRegistry loanRegistry = this.listOfBooks.getLoanRegistry();
+        loanRegistry.rebuildIfIncomplete(this.listOfUsers);
+        return loanRegistry.hasBorrowed(this.currentUser, bookToBorrow.getBookId());
     }
 
 }
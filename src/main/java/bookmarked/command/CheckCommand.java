@@ -0,0 +1,84 @@
+package bookmarked.command;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Handles the "check" command, which reports every book whose number of copies borrowed, or whose
+ * loan counter, no longer matches the users borrowing it. Nothing is changed; the number of copies
+ * borrowed is repaired the next time the library is loaded.
+ */
+public class CheckCommand extends Command {
+    private final BookList listOfBooks;
+    private final ArrayList<User> listOfUsers;
+
+    /**
+     * Constructs a CheckCommand for the given books and users.
+     *
+     * @param listOfBooks The list of books to check.
+     * @param listOfUsers The list of users who borrowed books.
+     */
+    public CheckCommand(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        this.listOfBooks = listOfBooks;
+        this.listOfUsers = listOfUsers;
+    }
+
+    @Override
+    public void handleCommand() {
+        int[] numbersOfLoans = this.listOfBooks.countLoans(this.listOfUsers);
+        int[] positionsWithDrift = findPositionsWithDrift(numbersOfLoans);
+        for (int position : positionsWithDrift) {
+            Book book = this.listOfBooks.get(position);
+            Ui.printLoanDriftMessage(book.getName(), book.getNumberBorrowed(), book.getNumberOfLoans(),
+                    numbersOfLoans[position]);
+        }
+
+        if (positionsWithDrift.length > 0) {
+            Ui.printLoanDriftNotRepairedMessage();
+        } else {
+            Ui.printNoLoanDriftMessage();
+        }
+    }
+
+    /**
+     * Counts the loans of every book in one pass, and compares them with the number of copies
+     * borrowed and the loan counter of the book.
+     *
+     * @return The books whose number of copies borrowed or loan counter does not match their loans.
+     */
+    public ArrayList<Book> findBooksWithDrift() {
+        ArrayList<Book> booksWithDrift = new ArrayList<>();
+        for (int position : findPositionsWithDrift(this.listOfBooks.countLoans(this.listOfUsers))) {
+            booksWithDrift.add(this.listOfBooks.get(position));
+        }
+        return booksWithDrift;
+    }
+
+    /**
+     * Returns the positions of the books whose number of copies borrowed or loan counter does not
+     * match the loans counted for them.
+     */
+    private int[] findPositionsWithDrift(int[] numbersOfLoans) {
+        int[] positionsWithDrift = new int[this.listOfBooks.size()];
+        int numberOfBooksWithDrift = 0;
+        for (int i = 0; i < this.listOfBooks.size(); i += 1) {
+            if (hasDrift(this.listOfBooks.get(i), numbersOfLoans[i])) {
+                positionsWithDrift[numberOfBooksWithDrift] = i;
+                numberOfBooksWithDrift += 1;
+            }
+        }
+        return Arrays.copyOf(positionsWithDrift, numberOfBooksWithDrift);
+    }
+
+    private static boolean hasDrift(Book book, int numberOfLoans) {
+        if (book.isDeleted()) {
+            return false;
+        }
+        return book.getNumberBorrowed() != numberOfLoans || book.getNumberOfLoans() != numberOfLoans;
+    }
+}
@@ -1,6 +1,7 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.EmptyListException;
 import bookmarked.exceptions.IndexOutOfListBounds;
@@ -9,12 +10,9 @@ import bookmarked.exceptions.NegativeQuantityException;
 import bookmarked.exceptions.TooLargeQuantityException;
 import bookmarked.exceptions.WrongFormatQuantityException;
 import bookmarked.exceptions.WrongQuantityException;
-import bookmarked.storage.BookStorage;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
 
-import java.io.File;
-import java.util.ArrayList;
-
 /**
  * This class represents a command for deleting a specified quantity of books from the library's inventory.
  * It handles commands related to deleting books either by an index or by title with optional quantities.
@@ -26,8 +24,8 @@ public class DeleteCommand extends Command {
     private static final String COMMAND_STRING = "delete";
     private static final String ARGUMENT_STRING = " /quantity ";
     private final String newItem;
-    private final File bookDataFile;
-    private ArrayList<Book> listOfBooks;
+    private final StorageBackend storage;
+    private BookList listOfBooks;
     private String[] splitQuantity;
     private int quantityToDelete;
     private boolean hasQuantityArgument;
@@ -37,13 +35,14 @@ public class DeleteCommand extends Command {
      * Constructs a DeleteCommand with the necessary context for performing deletion.
      *
      * @param newItem      The command string indicating the item and possibly the quantity to delete.
-     * @param listOfBooks  A list of books from which the book will be deleted.
-     * @param bookDataFile The file where the book data is stored and will be updated after deletion.
+     * @param listOfBooks  A list of books from which the book will be deleted. Deleted books are left
+     *                     in the list as tombstones until it is compacted.
+     * @param storage     The storage in which changes to books and users are kept.
      */
-    public DeleteCommand(String newItem, ArrayList<Book> listOfBooks, File bookDataFile) {
+    public DeleteCommand(String newItem, BookList listOfBooks, StorageBackend storage) {
         this.newItem = newItem;
         this.listOfBooks = listOfBooks;
-        this.bookDataFile = bookDataFile;
+        this.storage = storage;
         this.hasQuantityArgument = false;
     }
 
@@ -60,8 +59,6 @@ public class DeleteCommand extends Command {
 
         try {
             processDeleteCommand(newSplitBook);
-            // assert !this.listOfBooks.isEmpty() : "The current list of books should not be empty";
-            BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
         } catch (EmptyListException e) {
             Ui.printEmptyListMessage();
         } catch (EmptyArgumentsException e) {
@@ -84,7 +81,7 @@ public class DeleteCommand extends Command {
 
     public void processDeleteCommand(String[] newSplitBook)
             throws EmptyListException, EmptyArgumentsException, IndexOutOfListBounds {
-        if (this.listOfBooks.isEmpty()) {
+        if (this.listOfBooks.getNumberOfBooks() == 0) {
             throw new EmptyListException();
         }
 
@@ -203,7 +200,8 @@ public class DeleteCommand extends Command {
 
         if (currentNumberTotal == 0) {
             Ui.printDeleteNoCopiesErrorException(inputBook.getName());
-            listOfBooks.remove(listNumberIndex);
+            this.listOfBooks.delete(listNumberIndex);
+            this.storage.getUnitOfWork().registerDeletedBook(inputBook);
             return;
         } else if (quantityToDelete > currentNumberInInventory) {
             Ui.printDeletingTooManyBooksMessage(currentNumberInInventory, quantityToDelete, inputBook.getName());
@@ -215,7 +213,10 @@ public class DeleteCommand extends Command {
 
         if (newNumberTotal <= 0) {
             System.out.println(inputBook.getName() + " has been deleted from the library's list!");
-            this.listOfBooks.remove(listNumberIndex);
+            this.listOfBooks.delete(listNumberIndex);
+            this.storage.getUnitOfWork().registerDeletedBook(inputBook);
+        } else {
+            this.storage.getUnitOfWork().registerChangedBook(inputBook);
         }
     }
 
@@ -223,11 +224,12 @@ public class DeleteCommand extends Command {
      * Parses and validates the index input for the book to delete.
      *
      * @return The validated index.
-     * @throws IndexOutOfListBounds If the provided index is outside the range of the book list.
+     * @throws IndexOutOfListBounds If the provided index is outside the range of the book list,
+     *                              or the book at that index has already been deleted.
      */
     public int setInputtedIndex() throws IndexOutOfListBounds {
         int index = Integer.parseInt(this.splitQuantity[0].trim());
-        if (index <= 0 || inputtedIndex > listOfBooks.size()) {
+        if (index <= 0 || index > listOfBooks.size() || listOfBooks.get(index - 1).isDeleted()) {
             throw new IndexOutOfListBounds();
         }
         return index;
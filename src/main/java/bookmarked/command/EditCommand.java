@@ -1,19 +1,17 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.exceptions.BookNotFoundException;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.ExistedBookNameException;
 import bookmarked.exceptions.NoEditChangeException;
 import bookmarked.exceptions.SameBookNameException;
 import bookmarked.exceptions.WrongInputFormatException;
-import bookmarked.storage.BookStorage;
-import bookmarked.storage.UserStorage;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
 import bookmarked.user.User;
-import bookmarked.userbook.UserBook;
 
-import java.io.File;
 import java.util.ArrayList;
 
 /**
@@ -23,10 +21,9 @@ import java.util.ArrayList;
 public class EditCommand extends Command {
     private static final int BOOK_TO_EDIT_START_INDEX = 5;
     private static final int TITLE_START_INDEX = 7;
-    private ArrayList<Book> listOfBooks;
+    private BookList listOfBooks;
     private ArrayList<User> listOfUsers;
-    private File bookDataFile;
-    private File userDataFile;
+    private final StorageBackend storage;
     private String userInput;
     private int bookNumberToEdit;
     private int numberOfEdits = 0;
@@ -36,15 +33,14 @@ public class EditCommand extends Command {
      *
      * @param userInput    The raw user input containing details for the edit operation.
      * @param listOfBooks  A list containing all the books available in the library.
-     * @param bookDataFile A file used to store book data persistently.
+     * @param storage     The storage in which changes to books and users are kept.
      * @param listOfUsers  A list of users who may have interactions with books.
      */
-    public EditCommand(String userInput, ArrayList<Book> listOfBooks, File bookDataFile,
-                       File userDataFile, ArrayList<User> listOfUsers) {
+    public EditCommand(String userInput, BookList listOfBooks, StorageBackend storage,
+                       ArrayList<User> listOfUsers) {
         // Current book details
         this.listOfBooks = listOfBooks;
-        this.bookDataFile = bookDataFile;
-        this.userDataFile = userDataFile;
+        this.storage = storage;
         this.userInput = userInput;
         this.listOfUsers = listOfUsers;
     }
@@ -132,7 +128,7 @@ public class EditCommand extends Command {
 
         if (isInputIndex) {
             bookToEdit = listOfBooks.get(bookNumberToEdit - 1);
-            return bookToEdit;
+            return bookToEdit.isDeleted() ? null : bookToEdit;
         }
 
         bookToEdit = getBookByTitleInput(bookToEditArgument, bookToEdit);
@@ -146,12 +142,10 @@ public class EditCommand extends Command {
      * @return The found Book object, or null if no book matches the title.
      */
     private Book getBookByTitleInput(String bookToEditArgument, Book bookToEdit) {
-        Book inputBook = new Book(bookToEditArgument);
-        for (int i = 0; i < listOfBooks.size(); i += 1) {
-            if (listOfBooks.get(i).equals(inputBook)) {
-                bookToEdit = listOfBooks.get(i);
-                bookNumberToEdit = i + 1;
-            }
+        int bookIndex = listOfBooks.indexOfTitle(bookToEditArgument);
+        if (bookIndex != -1) {
+            bookToEdit = listOfBooks.get(bookIndex);
+            bookNumberToEdit = bookIndex + 1;
         }
         return bookToEdit;
     }
@@ -185,10 +179,8 @@ public class EditCommand extends Command {
 
             isValidBookName(bookToEdit, newBookName);
 
-            updateUserBooks(bookToEdit.getName(), newBookName);
-            bookToEdit.setName(newBookName);
-            BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
-            UserStorage.writeUserToTxt(userDataFile, listOfUsers);
+            this.listOfBooks.renameBook(bookToEdit, newBookName);
+            this.storage.getUnitOfWork().registerChangedBook(bookToEdit);
             Ui.printEditedBookConfirmation(newBookName, oldName);
             numberOfEdits += 1;
         } else {
@@ -212,12 +204,7 @@ public class EditCommand extends Command {
     }
 
     private boolean isExistedBookName(String bookName) {
-        for (Book currentBook : this.listOfBooks) {
-            if (bookName.equals(currentBook.getName())) {
-                return true;
-            }
-        }
-        return false;
+        return this.listOfBooks.indexOfTitle(bookName) != -1;
     }
 
     private static boolean isEditTitle(String[] splitInput, boolean isEditTitle) {
@@ -229,17 +216,4 @@ public class EditCommand extends Command {
         }
         return isEditTitle;
     }
-
-    /**
-     * Updates the records of all users who may have interactions with the edited book.
-     *
-     * @param oldTitle The old title of the book.
-     * @param newTitle The new title of the book.
-     */
-    private void updateUserBooks(String oldTitle, String newTitle) {
-        for (User currentUser : this.listOfUsers) {
-            ArrayList<UserBook> currentUserBooksList = currentUser.getListOfUserBooks();
-            currentUser.editBook(oldTitle, newTitle, currentUserBooksList);
-        }
-    }
 }
@@ -1,19 +1,17 @@
 package bookmarked.command;
 
-import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.user.User;
+import bookmarked.user.UserList;
 import bookmarked.exceptions.EmptyListException;
 import bookmarked.exceptions.InvalidStringException;
 import bookmarked.exceptions.UserNotFoundException;
 import bookmarked.exceptions.BookNotFoundException;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.IndexOutOfListBounds;
-import bookmarked.storage.BookStorage;
-import bookmarked.storage.UserStorage;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
 
-import java.io.File;
-import java.util.ArrayList;
 
 /**
  * Handles the extension of the borrowing period for books in a library. This command
@@ -25,10 +23,9 @@ public class ExtendCommand extends Command {
     private String[] splitUser;
     private User currentUser;
     private int bookIndex = -1; // Index starting from 0
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<User> listOfUsers;
-    private File bookDataFile;
-    private File userDataFile;
+    private BookList listOfBooks;
+    private UserList listOfUsers;
+    private final StorageBackend storage;
 
 
     /**
@@ -36,17 +33,15 @@ public class ExtendCommand extends Command {
      *
      * @param newItem      The user input containing the command details.
      * @param listOfBooks  The list of books from which a book will be extended.
-     * @param bookDataFile The file where book data is stored.
+     * @param storage     The storage in which changes to books and users are kept.
      * @param listOfUsers  The list of users who may have borrowed books.
-     * @param userDataFile The file where user data is stored.
      */
-    public ExtendCommand(String newItem, ArrayList<Book> listOfBooks, File bookDataFile,
-                         ArrayList<User> listOfUsers, File userDataFile) {
+    public ExtendCommand(String newItem, BookList listOfBooks, StorageBackend storage,
+                         UserList listOfUsers) {
         this.newItem = newItem;
         this.listOfBooks = listOfBooks;
         this.listOfUsers = listOfUsers;
-        this.bookDataFile = bookDataFile;
-        this.userDataFile = userDataFile;
+        this.storage = storage;
         this.bookName = null;
     }
 
@@ -74,7 +69,6 @@ public class ExtendCommand extends Command {
 
         try {
             runExtendCommand();
-            BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
         } catch (EmptyListException e) {
             Ui.printEmptyListMessage();
         }
@@ -92,45 +86,25 @@ public class ExtendCommand extends Command {
             throw new EmptyListException();
         }
 
-        Book extendingBook = this.listOfBooks.get(this.bookIndex);
         if (hasUserBorrowedBook()) {
-            extendingBook.extendDueDate();
-            extendBookInUserDate();
-            UserStorage.writeUserToTxt(userDataFile, listOfUsers);
+            this.currentUser.extendDueDate(this.listOfBooks.get(this.bookIndex).getBookId());
+            this.storage.getUnitOfWork().registerChangedUser(this.currentUser);
             Ui.printExtensionSuccessMessage(this.bookName);
         } else {
             Ui.printBookNotBorrowedByUserMessage(this.currentUser.getName());
         }
     }
 
-    /**
-     * Runs the extension logic by checking if the book is currently borrowed by the user
-     * and then extending the due date. Notifies the user of the outcome.
-     */
-    private void extendBookInUserDate() {
-        for (int i = 0; i < listOfUsers.size(); i += 1) {
-            User currentUserInList = listOfUsers.get(i);
-            if (currentUserInList.equals(this.currentUser)) {
-                currentUserInList.extendDueDate(this.bookIndex);
-            }
-        }
-    }
-
     /**
      * Processes updating of book index by accessing the book to update index and edit if
      * book title is the same.
      */
-    private void updateBookIndex(ArrayList<Book> listOfBooks) throws BookNotFoundException {
+    private void updateBookIndex(BookList listOfBooks) throws BookNotFoundException {
         if (!doesBookExists()) {
             throw new BookNotFoundException();
         }
 
-        for (int i = 0; i < listOfBooks.size(); i += 1) {
-            String currentBookName = listOfBooks.get(i).getName();
-            if (currentBookName.equals(bookName)) {
-                this.bookIndex = i;
-            }
-        }
+        this.bookIndex = listOfBooks.indexOfTitle(bookName);
     }
 
     /**
@@ -196,7 +170,8 @@ public class ExtendCommand extends Command {
      */
     public int checkBookIndexValidity() throws IndexOutOfListBounds {
         int bookIndex = Integer.parseInt(splitUser[0].trim());
-        if (bookIndex < 0 || bookIndex > this.listOfBooks.size()) {
+        if (bookIndex < 0 || bookIndex > this.listOfBooks.size()
+                || (bookIndex > 0 && this.listOfBooks.get(bookIndex - 1).isDeleted())) {
             throw new IndexOutOfListBounds();
         }
         return bookIndex - 1;
@@ -209,13 +184,11 @@ public class ExtendCommand extends Command {
      * @throws UserNotFoundException If the user cannot be found.
      */
     public User checkUserNameValidity() throws UserNotFoundException {
-        String userString = this.splitUser[1].trim();
-        for (User user : listOfUsers) {
-            if (user.getName().matches(userString)) {
-                return user;
-            }
+        User user = listOfUsers.getUserByName(this.splitUser[1].trim());
+        if (user == null) {
+            throw new UserNotFoundException();
         }
-        throw new UserNotFoundException();
+        return user;
     }
 
     /**
@@ -224,12 +197,7 @@ public class ExtendCommand extends Command {
      * @return true if the book exists, otherwise false.
      */
     public boolean doesBookExists() {
-        for (Book book : listOfBooks) {
-            if (book.getName().matches(bookName)) {
-                return true;
-            }
-        }
-        return false;
+        return this.listOfBooks.indexOfTitle(bookName) != -1;
     }
 
     /**
@@ -238,12 +206,7 @@ public class ExtendCommand extends Command {
      * @return true if the book is currently borrowed by the user, otherwise false.
      */
     public boolean hasUserBorrowedBook() {
-        for (Book book : this.currentUser.getUserBooks()) {
-            if (book.getName().matches(this.bookName)) {
-                return true;
-            }
-        }
-        return false;
+        return this.currentUser.getUserBooks().contains(this.listOfBooks.get(this.bookIndex).getBookId());
     }
 
 }
@@ -0,0 +1,69 @@
+package bookmarked.command;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.LoanRegistry;
+import bookmarked.arguments.SetBookIndexName;
+import bookmarked.exceptions.BookNotFoundException;
+import bookmarked.exceptions.IndexOutOfListBounds;
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+
+import java.util.ArrayList;
+
+/**
+ * Handles the case where find /by borrower is called, listing the users who are borrowing a book.
+ * The borrowers are found in the loan registry, without going through the books of every user.
+ */
+public class FindBorrowerCommand extends Command {
+    private final BookList listOfBooks;
+    private final ArrayList<User> listOfUsers;
+    private final String bookArgument;
+
+    /**
+     * Constructs a FindBorrowerCommand for the given book.
+     *
+     * @param listOfBooks  The list of books in the library.
+     * @param listOfUsers  The list of users who have borrowed books.
+     * @param bookArgument The title or index of the book.
+     */
+    public FindBorrowerCommand(BookList listOfBooks, ArrayList<User> listOfUsers, String bookArgument) {
+        this.listOfBooks = listOfBooks;
+        this.listOfUsers = listOfUsers;
+        this.bookArgument = bookArgument;
+    }
+
+    @Override
+    public void handleCommand() {
+        SetBookIndexName setBookIndexName = new SetBookIndexName(this.bookArgument, this.listOfBooks);
+        try {
+            setBookIndexName.setArguments();
+        } catch (BookNotFoundException e) {
+            Ui.printBookNotFoundExceptionMessage();
+            return;
+        } catch (IndexOutOfListBounds e) {
+            Ui.printOutOfBoundsMessage();
+            return;
+        }
+
+        Book book = this.listOfBooks.get(setBookIndexName.getBookIndex());
+        ArrayList<User> borrowers = findBorrowers(book);
+        if (borrowers.isEmpty()) {
+            Ui.printNoBorrowersMessage(book.getName());
+        } else {
+            Ui.printBorrowers(book.getName(), borrowers);
+        }
+    }
+
+    /**
+     * Returns the users who are borrowing a book.
+     *
+     * @param book The book.
+     * @return The users borrowing the book, in order of their names.
+     */
+    public ArrayList<User> findBorrowers(Book book) {
+        LoanRegistry loanRegistry = this.listOfBooks.getLoanRegistry();
+        loanRegistry.rebuildIfIncomplete(this.listOfUsers);
+        return loanRegistry.getBorrowers(book.getBookId());
+    }
+}
@@ -1,6 +1,7 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.user.User;
 import bookmarked.exceptions.EmptyListException;
 import bookmarked.exceptions.EmptyArgumentsException;
@@ -12,7 +13,7 @@ public class FindCommand extends Command {
     public static final int FIND_KEYWORD_START_INDEX = 14;
     private static int numberOfBookFound = 0;
     private String newItem;
-    private ArrayList<Book> listOfBooks;
+    private BookList listOfBooks;
     private String[] splitCommand;
     private ArrayList<User> listOfUsers;
     private String userName;
@@ -24,7 +25,7 @@ public class FindCommand extends Command {
      * @param listOfBooks the current list of books
      */
 
-    public FindCommand(String newItem, ArrayList<Book> listOfBooks, ArrayList<User> listOfUsers) {
+    public FindCommand(String newItem, BookList listOfBooks, ArrayList<User> listOfUsers) {
         this.newItem = newItem;
         this.listOfUsers = listOfUsers;
         this.listOfBooks = listOfBooks;
@@ -71,6 +72,9 @@ public class FindCommand extends Command {
         case ("user"):
             userCommand(splitCommandCommand);
             break;
+        case ("borrower"):
+            borrowerCommand(splitCommandCommand);
+            break;
         default:
             Ui.printEmptyArgumentsMessage();
         }
@@ -92,6 +96,21 @@ public class FindCommand extends Command {
         }
     }
 
+    /**
+     * borrowerCommand handles the case where find /by borrower is called
+     * extracts the title or index of the book, then calls findborrowercommand to list its borrowers
+     *
+     * @param splitCommandCommand the command after "/by"
+     */
+    public void borrowerCommand(String splitCommandCommand) {
+        String bookArgument = splitCommandCommand.substring("borrower".length()).trim();
+        if (bookArgument.isEmpty()) {
+            Ui.printEmptyArgumentsMessage();
+            return;
+        }
+        new FindBorrowerCommand(listOfBooks, listOfUsers, bookArgument).handleCommand();
+    }
+
     /**
      * bookCommand handles the case where find /by book is called
      */
@@ -178,7 +197,7 @@ public class FindCommand extends Command {
 
     private void filterBooks(String keyword, ArrayList<Book> bookFound) {
         for (Book currentBook : this.listOfBooks) {
-            if (!(currentBook.getName().contains(keyword))) {
+            if (currentBook.isDeleted() || !(currentBook.getName().contains(keyword))) {
                 continue;
             }
             assert currentBook.getName().contains(keyword) : "current book should contain the keyword";
@@ -74,7 +74,7 @@ public class FindUserCommand extends Command {
         for (User user : foundUsers) {
             System.out.println("User: " + user.getName());
             System.out.println("Borrowed Books: ");
-            if (user.getUserBooks().isEmpty()) {
+            if (!user.hasBorrowedBooks()) {
                 System.out.println("None");
             } else {
                 Ui.printUserBooks(user, userCount, foundUsers);
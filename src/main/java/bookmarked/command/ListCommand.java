@@ -2,6 +2,7 @@ package bookmarked.command;
 
 import bookmarked.user.User;
 import bookmarked.Book;
+import bookmarked.BookList;
 
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.EmptyListException;
@@ -97,14 +98,18 @@ public class ListCommand extends Command {
 
         System.out.println(printMessage(Status.DEFAULT));
         for (int i = 0; i < numberOfBooks; i++) {
-            System.out.println((i + 1) + ". " + this.listOfBooks.get(i).toString());
+            // deleted books keep their number until the list is compacted, so the others are not renumbered
+            if (!this.listOfBooks.get(i).isDeleted()) {
+                System.out.println((i + 1) + ". " + this.listOfBooks.get(i).toString());
+            }
         }
     }
 
 
     /**
-     * Copies the current listOfBooks to sortedListOfBooks,
-     * sorts sortedListOfBooks by comparing the titles alphabetically.
+     * Lists the books by comparing the titles alphabetically.
+     * The library's book list keeps its books in title order, so they are walked in order,
+     * while any other list is copied to sortedListOfBooks and sorted.
      *
      * @throws EmptyListException If the current list of books are empty.
      */
@@ -114,12 +119,17 @@ public class ListCommand extends Command {
         }
 
         System.out.println(printMessage(Status.ALPHABETICAL));
-        this.sortedListOfBooks = new ArrayList<>(this.listOfBooks);
-
-        //compares two books by their names, and sorts based on alphabetical order
-        this.sortedListOfBooks.sort(Comparator.comparing(Book::getName));
+        if (this.listOfBooks instanceof BookList) {
+            this.sortedListOfBooks = ((BookList) this.listOfBooks).getBooksInTitleOrder();
+        } else {
+            this.sortedListOfBooks = new ArrayList<>(this.listOfBooks);
+            this.sortedListOfBooks.removeIf(Book::isDeleted);
+
+            //compares two books by their names, and sorts based on alphabetical order
+            this.sortedListOfBooks.sort(Comparator.comparing(Book::getName));
+        }
 
-        for (int i = 0; i < numberOfBooks; i++) {
+        for (int i = 0; i < this.sortedListOfBooks.size(); i++) {
             System.out.println((i + 1) + ". " + this.sortedListOfBooks.get(i).toString());
         }
     }
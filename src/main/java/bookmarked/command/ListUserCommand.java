@@ -56,7 +56,7 @@ public class ListUserCommand extends Command {
         for (User user : listOfUsers) {
             System.out.println("User: " + user.getName());
             System.out.print("Borrowed Books: ");
-            if (user.getUserBooks().isEmpty()) {
+            if (!user.hasBorrowedBooks()) {
                 System.out.println("None");
             } else {
                 System.out.println();
@@ -1,7 +1,10 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.LoanRegistry;
 import bookmarked.user.User;
+import bookmarked.user.UserList;
 
 import bookmarked.exceptions.EmptyListException;
 import bookmarked.exceptions.InvalidStringException;
@@ -10,19 +13,15 @@ import bookmarked.exceptions.BookNotFoundException;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.IndexOutOfListBounds;
 
-import bookmarked.storage.BookStorage;
-import bookmarked.storage.UserStorage;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
 
 import bookmarked.arguments.InputValidity;
 import bookmarked.arguments.SetBookIndexName;
 import bookmarked.arguments.SetUserName;
-import bookmarked.userbook.UserBook;
+import bookmarked.userbook.UserBookView;
 
-import java.io.File;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Iterator;
 
 /**
  * Handles the "return" command from the user.
@@ -43,10 +42,9 @@ public class ReturnCommand extends Command {
     private String[] splitUser;
     private User currentUser;
     private int bookIndex = -1; // Index starting from 0
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<User> listOfUsers;
-    private File bookDataFile;
-    private File userDataFile;
+    private BookList listOfBooks;
+    private UserList listOfUsers;
+    private final StorageBackend storage;
 
 
     /**
@@ -59,17 +57,16 @@ public class ReturnCommand extends Command {
      * @param newItem      The user input
      *                     and any subsequent elements are the remaining parts of the book name if applicable.
      * @param listOfBooks  The list of books from which a book will be returned.
-     * @param bookDataFile The data file where books are stored.
+     * @param storage     The storage in which changes to books and users are kept.
      */
-    public ReturnCommand(String newItem, ArrayList<Book> listOfBooks, File bookDataFile,
-                         ArrayList<User> listOfUsers, File userDataFile) {
+    public ReturnCommand(String newItem, BookList listOfBooks, StorageBackend storage,
+                         UserList listOfUsers) {
         assert newItem != null : "commandParts should not be null";
 
         this.newItem = newItem;
         this.listOfBooks = listOfBooks;
         this.listOfUsers = listOfUsers;
-        this.bookDataFile = bookDataFile;
-        this.userDataFile = userDataFile;
+        this.storage = storage;
     }
 
 
@@ -99,7 +96,6 @@ public class ReturnCommand extends Command {
 
         try {
             runReturnCommand();
-            BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
         } catch (EmptyListException e) {
             Ui.printEmptyListMessage();
         }
@@ -155,9 +151,10 @@ public class ReturnCommand extends Command {
                 Ui.bookIsOverdue();
             }
             returningBook.setReturned();
-            this.currentUser.unborrowBook(this.bookIndex);
+            this.currentUser.unborrowBook(returningBook.getBookId());
             removeCurrentUserIfNoBookBorrowed();
-            UserStorage.writeUserToTxt(userDataFile, listOfUsers);
+            this.storage.getUnitOfWork().registerChangedBook(returningBook);
+            this.storage.getUnitOfWork().registerChangedUser(this.currentUser);
             System.out.println("Returned " + returningBook.getName() + "!");
         } else {
             Ui.printBookNotBorrowedReturnMessage(this.currentUser.getName());
@@ -166,18 +163,14 @@ public class ReturnCommand extends Command {
 
     /**
      * finds the return date of the intended book
-     * iterates through the user book list to find book matching the returning book
+     * looks up the loan of the returning book in the user's book table
      * @param returningBook the book being returned
      * @return returnDate the return date of the book
      */
     public LocalDate findReturnDate(Book returningBook) {
-        ArrayList<UserBook> listOfUserBooks = this.currentUser.getListOfUserBooks();
-        for (UserBook books : listOfUserBooks) {
-            if (books.getUserBookTitle().equalsIgnoreCase(returningBook.getName())) {
-                return books.getReturnDueDate();
-            }
-        }
-        return null;
+        UserBookView userBooks = this.currentUser.getUserBooks();
+        int position = userBooks.indexOf(returningBook.getBookId());
+        return position == -1 ? null : userBooks.getReturnDueDate(position);
     }
 
     /**
@@ -185,13 +178,8 @@ public class ReturnCommand extends Command {
      * after returning book, if there are no borrowed books in their userbook list
      */
     public void removeCurrentUserIfNoBookBorrowed() {
-        Iterator<User> iterator = listOfUsers.iterator();
-        while (iterator.hasNext()) {
-            User user = iterator.next();
-
-            if (user.equals(this.currentUser) && user.getUserBooks().isEmpty()) {
-                iterator.remove();
-            }
+        if (!this.currentUser.hasBorrowedBooks()) {
+            listOfUsers.removeUser(this.currentUser);
         }
     }
 
@@ -249,12 +237,9 @@ public class ReturnCommand extends Command {
      * @return boolean true if user borrowed the given book, false otherwise
      */
     public boolean hasUserBorrowedBook() {
-        for (Book book : this.currentUser.getUserBooks()) {
-            if (book.getName().matches(this.bookName)) {
-                return true;
-            }
-        }
-        return false;
+        LoanRegistry loanRegistry = this.listOfBooks.getLoanRegistry();
+        loanRegistry.rebuildIfIncomplete(this.listOfUsers);
+        return loanRegistry.hasBorrowed(this.currentUser, this.listOfBooks.get(this.bookIndex).getBookId());
     }
 
 }
@@ -1,4 +0,0 @@
-package bookmarked.exceptions;
-
-public class DifferentUserBookStorageException extends Exception {
-}
@@ -1,9 +1,10 @@
 package bookmarked.parser;
 
-import bookmarked.Book;
-import bookmarked.user.User;
+import bookmarked.BookList;
+import bookmarked.user.UserList;
 import bookmarked.command.AddCommand;
 import bookmarked.command.BorrowCommand;
+import bookmarked.command.CheckCommand;
 import bookmarked.command.EditCommand;
 import bookmarked.command.Command;
 import bookmarked.command.ExtendCommand;
@@ -15,43 +16,90 @@ import bookmarked.command.ListCommand;
 import bookmarked.command.ReturnCommand;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.WrongInputFormatException;
+import bookmarked.storage.StorageBackend;
 import bookmarked.ui.Ui;
 import bookmarked.exceptions.BookMarkedException;
 
-import java.io.File;
-import java.util.ArrayList;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 public class Parser {
-    public static void runCommand(String newItem, Scanner in, ArrayList<Book> listOfBooks,
-                                  File bookDataFile, ArrayList<User> listOfUsers, File userDataFile) {
+    // how long a command waits for the library before saying that it is still loading
+    private static final long LOAD_NOTICE_MILLIS = 200;
+
+    /**
+     * Runs commands until the user types "bye". Commands other than "help" and "bye" wait until the library
+     * has finished loading in the background.
+     *
+     * @param newItem       The first command.
+     * @param in            The scanner from which the following commands are read.
+     * @param listOfBooks   The list of books, which is being loaded until libraryLoaded is done.
+     * @param storage       The storage in which changes are kept.
+     * @param listOfUsers   The list of users, which is being loaded until libraryLoaded is done.
+     * @param libraryLoaded A future that is done once both lists have been loaded.
+     */
+    public static void runCommand(String newItem, Scanner in, BookList listOfBooks, StorageBackend storage,
+                                  UserList listOfUsers, CompletableFuture<Void> libraryLoaded) {
         Command userCommand = new ListCommand(listOfBooks, newItem, listOfUsers);
 
         while (!newItem.equals("bye")) {
             String[] splitItem = newItem.split(" ");
             Ui.setSmallerLineBreak();
+            if (!splitItem[0].equals("help")) {
+                waitForLibrary(libraryLoaded);
+                // changes made to the storage by other programs are applied before the command sees the lists
+                storage.reloadIfChanged(listOfBooks, listOfUsers);
+                storage.getUnitOfWork().commit();
+            }
 
             try {
-                parseCommand(newItem, userCommand, listOfBooks, bookDataFile, splitItem,
-                        listOfUsers, userDataFile);
+                parseCommand(newItem, userCommand, listOfBooks, storage, splitItem, listOfUsers);
             } catch (BookMarkedException | EmptyArgumentsException e) {
                 Ui.printUnknownCommand();
             } catch (WrongInputFormatException e) {
                 Ui.printWrongInputFormat();
             }
+            if (libraryLoaded.isDone()) {
+                storage.getUnitOfWork().commit();
+                storage.compactIfNeeded(listOfBooks, listOfUsers);
+                if (listOfBooks.compactIfNeeded()) {
+                    Ui.printBooksRenumberedMessage();
+                }
+            }
             Ui.setLineBreak();
             newItem = in.nextLine();
         }
+        // only commands that waited for the library can have changed it, so quitting while it loads saves nothing
+        if (libraryLoaded.isDone() && !libraryLoaded.isCompletedExceptionally()) {
+            storage.close(listOfBooks, listOfUsers);
+        }
         Ui.setSmallerLineBreak();
         userCommand = new ExitCommand();
         userCommand.handleCommand();
     }
 
 
-    public static void parseCommand(String newItem, Command userCommand, ArrayList<Book> listOfBooks,
-                                    File bookDataFile, String[] splitItem, ArrayList<User> listOfUsers,
-                                    File userDataFile)
+    /**
+     * Waits until the library has finished loading, telling the user if this takes a noticeable time.
+     */
+    private static void waitForLibrary(CompletableFuture<Void> libraryLoaded) {
+        try {
+            libraryLoaded.get(LOAD_NOTICE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Ui.printWaitingForLibraryMessage();
+            libraryLoaded.join();
+        } catch (InterruptedException | ExecutionException e) {
+            // a failed load is reported by join, in the same way as when the library was loaded up front
+            libraryLoaded.join();
+        }
+    }
+
+    public static void parseCommand(String newItem, Command userCommand, BookList listOfBooks,
+                                    StorageBackend storage, String[] splitItem, UserList listOfUsers)
             throws BookMarkedException, EmptyArgumentsException, WrongInputFormatException {
         switch(splitItem[0]) {
         case ("help"):
@@ -64,26 +112,31 @@ public class Parser {
             userCommand = new ListCommand(listOfBooks, newItem, listOfUsers);
             break;
         case ("add"):
-            userCommand = new AddCommand(newItem, listOfBooks, bookDataFile);
+            userCommand = new AddCommand(newItem, listOfBooks, storage);
             break;
         case ("delete"):
-            userCommand = new DeleteCommand(newItem, listOfBooks, bookDataFile);
+            userCommand = new DeleteCommand(newItem, listOfBooks, storage);
             break;
         case ("borrow"):
-            userCommand = new BorrowCommand(listOfBooks, bookDataFile, listOfUsers,
-                    newItem, userDataFile);
+            userCommand = new BorrowCommand(listOfBooks, storage, listOfUsers, newItem);
             break;
         case ("return"):
-            userCommand = new ReturnCommand(newItem, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+            userCommand = new ReturnCommand(newItem, listOfBooks, storage, listOfUsers);
             break;
         case ("find"):
             userCommand = new FindCommand(newItem, listOfBooks, listOfUsers);
             break;
         case ("edit"):
-            userCommand = new EditCommand(newItem, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+            userCommand = new EditCommand(newItem, listOfBooks, storage, listOfUsers);
             break;
         case ("extend"):
-            userCommand = new ExtendCommand(newItem, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+            userCommand = new ExtendCommand(newItem, listOfBooks, storage, listOfUsers);
+            break;
+        case ("check"):
+            if (splitItem.length > 1) {
+                throw new WrongInputFormatException();
+            }
+            userCommand = new CheckCommand(listOfBooks, listOfUsers);
             break;
         default:
             throw new BookMarkedException();
@@ -0,0 +1,179 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.ui.Ui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * This class provides storage functionalities for Book objects in a binary catalog file.
+ * The file starts with a header holding the number of books, followed by one fixed-width
+ * record per book with its ID, its quantities and the offset of its title, and ends with an arena
+ * holding every title. The file is read through a read-only memory mapping, so several
+ * processes reading the same catalog share its pages, and titles are only decoded when used.
+ */
+public class BinaryBookStorage {
+    private static final String BINARY_EXTENSION = ".bin";
+    private static final int MAGIC_NUMBER = 0x424d4b32;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 24;
+
+    /**
+     * Checks whether the given file should be stored in the binary catalog format.
+     *
+     * @param bookDataFile The file in which books are stored.
+     * @return true if the file has the binary catalog extension, false otherwise.
+     */
+    public static boolean isBinaryFile(File bookDataFile) {
+        return bookDataFile.getName().endsWith(BINARY_EXTENSION);
+    }
+
+    /**
+     * Maps a binary catalog file into memory and returns its books.
+     *
+     * @param bookDataFile The file from which to read Book data.
+     * @return A list of books backed by the mapped file.
+     */
+    public static BookList readFileStorage(File bookDataFile) {
+        BookList listOfBooks = new BookList();
+        BookStorage.setBooksRepaired(false);
+        try (FileChannel fileChannel = FileChannel.open(bookDataFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            if (fileSize == 0) {
+                return listOfBooks;
+            }
+
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer catalogBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (fileSize < HEADER_SIZE || catalogBuffer.getInt(0) != MAGIC_NUMBER) {
+                Ui.printInvalidCatalogMessage();
+                BookStorage.markBooksRepaired();
+                return listOfBooks;
+            }
+
+            // the count is checked before any offset is computed from it, so a corrupt count cannot overflow
+            int numberOfBooks = catalogBuffer.getInt(4);
+            if (numberOfBooks < 0 || numberOfBooks > (fileSize - HEADER_SIZE) / RECORD_SIZE) {
+                Ui.printInvalidCatalogMessage();
+                BookStorage.markBooksRepaired();
+                return listOfBooks;
+            }
+            int titleArenaOffset = HEADER_SIZE + numberOfBooks * RECORD_SIZE;
+
+            listOfBooks.ensureCapacity(numberOfBooks);
+            for (int i = 0; i < numberOfBooks; i += 1) {
+                Book book = readBook(catalogBuffer, HEADER_SIZE + i * RECORD_SIZE, titleArenaOffset);
+                if (book != null) {
+                    listOfBooks.add(book);
+                }
+            }
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+        }
+
+        return listOfBooks;
+    }
+
+    /**
+     * Writes a list of books to a binary catalog file.
+     * The catalog is written to a temporary file first and then moved over the old catalog,
+     * so processes that still have the old catalog mapped keep reading consistent data.
+     *
+     * @param bookDataFile The file to which the books should be written.
+     * @param listOfBooks  The list of books to write.
+     */
+    public static void writeBookToBinary(File bookDataFile, ArrayList<Book> listOfBooks) {
+        try {
+            WriteBehindPersister.writeFileAtomically(bookDataFile, encodeCatalog(listOfBooks));
+        } catch (IOException e) {
+            System.out.println("Failed to write to file");
+        }
+    }
+
+    /**
+     * Encodes a list of books in the binary catalog format. Deleted books are left out.
+     *
+     * @param listOfBooksWithDeleted The list of books to encode.
+     * @return The content of the catalog file.
+     */
+    static byte[] encodeCatalog(ArrayList<Book> listOfBooksWithDeleted) {
+        ArrayList<Book> listOfBooks = new ArrayList<>(listOfBooksWithDeleted);
+        listOfBooks.removeIf(Book::isDeleted);
+        byte[][] encodedTitles = new byte[listOfBooks.size()][];
+        for (int i = 0; i < listOfBooks.size(); i += 1) {
+            encodedTitles[i] = listOfBooks.get(i).getName().getBytes(StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream catalogBytes = new ByteArrayOutputStream();
+        try (DataOutputStream fileWriter = new DataOutputStream(catalogBytes)) {
+            fileWriter.writeInt(MAGIC_NUMBER);
+            fileWriter.writeInt(listOfBooks.size());
+
+            int titleOffset = 0;
+            for (int i = 0; i < listOfBooks.size(); i += 1) {
+                Book book = listOfBooks.get(i);
+                fileWriter.writeInt(book.getBookId());
+                fileWriter.writeInt(book.getNumberTotal());
+                fileWriter.writeInt(book.getNumberBorrowed());
+                fileWriter.writeInt(book.getNumberInInventory());
+                fileWriter.writeInt(titleOffset);
+                fileWriter.writeInt(encodedTitles[i].length);
+                titleOffset += encodedTitles[i].length;
+            }
+
+            for (byte[] encodedTitle : encodedTitles) {
+                fileWriter.write(encodedTitle);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return catalogBytes.toByteArray();
+    }
+
+    /**
+     * Creates a book from the fixed-width record at the given position, applying the same
+     * quantity repairs as the text format.
+     *
+     * @return The book, or null if the record points outside the title arena.
+     */
+    private static Book readBook(MappedByteBuffer catalogBuffer, int recordOffset, int titleArenaOffset) {
+        int bookId = catalogBuffer.getInt(recordOffset);
+        int bookNumberTotal = catalogBuffer.getInt(recordOffset + 4);
+        int bookNumberBorrowed = catalogBuffer.getInt(recordOffset + 8);
+        int bookNumberInInventory = catalogBuffer.getInt(recordOffset + 12);
+        long titleOffset = (long) titleArenaOffset + catalogBuffer.getInt(recordOffset + 16);
+        int titleLength = catalogBuffer.getInt(recordOffset + 20);
+
+        if (titleLength <= 0 || titleOffset < titleArenaOffset
+                || titleOffset + titleLength > catalogBuffer.capacity()) {
+            Ui.printInvalidBookMessage();
+            BookStorage.markBooksRepaired();
+            return null;
+        }
+
+        if (bookNumberBorrowed + bookNumberInInventory < bookNumberTotal) {
+            bookNumberInInventory = bookNumberTotal - bookNumberBorrowed;
+            BookStorage.markBooksRepaired();
+        } else if (bookNumberBorrowed + bookNumberInInventory > bookNumberTotal) {
+            bookNumberTotal = bookNumberBorrowed + bookNumberInInventory;
+            BookStorage.markBooksRepaired();
+        }
+
+        Book book = new MappedBook(catalogBuffer, (int) titleOffset, titleLength);
+        book.setBookId(bookId);
+        book.setNumberTotal(bookNumberTotal);
+        book.setNumberBorrowed(bookNumberBorrowed);
+        book.setNumberInInventory(bookNumberInInventory);
+        return book;
+    }
+}
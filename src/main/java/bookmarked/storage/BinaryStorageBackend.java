@@ -0,0 +1,32 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * Stores books in the memory-mapped binary catalog written by {@link BinaryBookStorage},
+ * and users and the journal in the same way as {@link TextStorageBackend}.
+ */
+public class BinaryStorageBackend extends TextStorageBackend {
+    public BinaryStorageBackend(File bookDataFile, File userDataFile) {
+        super(bookDataFile, userDataFile);
+    }
+
+    @Override
+    protected BookList readBooks() {
+        return BinaryBookStorage.readFileStorage(this.bookDataFile);
+    }
+
+    @Override
+    protected void writeBooks(ArrayList<Book> listOfBooks) {
+        BinaryBookStorage.writeBookToBinary(this.bookDataFile, listOfBooks);
+    }
+
+    @Override
+    protected byte[] encodeBooks(ArrayList<Book> listOfBooks) {
+        return BinaryBookStorage.encodeCatalog(listOfBooks);
+    }
+}
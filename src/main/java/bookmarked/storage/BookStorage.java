@@ -1,17 +1,15 @@
 package bookmarked.storage;
 
 import bookmarked.Book;
-import bookmarked.exceptions.InvalidBookException;
+import bookmarked.BookList;
 import bookmarked.ui.Ui;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.io.File;
 import java.io.IOException;
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.io.FileWriter;
-import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 
 
@@ -19,6 +17,9 @@ import java.io.FileNotFoundException;
  * This class provides storage functionalities for Book objects.
  */
 public class BookStorage {
+    private static final int NUMBER_OF_BOOK_FIELDS = 5;
+    // set from the threads parsing book.txt, so it is only ever changed from false to true while reading
+    private static volatile boolean areBooksRepaired = false;
 
     /**
      * Creates a file at the specified path if it does not already exist.
@@ -39,17 +40,25 @@ public class BookStorage {
 
     /**
      * Reads books from a storage file and returns them as a list.
+     * The file itself is not changed, even if some of its lines had to be skipped or repaired;
+     * {@link #hasRepairedBooks()} reports whether that happened.
      *
      * @param bookDataFile The file from which to read Book data.
      * @return A list of books read from the file.
      */
-    public static ArrayList<Book> readFileStorage(File bookDataFile) {
-        ArrayList<Book> listOfBooks = new ArrayList<>();
-        try (BufferedReader fileReader = new BufferedReader(new FileReader(bookDataFile))) {
-            fileReader.lines().forEach(line -> parseLineAndAddToBooks(line, listOfBooks));
-            // After reading and potentially modifying the books, immediately write them back to save changed.
-            writeBookToTxt(bookDataFile, listOfBooks); // Add this line
+    public static BookList readFileStorage(File bookDataFile) {
+        setBooksRepaired(false);
 
+        BookList listOfBooks = new BookList();
+        try {
+            ArrayList<String> lines = ChunkedFileReader.readLines(bookDataFile);
+            // lines are parsed in parallel, then added in file order so the first copy of a title wins
+            List<Book> parsedBooks = lines.parallelStream()
+                    .map(BookStorage::parseBookQuietly)
+                    .collect(Collectors.toList());
+            for (int i = 0; i < lines.size(); i += 1) {
+                addParsedBook(lines.get(i), parsedBooks.get(i), listOfBooks);
+            }
         } catch (FileNotFoundException e) {
             Ui.printFileNotFoundError();
         } catch (IOException e) {
@@ -59,6 +68,24 @@ public class BookStorage {
         return listOfBooks;
     }
 
+    /**
+     * Checks whether the last call to {@link #readFileStorage(File)} skipped or repaired any book,
+     * in which case the file no longer matches the books that were read from it.
+     *
+     * @return true if any book was skipped or repaired, false otherwise.
+     */
+    public static boolean hasRepairedBooks() {
+        return areBooksRepaired;
+    }
+
+    static void markBooksRepaired() {
+        setBooksRepaired(true);
+    }
+
+    static void setBooksRepaired(boolean isRepaired) {
+        areBooksRepaired = isRepaired;
+    }
+
     /**
      * Writes a list of books to a specified file.
      *
@@ -66,47 +93,49 @@ public class BookStorage {
      * @param listOfBooks  The list of books to write.
      */
     public static void writeBookToTxt(File bookDataFile, ArrayList<Book> listOfBooks) {
+        // written to a temporary file first, so that quitting while the library loads cannot cut the file short
         try {
-            BufferedWriter fileWriter = new BufferedWriter(new FileWriter(bookDataFile, false));
-
-            for (Book book : listOfBooks) {
-                fileWriter.write(serializeBook(book));
-            }
-
-            fileWriter.close();
-        } catch (FileNotFoundException e) {
-            System.out.println("FILE NOT FOUND!!!");
+            WriteBehindPersister.writeFileAtomically(bookDataFile, encodeBooks(listOfBooks));
         } catch (IOException e) {
             System.out.println("Failed to write to file");
         }
     }
 
     /**
-     * Parses a line of text into a Book object and adds it to the provided list.
+     * Encodes a list of books in the format of the book file, so that it can be written later.
+     * Deleted books are left out.
+     *
+     * @param listOfBooks The list of books to encode.
+     * @return The content of the file.
+     */
+    static byte[] encodeBooks(ArrayList<Book> listOfBooks) {
+        StringBuilder encodedBooks = new StringBuilder();
+        for (Book book : listOfBooks) {
+            if (!book.isDeleted()) {
+                RecordCodec.appendBook(encodedBooks, book);
+            }
+        }
+        return encodedBooks.toString().getBytes();
+    }
+
+    /**
+     * Adds a parsed Book to the provided list. Lines that could not be parsed are parsed again
+     * here so that the reason for skipping them is printed in file order.
      *
      * @param line  A string representing a line of text from the storage file.
+     * @param book  The Book parsed from the line, or null if it could not be parsed.
      * @param books The list to which the parsed Book will be added.
      */
-    private static void parseLineAndAddToBooks(String line, ArrayList<Book> books) {
-        String[] bookAttributes = line.split(" \\| ");
-        if (bookAttributes.length < 4) {
-            System.out.println("Skipping malformatted line: " + line);
+    private static void addParsedBook(String line, Book book, BookList books) {
+        if (book == null) {
+            parseBook(line);
+            markBooksRepaired();
             return;
         }
 
-        Book book;
-        try {
-            book = createBookFromAttributes(bookAttributes);
-            if (book == null) {
-                return;
-            }
-
-            if (books.contains(book)) {
-                Ui.printInvalidBookMessage();
-                return;
-            }
-        } catch (InvalidBookException e) {
+        if (books.contains(book)) {
             Ui.printInvalidBookMessage();
+            markBooksRepaired();
             return;
         }
 
@@ -114,39 +143,90 @@ public class BookStorage {
     }
 
     /**
-     * Creates a Book object from an array of String attributes.
+     * Parses a line of text into a Book object.
      *
-     * @param bookAttributes An array of strings representing the book's attributes.
-     * @return A Book object or null if the input is malformed.
+     * @param line A string representing a line of text from the storage file.
+     * @return The parsed Book, or null if the line is malformed.
      */
+    static Book parseBook(String line) {
+        return parseBook(line, true);
+    }
 
-    private static Book createBookFromAttributes(String[] bookAttributes) throws InvalidBookException {
-        String title = bookAttributes[0];
-        int bookNumberTotal;
-        int bookNumberBorrowed;
-        int bookNumberInInventory;
+    /**
+     * Parses a line of text into a Book object without printing why a line is skipped,
+     * so that it can be called from several threads at once.
+     *
+     * @param line A string representing a line of text from the storage file.
+     * @return The parsed Book, or null if the line is malformed.
+     */
+    static Book parseBookQuietly(String line) {
+        return parseBook(line, false);
+    }
 
-        if (title.isBlank()) {
-            throw new InvalidBookException();
+    /**
+     * Parses a line of text into a Book object, reading the quantities straight from the line.
+     * The book ID is optional, so that files written before books had IDs can still be read;
+     * books without one are given the next free ID when they are added to the list of books.
+     *
+     * @param line      A string representing a line of text from the storage file.
+     * @param isVerbose Whether to print why a line is skipped.
+     * @return The parsed Book, or null if the line is malformed.
+     */
+    private static Book parseBook(String line, boolean isVerbose) {
+        int[] fieldBounds = new int[2 * NUMBER_OF_BOOK_FIELDS];
+        int numberOfFields = RecordCodec.findFields(line, fieldBounds);
+        if (numberOfFields < NUMBER_OF_BOOK_FIELDS - 1) {
+            if (isVerbose) {
+                System.out.println("Skipping malformatted line: " + line);
+            }
+            return null;
         }
 
-        try {
-            bookNumberTotal = Integer.parseInt(bookAttributes[1]);
-            bookNumberBorrowed = Integer.parseInt(bookAttributes[2]);
-            bookNumberInInventory = Integer.parseInt(bookAttributes[3]);
-
-            if (bookNumberBorrowed + bookNumberInInventory < bookNumberTotal) {
-                bookNumberInInventory = bookNumberTotal - bookNumberBorrowed;
-            } else if (bookNumberBorrowed + bookNumberInInventory > bookNumberTotal) {
-                bookNumberTotal = bookNumberBorrowed + bookNumberInInventory;
+        String title = line.substring(fieldBounds[0], fieldBounds[1]);
+        if (title.isBlank()) {
+            if (isVerbose) {
+                Ui.printInvalidBookMessage();
             }
+            return null;
+        }
 
-        } catch (NumberFormatException e) {
-            System.out.println("Skipping malformatted line due to invalid quantity");
+        long bookNumberTotal = RecordCodec.parseNumber(line, fieldBounds[2], fieldBounds[3]);
+        long bookNumberBorrowed = RecordCodec.parseNumber(line, fieldBounds[4], fieldBounds[5]);
+        long bookNumberInInventory = RecordCodec.parseNumber(line, fieldBounds[6], fieldBounds[7]);
+        long bookId = numberOfFields < NUMBER_OF_BOOK_FIELDS ? Book.UNASSIGNED_ID
+                : RecordCodec.parseStrippedNumber(line.subSequence(fieldBounds[8], fieldBounds[9]));
+        if (bookNumberTotal == RecordCodec.INVALID_NUMBER || bookNumberBorrowed == RecordCodec.INVALID_NUMBER
+                || bookNumberInInventory == RecordCodec.INVALID_NUMBER || bookId == RecordCodec.INVALID_NUMBER) {
+            if (isVerbose) {
+                System.out.println("Skipping malformatted line due to invalid quantity");
+            }
             return null;
         }
 
+        return createBook(title, (int) bookNumberTotal, (int) bookNumberBorrowed, (int) bookNumberInInventory,
+                (int) bookId);
+    }
+
+    /**
+     * Creates a Book object from its attributes, repairing quantities that do not add up.
+     */
+    private static Book createBook(String title, int bookNumberTotal, int bookNumberBorrowed,
+                                   int bookNumberInInventory, int bookId) {
+        if (bookNumberBorrowed + bookNumberInInventory < bookNumberTotal) {
+            bookNumberInInventory = bookNumberTotal - bookNumberBorrowed;
+            markBooksRepaired();
+        } else if (bookNumberBorrowed + bookNumberInInventory > bookNumberTotal) {
+            bookNumberTotal = bookNumberBorrowed + bookNumberInInventory;
+            markBooksRepaired();
+        }
+
         Book book = setBookDetails(title, bookNumberTotal, bookNumberBorrowed, bookNumberInInventory);
+        if (bookId != Book.UNASSIGNED_ID) {
+            book.setBookId(bookId);
+        } else {
+            // the file was written before books had IDs, so it is rewritten with the IDs given now
+            markBooksRepaired();
+        }
 
         return book;
     }
@@ -166,14 +246,10 @@ public class BookStorage {
      * @param book The Book object to serialize.
      * @return A string representation of the Book object.
      */
-    private static String serializeBook(Book book) {
-        String bookTitle = book.getName();
-        int bookNumberTotal = book.getNumberTotal();
-        int bookNumberBorrowed = book.getNumberBorrowed();
-        int bookNumberInInventory = book.getNumberInInventory();
-
-        return String.format("%s | %d | %d | %d%n", bookTitle, bookNumberTotal,
-                bookNumberBorrowed, bookNumberInInventory);
+    static String serializeBook(Book book) {
+        StringBuilder record = RecordCodec.getRecordBuilder();
+        RecordCodec.appendBook(record, book);
+        return record.toString();
     }
 
     /**
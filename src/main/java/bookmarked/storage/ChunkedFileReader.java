@@ -0,0 +1,211 @@
+package bookmarked.storage;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class reads the lines of a storage file, splitting large files into newline-aligned
+ * byte ranges that are decoded in parallel on the common ForkJoinPool.
+ * Lines are returned in the same order, and split the same way, as {@link BufferedReader#lines()}.
+ * Compressed files can only be read from the start, so they are decompressed and read line by line instead.
+ */
+public class ChunkedFileReader {
+    private static final long PARALLEL_THRESHOLD_BYTES = 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 256 * 1024;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    /**
+     * Reads every line of the given file.
+     *
+     * @param dataFile The file to read.
+     * @return The lines of the file, in order.
+     * @throws IOException If the file cannot be read.
+     */
+    public static ArrayList<String> readLines(File dataFile) throws IOException {
+        if (StorageCodecs.isCompressed(dataFile) || dataFile.length() < PARALLEL_THRESHOLD_BYTES) {
+            try (BufferedReader fileReader = new BufferedReader(
+                    new InputStreamReader(StorageCodecs.openInputStream(dataFile), Charset.defaultCharset()))) {
+                return fileReader.lines().collect(Collectors.toCollection(ArrayList::new));
+            }
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            long[] chunkBoundaries = getChunkBoundaries(fileChannel);
+            List<ArrayList<String>> chunkLines = IntStream.range(0, chunkBoundaries.length - 1)
+                    .parallel()
+                    .mapToObj(i -> readChunk(fileChannel, chunkBoundaries[i], chunkBoundaries[i + 1]))
+                    .collect(Collectors.toList());
+
+            ArrayList<String> lines = new ArrayList<>();
+            for (ArrayList<String> currentChunkLines : chunkLines) {
+                lines.addAll(currentChunkLines);
+            }
+            return lines;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads every line of the given file together with the position in bytes at which it starts,
+     * so that a single line can be read again later without reading the lines before it.
+     *
+     * @param dataFile    The file to read.
+     * @param lineOffsets The list to which the position of every line is added, in order.
+     * @return The lines of the file, in order.
+     * @throws IOException If the file cannot be read.
+     */
+    public static ArrayList<String> readLines(File dataFile, ArrayList<Long> lineOffsets) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            long[] chunkBoundaries = getChunkBoundaries(fileChannel);
+            List<LineChunk> lineChunks = IntStream.range(0, chunkBoundaries.length - 1)
+                    .parallel()
+                    .mapToObj(i -> readLineChunk(fileChannel, chunkBoundaries[i], chunkBoundaries[i + 1]))
+                    .collect(Collectors.toList());
+
+            ArrayList<String> lines = new ArrayList<>();
+            for (LineChunk lineChunk : lineChunks) {
+                lines.addAll(lineChunk.lines);
+                lineOffsets.addAll(lineChunk.lineOffsets);
+            }
+            return lines;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Splits the file into ranges that each start at the beginning of a line.
+     *
+     * @return The start of every range, followed by the size of the file.
+     */
+    private static long[] getChunkBoundaries(FileChannel fileChannel) throws IOException {
+        long fileSize = fileChannel.size();
+        int maxNumberOfChunks = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int numberOfChunks = (int) Math.max(1, Math.min(maxNumberOfChunks, fileSize / MIN_CHUNK_BYTES));
+
+        long[] chunkBoundaries = new long[numberOfChunks + 1];
+        chunkBoundaries[numberOfChunks] = fileSize;
+        for (int i = 1; i < numberOfChunks; i += 1) {
+            long approximateBoundary = Math.max(chunkBoundaries[i - 1], fileSize * i / numberOfChunks);
+            chunkBoundaries[i] = findNextLineStart(fileChannel, approximateBoundary, fileSize);
+        }
+        return chunkBoundaries;
+    }
+
+    private static long findNextLineStart(FileChannel fileChannel, long position, long fileSize)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < fileSize) {
+            buffer.clear();
+            int bytesRead = fileChannel.read(buffer, position);
+            for (int i = 0; i < bytesRead; i += 1) {
+                if (buffer.get(i) == NEW_LINE) {
+                    return position + i + 1;
+                }
+            }
+            position += bytesRead;
+        }
+        return fileSize;
+    }
+
+    private static ArrayList<String> readChunk(FileChannel fileChannel, long chunkStart, long chunkEnd) {
+        ByteBuffer chunkBuffer = readChunkBytes(fileChannel, chunkStart, chunkEnd);
+        String chunkText = new String(chunkBuffer.array(), 0, chunkBuffer.position(), Charset.defaultCharset());
+        return splitLines(chunkText);
+    }
+
+    /**
+     * Reads a range of the file and splits it into lines in the same way as {@link #splitLines(String)},
+     * but on the raw bytes, so that the position in the file at which each line starts is known.
+     */
+    private static LineChunk readLineChunk(FileChannel fileChannel, long chunkStart, long chunkEnd) {
+        ByteBuffer chunkBuffer = readChunkBytes(fileChannel, chunkStart, chunkEnd);
+        byte[] chunkBytes = chunkBuffer.array();
+        int chunkLength = chunkBuffer.position();
+        LineChunk lineChunk = new LineChunk();
+
+        int lineStart = 0;
+        for (int i = 0; i < chunkLength; i += 1) {
+            if (chunkBytes[i] != NEW_LINE && chunkBytes[i] != CARRIAGE_RETURN) {
+                continue;
+            }
+
+            lineChunk.addLine(new String(chunkBytes, lineStart, i - lineStart, Charset.defaultCharset()),
+                    chunkStart + lineStart);
+            if (chunkBytes[i] == CARRIAGE_RETURN && i + 1 < chunkLength && chunkBytes[i + 1] == NEW_LINE) {
+                i += 1;
+            }
+            lineStart = i + 1;
+        }
+
+        if (lineStart < chunkLength) {
+            lineChunk.addLine(new String(chunkBytes, lineStart, chunkLength - lineStart, Charset.defaultCharset()),
+                    chunkStart + lineStart);
+        }
+        return lineChunk;
+    }
+
+    private static ByteBuffer readChunkBytes(FileChannel fileChannel, long chunkStart, long chunkEnd) {
+        ByteBuffer chunkBuffer = ByteBuffer.allocate((int) (chunkEnd - chunkStart));
+        try {
+            while (chunkBuffer.hasRemaining()) {
+                int bytesRead = fileChannel.read(chunkBuffer, chunkStart + chunkBuffer.position());
+                if (bytesRead < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunkBuffer;
+    }
+
+    /**
+     * Splits text into lines on "\n", "\r" or "\r\n", dropping the empty line after a final terminator.
+     */
+    private static ArrayList<String> splitLines(String chunkText) {
+        ArrayList<String> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < chunkText.length(); i += 1) {
+            char currentChar = chunkText.charAt(i);
+            if (currentChar != '\n' && currentChar != '\r') {
+                continue;
+            }
+
+            lines.add(chunkText.substring(lineStart, i));
+            if (currentChar == '\r' && i + 1 < chunkText.length() && chunkText.charAt(i + 1) == '\n') {
+                i += 1;
+            }
+            lineStart = i + 1;
+        }
+
+        if (lineStart < chunkText.length()) {
+            lines.add(chunkText.substring(lineStart));
+        }
+        return lines;
+    }
+
+    private static class LineChunk {
+        private final ArrayList<String> lines = new ArrayList<>();
+        private final ArrayList<Long> lineOffsets = new ArrayList<>();
+
+        private void addLine(String line, long lineOffset) {
+            this.lines.add(line);
+            this.lineOffsets.add(lineOffset);
+        }
+    }
+}
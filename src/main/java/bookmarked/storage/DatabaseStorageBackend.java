@@ -0,0 +1,299 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.arguments.StorageValidation;
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.userbook.UserBookView;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Stores books and users in an embedded database reached through JDBC, such as an H2 or
+ * SQLite database file. Every change made by a command updates only the rows of the books
+ * and users it touched, inside a single transaction, so nothing needs to be compacted.
+ */
+public class DatabaseStorageBackend implements StorageBackend {
+    private static final String CREATE_BOOKS_TABLE = "CREATE TABLE IF NOT EXISTS books (id INT PRIMARY KEY, "
+            + "title VARCHAR(1000) NOT NULL, number_total INT NOT NULL, number_borrowed INT NOT NULL, "
+            + "number_in_inventory INT NOT NULL)";
+    private static final String CREATE_USERS_TABLE = "CREATE TABLE IF NOT EXISTS users ("
+            + "name VARCHAR(1000) PRIMARY KEY, user_order BIGINT NOT NULL)";
+    private static final String CREATE_LOANS_TABLE = "CREATE TABLE IF NOT EXISTS loans ("
+            + "user_name VARCHAR(1000) NOT NULL, loan_order INT NOT NULL, book_id INT NOT NULL, "
+            + "borrow_date VARCHAR(10) NOT NULL, return_due_date VARCHAR(10) NOT NULL)";
+    private static final String SELECT_BOOKS = "SELECT id, title, number_total, number_borrowed, "
+            + "number_in_inventory FROM books ORDER BY id";
+    private static final String SELECT_USERS = "SELECT name, user_order FROM users ORDER BY user_order";
+    private static final String SELECT_LOANS = "SELECT user_name, book_id, borrow_date, return_due_date "
+            + "FROM loans ORDER BY user_name, loan_order";
+    private static final String UPDATE_BOOK = "UPDATE books SET title = ?, number_total = ?, "
+            + "number_borrowed = ?, number_in_inventory = ? WHERE id = ?";
+    private static final String INSERT_BOOK = "INSERT INTO books (title, number_total, number_borrowed, "
+            + "number_in_inventory, id) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_BOOK = "DELETE FROM books WHERE id = ?";
+    private static final String INSERT_USER = "INSERT INTO users (name, user_order) VALUES (?, ?)";
+    private static final String DELETE_USER = "DELETE FROM users WHERE name = ?";
+    private static final String INSERT_LOAN = "INSERT INTO loans (user_name, loan_order, book_id, borrow_date, "
+            + "return_due_date) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_LOANS = "DELETE FROM loans WHERE user_name = ?";
+
+    private final String databaseUrl;
+    private final UnitOfWork unitOfWork = new UnitOfWork(this);
+    private final HashMap<String, Long> userOrders = new HashMap<>();
+    private Connection connection;
+    private long nextUserOrder = 0;
+
+    /**
+     * Constructs a backend for the database at the given JDBC URL, for example
+     * {@code jdbc:h2:./bookmarked} or {@code jdbc:sqlite:bookmarked.db}.
+     *
+     * @param databaseUrl The JDBC URL of the database.
+     */
+    public DatabaseStorageBackend(String databaseUrl) {
+        this.databaseUrl = databaseUrl;
+    }
+
+    /**
+     * Reads every book and user from the database. Loans that cannot be read, or that refer to a book
+     * or user that is not stored, are skipped, and users whose names only differ in case are merged,
+     * as in user.txt. Every book and user changed by these repairs is written back.
+     */
+    @Override
+    public void load(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        ArrayList<User> repairedUsers;
+        try {
+            this.connection = DriverManager.getConnection(this.databaseUrl);
+            try (Statement statement = this.connection.createStatement()) {
+                statement.execute(CREATE_BOOKS_TABLE);
+                statement.execute(CREATE_USERS_TABLE);
+                statement.execute(CREATE_LOANS_TABLE);
+            }
+            readBooks(listOfBooks);
+            repairedUsers = readUsers(listOfBooks, listOfUsers);
+        } catch (SQLException e) {
+            Ui.printDatabaseError();
+            return;
+        }
+
+        boolean areBooksChanged = StorageValidation.validateUsersAndBooksLists(listOfUsers, listOfBooks);
+        if (areBooksChanged || !repairedUsers.isEmpty()) {
+            writeChanges(areBooksChanged ? listOfBooks : new ArrayList<>(), new ArrayList<>(), repairedUsers);
+        }
+    }
+
+    @Override
+    public void writeChanges(ArrayList<Book> changedBooks, ArrayList<Book> deletedBooks,
+                             ArrayList<User> changedUsers) {
+        if (this.connection == null) {
+            return;
+        }
+
+        try {
+            this.connection.setAutoCommit(false);
+            for (Book book : changedBooks) {
+                writeBook(book);
+            }
+            for (Book book : deletedBooks) {
+                executeUpdate(DELETE_BOOK, book.getBookId());
+            }
+            for (User user : changedUsers) {
+                writeUser(user);
+            }
+            this.connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            Ui.printDatabaseError();
+        }
+    }
+
+    @Override
+    public void compactIfNeeded(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        // rows are updated in place, so there is nothing to compact
+    }
+
+    @Override
+    public void reloadIfChanged(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        // other programs change rows through the database itself, which is read on every load
+    }
+
+    @Override
+    public void close(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        if (this.connection == null) {
+            return;
+        }
+
+        try {
+            this.connection.close();
+        } catch (SQLException e) {
+            Ui.printDatabaseError();
+        }
+    }
+
+    @Override
+    public UnitOfWork getUnitOfWork() {
+        return this.unitOfWork;
+    }
+
+    private void readBooks(BookList listOfBooks) throws SQLException {
+        try (Statement statement = this.connection.createStatement();
+             ResultSet bookRows = statement.executeQuery(SELECT_BOOKS)) {
+            while (bookRows.next()) {
+                Book book = new Book(bookRows.getString(2));
+                book.setNumberTotal(bookRows.getInt(3));
+                book.setNumberBorrowed(bookRows.getInt(4));
+                book.setNumberInInventory(bookRows.getInt(5));
+                book.setBookId(bookRows.getInt(1));
+                listOfBooks.add(book);
+            }
+        }
+    }
+
+    /**
+     * Reads every user and their loans.
+     *
+     * @return The users whose rows have to be written again, including users who were merged into another
+     *     user or were left without loans, whose rows are then removed.
+     */
+    private ArrayList<User> readUsers(BookList listOfBooks, ArrayList<User> listOfUsers) throws SQLException {
+        LinkedHashMap<String, User> repairedUsers = new LinkedHashMap<>();
+        HashMap<String, User> usersByName = new HashMap<>();
+        HashMap<String, User> usersByNormalizedName = new HashMap<>();
+        try (Statement statement = this.connection.createStatement();
+             ResultSet userRows = statement.executeQuery(SELECT_USERS)) {
+            while (userRows.next()) {
+                User user = new User(userRows.getString(1), listOfBooks);
+                long userOrder = userRows.getLong(2);
+                this.userOrders.put(user.getName(), userOrder);
+                this.nextUserOrder = Math.max(this.nextUserOrder, userOrder + 1);
+
+                User keptUser = usersByNormalizedName.putIfAbsent(UserList.normalizeName(user.getName()), user);
+                if (keptUser != null) {
+                    // the loans of a user whose name only differs in case go to the earlier user
+                    Ui.printMergedUsersMessage(keptUser.getName(), user.getName());
+                    usersByName.put(user.getName(), keptUser);
+                    repairedUsers.put(user.getName(), user);
+                    repairedUsers.put(keptUser.getName(), keptUser);
+                    continue;
+                }
+                usersByName.put(user.getName(), user);
+                listOfUsers.add(user);
+            }
+        }
+
+        try (Statement statement = this.connection.createStatement();
+             ResultSet loanRows = statement.executeQuery(SELECT_LOANS)) {
+            while (loanRows.next()) {
+                String userName = loanRows.getString(1);
+                User user = usersByName.get(userName);
+                if (user == null) {
+                    Ui.printInvalidTxtLine();
+                    repairedUsers.putIfAbsent(userName, new User(userName, listOfBooks));
+                    continue;
+                }
+
+                int bookId = loanRows.getInt(2);
+                LocalDate borrowDate = RecordCodec.parseDate(loanRows.getString(3));
+                LocalDate returnDueDate = RecordCodec.parseDate(loanRows.getString(4));
+                // a book borrowed by both of two merged users keeps the dates of the earlier user
+                boolean isMergedLoan = user.getUserBooks().contains(bookId) && !user.getName().equals(userName);
+                if (!listOfBooks.containsBookId(bookId) || borrowDate == null || returnDueDate == null
+                        || isMergedLoan) {
+                    if (!isMergedLoan) {
+                        Ui.printInvalidTxtLine();
+                    }
+                    repairedUsers.put(user.getName(), user);
+                    continue;
+                }
+                user.borrowBook(bookId, borrowDate, returnDueDate);
+            }
+        }
+
+        for (User user : listOfUsers) {
+            if (user.getUserBooks().isEmpty()) {
+                repairedUsers.put(user.getName(), user);
+            }
+        }
+        listOfUsers.removeIf(user -> user.getUserBooks().isEmpty());
+        return new ArrayList<>(repairedUsers.values());
+    }
+
+    private void writeBook(Book book) throws SQLException {
+        String[] statements = {UPDATE_BOOK, INSERT_BOOK};
+        for (String sql : statements) {
+            try (PreparedStatement statement = this.connection.prepareStatement(sql)) {
+                statement.setString(1, book.getName());
+                statement.setInt(2, book.getNumberTotal());
+                statement.setInt(3, book.getNumberBorrowed());
+                statement.setInt(4, book.getNumberInInventory());
+                statement.setInt(5, book.getBookId());
+                if (statement.executeUpdate() > 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces every loan of a user, keeping the position of a user who is already stored
+     * so that users are listed in the order they first borrowed a book.
+     */
+    private void writeUser(User user) throws SQLException {
+        String userName = user.getName();
+        executeUpdate(DELETE_LOANS, userName);
+        if (user.getUserBooks().isEmpty()) {
+            executeUpdate(DELETE_USER, userName);
+            this.userOrders.remove(userName);
+            return;
+        }
+
+        if (!this.userOrders.containsKey(userName)) {
+            try (PreparedStatement statement = this.connection.prepareStatement(INSERT_USER)) {
+                statement.setString(1, userName);
+                statement.setLong(2, this.nextUserOrder);
+                statement.executeUpdate();
+            }
+            this.userOrders.put(userName, this.nextUserOrder);
+            this.nextUserOrder += 1;
+        }
+
+        try (PreparedStatement statement = this.connection.prepareStatement(INSERT_LOAN)) {
+            UserBookView userBooks = user.getUserBooks();
+            for (int i = 0; i < userBooks.size(); i += 1) {
+                statement.setString(1, userName);
+                statement.setInt(2, i);
+                statement.setInt(3, userBooks.getBookId(i));
+                statement.setString(4, userBooks.getBorrowDate(i).toString());
+                statement.setString(5, userBooks.getReturnDueDate(i).toString());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void executeUpdate(String sql, Object key) throws SQLException {
+        try (PreparedStatement statement = this.connection.prepareStatement(sql)) {
+            statement.setObject(1, key);
+            statement.executeUpdate();
+        }
+    }
+
+    private void rollback() {
+        try {
+            this.connection.rollback();
+        } catch (SQLException e) {
+            Ui.printDatabaseError();
+        }
+    }
+}
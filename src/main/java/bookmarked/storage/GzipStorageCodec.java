@@ -0,0 +1,30 @@
+package bookmarked.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses storage files with GZIP, for files ending in {@code .gz}.
+ */
+public class GzipStorageCodec implements StorageCodec {
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    @Override
+    public String getExtension() {
+        return GZIP_EXTENSION;
+    }
+
+    @Override
+    public InputStream decode(InputStream compressedInput) throws IOException {
+        return new GZIPInputStream(compressedInput, BUFFER_BYTES);
+    }
+
+    @Override
+    public OutputStream encode(OutputStream compressedOutput) throws IOException {
+        return new GZIPOutputStream(compressedOutput, BUFFER_BYTES);
+    }
+}
@@ -0,0 +1,217 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * This class provides an append-only journal of changes made to books and users.
+ * Commands append small records describing what they changed instead of rewriting
+ * book.txt and user.txt, and the journal is compacted into fresh snapshots of both
+ * files by {@link TextStorageBackend}.
+ * Records are handed to the {@link WriteBehindPersister}, which writes them
+ * in the background.
+ * Records are keyed by book ID and user name, so replaying a record that is
+ * already reflected in the snapshot leaves the lists unchanged.
+ * Every write to the journal ends with a commit record, and records after the last commit
+ * record are ignored, so changes to books and users are either replayed together or not at all.
+ */
+public class JournalStorage {
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final String SEPARATOR = " | ";
+    private static final String BOOK_RECORD = "book";
+    private static final String USER_RECORD = "user";
+    private static final String UPDATE_OPERATION = "SET";
+    private static final String DELETE_OPERATION = "DEL";
+    static final String COMMIT_RECORD = "commit";
+
+    /**
+     * Returns the journal file kept alongside the given book data file.
+     *
+     * @param bookDataFile The file in which the book snapshot is stored.
+     * @return The journal file for that library.
+     */
+    public static File getJournalFile(File bookDataFile) {
+        return new File(bookDataFile.getPath() + JOURNAL_EXTENSION);
+    }
+
+    public static String updateBookRecord(Book book) {
+        return BOOK_RECORD + SEPARATOR + UPDATE_OPERATION + SEPARATOR + BookStorage.serializeBook(book).strip();
+    }
+
+    public static String deleteBookRecord(Book book) {
+        return BOOK_RECORD + SEPARATOR + DELETE_OPERATION + SEPARATOR + book.getBookId();
+    }
+
+    public static String updateUserRecord(User user) {
+        return USER_RECORD + SEPARATOR + UPDATE_OPERATION + SEPARATOR + UserStorage.serializeUser(user).strip();
+    }
+
+    public static String deleteUserRecord(String userName) {
+        return USER_RECORD + SEPARATOR + DELETE_OPERATION + SEPARATOR + userName;
+    }
+
+    /**
+     * Marks the records produced by a single command to be appended to the journal.
+     *
+     * @param bookDataFile The file in which the book snapshot is stored.
+     * @param records      The records describing the changes made by the command.
+     */
+    public static void appendRecords(File bookDataFile, String... records) {
+        String[] recordKeys = new String[records.length];
+        for (int i = 0; i < records.length; i += 1) {
+            recordKeys[i] = getRecordKey(records[i]);
+        }
+        WriteBehindPersister.getPersister().addRecords(getJournalFile(bookDataFile), recordKeys, records);
+    }
+
+    /**
+     * Writes every pending record and snapshot to disk, returning once they are written.
+     */
+    public static void flush() {
+        WriteBehindPersister.getPersister().flush();
+    }
+
+    /**
+     * Applies every record in the journal to the books and users loaded from the snapshots.
+     *
+     * @param bookDataFile The file in which the book snapshot is stored.
+     * @param listOfBooks  The books loaded from the book snapshot.
+     * @param listOfUsers  The users loaded from the user snapshot.
+     * @return true if there was a journal to replay, false otherwise.
+     */
+    public static boolean replayJournal(File bookDataFile, BookList listOfBooks, ArrayList<User> listOfUsers) {
+        File journalFile = getJournalFile(bookDataFile);
+        if (!journalFile.exists()) {
+            return false;
+        }
+
+        try (BufferedReader fileReader = new BufferedReader(new FileReader(journalFile))) {
+            ArrayList<String> uncommittedRecords = new ArrayList<>();
+            String line;
+            while ((line = fileReader.readLine()) != null) {
+                if (!line.equals(COMMIT_RECORD)) {
+                    uncommittedRecords.add(line);
+                    continue;
+                }
+
+                for (String record : uncommittedRecords) {
+                    replayRecord(record, listOfBooks, listOfUsers);
+                }
+                uncommittedRecords.clear();
+            }
+
+            if (!uncommittedRecords.isEmpty()) {
+                Ui.printIncompleteJournalMessage();
+            }
+        } catch (FileNotFoundException e) {
+            Ui.printFileNotFoundError();
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the key of the book or user that a record describes, so that later records
+     * for the same book or user can replace it before it is written.
+     * Book records are keyed by book ID, which is the last attribute of a record, and user
+     * records by user name, which is the first.
+     */
+    private static String getRecordKey(String record) {
+        String[] recordAttributes = record.split(" \\| ", 3);
+        String recordData = recordAttributes[2];
+        if (recordAttributes[0].equals(BOOK_RECORD)) {
+            return BOOK_RECORD + SEPARATOR + recordData.substring(recordData.lastIndexOf(' ') + 1);
+        }
+
+        int nameEnd = recordData.indexOf(SEPARATOR);
+        return USER_RECORD + SEPARATOR + (nameEnd == -1 ? recordData : recordData.substring(0, nameEnd));
+    }
+
+    static boolean isBookRecordKey(String recordKey) {
+        return recordKey.startsWith(BOOK_RECORD + SEPARATOR);
+    }
+
+    private static void replayRecord(String line, BookList listOfBooks, ArrayList<User> listOfUsers) {
+        String[] recordAttributes = line.split(" \\| ", 3);
+        if (recordAttributes.length < 3) {
+            Ui.printInvalidJournalLine();
+            return;
+        }
+
+        String recordType = recordAttributes[0];
+        String operation = recordAttributes[1];
+        String recordData = recordAttributes[2];
+
+        if (recordType.equals(BOOK_RECORD)) {
+            replayBookRecord(operation, recordData, listOfBooks);
+        } else if (recordType.equals(USER_RECORD)) {
+            replayUserRecord(operation, recordData, listOfBooks, listOfUsers);
+        } else {
+            Ui.printInvalidJournalLine();
+        }
+    }
+
+    private static void replayBookRecord(String operation, String recordData, BookList listOfBooks) {
+        switch (operation) {
+        case UPDATE_OPERATION:
+            Book updatedBook = BookStorage.parseBook(recordData);
+            if (updatedBook == null) {
+                return;
+            }
+            Book existingBook = listOfBooks.getBookById(updatedBook.getBookId());
+            if (existingBook == null) {
+                listOfBooks.add(updatedBook);
+            } else {
+                listOfBooks.set(listOfBooks.indexOf(existingBook), updatedBook);
+            }
+            break;
+        case DELETE_OPERATION:
+            try {
+                Book deletedBook = listOfBooks.getBookById(Integer.parseInt(recordData));
+                if (deletedBook != null) {
+                    listOfBooks.remove(deletedBook);
+                }
+            } catch (NumberFormatException e) {
+                Ui.printInvalidJournalLine();
+            }
+            break;
+        default:
+            Ui.printInvalidJournalLine();
+        }
+    }
+
+    private static void replayUserRecord(String operation, String recordData, BookList listOfBooks,
+                                         ArrayList<User> listOfUsers) {
+        switch (operation) {
+        case UPDATE_OPERATION:
+            ArrayList<User> updatedUsers = new ArrayList<>();
+            UserStorage.processReadLine(recordData, updatedUsers, listOfBooks);
+            if (updatedUsers.isEmpty()) {
+                return;
+            }
+            User updatedUser = updatedUsers.get(0);
+            int userIndex = listOfUsers.indexOf(updatedUser);
+            if (userIndex == -1) {
+                listOfUsers.add(updatedUser);
+            } else {
+                listOfUsers.set(userIndex, updatedUser);
+            }
+            break;
+        case DELETE_OPERATION:
+            listOfUsers.remove(new User(recordData, listOfBooks));
+            break;
+        default:
+            Ui.printInvalidJournalLine();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a book read from a memory-mapped binary catalog.
+ * The quantities are copied from the fixed-width record when the book is created,
+ * while the title is only decoded from the mapped title arena the first time it is needed.
+ */
+public class MappedBook extends Book {
+    private final ByteBuffer catalogBuffer;
+    private final int titleOffset;
+    private final int titleLength;
+    private boolean isTitleLoaded;
+
+    /**
+     * Constructs a MappedBook backed by a title stored in the mapped catalog.
+     *
+     * @param catalogBuffer The mapped catalog file.
+     * @param titleOffset   The position of the title in the catalog file.
+     * @param titleLength   The number of bytes in the encoded title.
+     */
+    public MappedBook(ByteBuffer catalogBuffer, int titleOffset, int titleLength) {
+        super(null);
+        this.catalogBuffer = catalogBuffer;
+        this.titleOffset = titleOffset;
+        this.titleLength = titleLength;
+        this.isTitleLoaded = false;
+    }
+
+    @Override
+    public String getName() {
+        if (!this.isTitleLoaded) {
+            byte[] titleBytes = new byte[this.titleLength];
+            this.catalogBuffer.duplicate().position(this.titleOffset).get(titleBytes);
+            setName(new String(titleBytes, StandardCharsets.UTF_8));
+        }
+        return super.getName();
+    }
+
+    @Override
+    public void setName(String bookName) {
+        this.isTitleLoaded = true;
+        super.setName(bookName);
+    }
+}
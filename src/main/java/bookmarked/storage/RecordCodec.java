@@ -0,0 +1,335 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.user.User;
+import bookmarked.userbook.UserBookView;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * This class reads and writes the pipe-delimited records of book.txt and user.txt.
+ * Records are split by scanning for the separator character by character instead of with a
+ * regular expression, numbers and dates are parsed straight from the record without creating
+ * substrings or throwing exceptions, and records are written through a reused StringBuilder.
+ * The text produced is exactly the same as before this class existed.
+ */
+public class RecordCodec {
+    public static final String SEPARATOR = " | ";
+    public static final long INVALID_NUMBER = Long.MIN_VALUE;
+    private static final int SEPARATOR_LENGTH = SEPARATOR.length();
+    private static final int MAX_YEAR = Year.MAX_VALUE;
+    private static final int MIN_YEAR_DIGITS = 4;
+    private static final String BOOK_LINE_SEPARATOR = System.lineSeparator();
+    private static final char USER_LINE_SEPARATOR = '\n';
+    private static final ThreadLocal<StringBuilder> RECORD_BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * Finds the position of the next separator in a record.
+     *
+     * @param record    The record to search.
+     * @param fromIndex The position from which to search.
+     * @return The position of the separator, or -1 if there is none.
+     */
+    public static int findSeparator(CharSequence record, int fromIndex) {
+        int lastSeparatorStart = record.length() - SEPARATOR_LENGTH;
+        // the middle character is the rarest, so it is the one that is checked first
+        for (int i = fromIndex + 1; i <= lastSeparatorStart + 1; i += 1) {
+            if (record.charAt(i) == '|' && record.charAt(i - 1) == ' ' && record.charAt(i + 1) == ' ') {
+                return i - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the start and end of every field in a record, splitting it in the same way as
+     * {@code record.split(" \\| ")}, so fields are separated by {@code " | "} and empty fields
+     * at the end of the record are dropped.
+     *
+     * @param record      The record to split.
+     * @param fieldBounds The array in which the start and end of each field are stored in pairs.
+     *                    Only as many fields as fit in the array are stored.
+     * @return The number of fields in the record.
+     */
+    public static int findFields(CharSequence record, int[] fieldBounds) {
+        int numberOfFields = 0;
+        int numberOfNonEmptyFields = 0;
+        int fieldStart = 0;
+        int separatorStart = findSeparator(record, 0);
+        if (separatorStart == -1) {
+            storeFieldBounds(fieldBounds, 0, 0, record.length());
+            return 1;
+        }
+
+        while (true) {
+            int fieldEnd = separatorStart == -1 ? record.length() : separatorStart;
+            storeFieldBounds(fieldBounds, numberOfFields, fieldStart, fieldEnd);
+            numberOfFields += 1;
+            if (fieldEnd > fieldStart) {
+                numberOfNonEmptyFields = numberOfFields;
+            }
+            if (separatorStart == -1) {
+                return numberOfNonEmptyFields;
+            }
+            fieldStart = separatorStart + SEPARATOR_LENGTH;
+            separatorStart = findSeparator(record, fieldStart);
+        }
+    }
+
+    /**
+     * Splits a record into its fields in the same way as {@code record.split(" \\| ")}.
+     *
+     * @param record The record to split.
+     * @return The fields of the record.
+     */
+    public static String[] splitFields(String record) {
+        int[] fieldBounds = new int[2 * (countSeparators(record) + 1)];
+        int numberOfFields = findFields(record, fieldBounds);
+
+        String[] fields = new String[numberOfFields];
+        for (int i = 0; i < numberOfFields; i += 1) {
+            fields[i] = record.substring(fieldBounds[2 * i], fieldBounds[2 * i + 1]);
+        }
+        return fields;
+    }
+
+    /**
+     * Parses a whole number in the same way as {@link Integer#parseInt(String)}, without throwing
+     * an exception if it is not a valid number.
+     *
+     * @param text  The text containing the number.
+     * @param start The position of the first character of the number.
+     * @param end   The position after the last character of the number.
+     * @return The number, or {@link #INVALID_NUMBER} if the text is not a valid int.
+     */
+    public static long parseNumber(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return INVALID_NUMBER;
+        }
+
+        boolean isNegative = text.charAt(start) == '-';
+        int digitsStart = isNegative || text.charAt(start) == '+' ? start + 1 : start;
+        long number = parseDigits(text, digitsStart, end);
+        if (number == INVALID_NUMBER) {
+            return INVALID_NUMBER;
+        }
+
+        number = isNegative ? -number : number;
+        if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+            return INVALID_NUMBER;
+        }
+        return number;
+    }
+
+    /**
+     * Parses a whole number, ignoring any whitespace around it.
+     *
+     * @param text The text containing the number.
+     * @return The number, or {@link #INVALID_NUMBER} if the text is not a valid int.
+     */
+    public static long parseStrippedNumber(CharSequence text) {
+        int start = skipLeadingWhitespace(text, 0, text.length());
+        int end = skipTrailingWhitespace(text, start, text.length());
+        return parseNumber(text, start, end);
+    }
+
+    /**
+     * Parses an ISO date such as 2024-04-01 in the same way as {@link LocalDate#parse(CharSequence)},
+     * without throwing an exception if it is not a valid date.
+     *
+     * @param text The text containing the date.
+     * @return The date, or null if the text is not a valid date.
+     */
+    public static LocalDate parseDate(CharSequence text) {
+        return parseDate(text, 0, text.length());
+    }
+
+    /**
+     * Parses an ISO date such as 2024-04-01 from part of a text. Years with more than four digits
+     * must start with a sign, as in {@link LocalDate#parse(CharSequence)}.
+     *
+     * @param text  The text containing the date.
+     * @param start The position of the first character of the date.
+     * @param end   The position after the last character of the date.
+     * @return The date, or null if the text is not a valid date.
+     */
+    public static LocalDate parseDate(CharSequence text, int start, int end) {
+        int monthSeparator = end - 6;
+        int daySeparator = end - 3;
+        if (monthSeparator <= start || text.charAt(monthSeparator) != '-' || text.charAt(daySeparator) != '-') {
+            return null;
+        }
+
+        char sign = text.charAt(start);
+        boolean hasSign = sign == '+' || sign == '-';
+        int yearStart = hasSign ? start + 1 : start;
+        int numberOfYearDigits = monthSeparator - yearStart;
+        // a plus sign is required for years with more than four digits, and not allowed otherwise
+        boolean isSignNeeded = numberOfYearDigits > MIN_YEAR_DIGITS;
+        boolean hasValidSign = sign == '-' || isSignNeeded == (sign == '+');
+        if (numberOfYearDigits < MIN_YEAR_DIGITS || !hasValidSign) {
+            return null;
+        }
+
+        long year = parseDigits(text, yearStart, monthSeparator);
+        long month = parseDigits(text, monthSeparator + 1, daySeparator);
+        long day = parseDigits(text, daySeparator + 1, end);
+        if (year == INVALID_NUMBER || year > MAX_YEAR || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+
+        int signedYear = (int) (sign == '-' ? -year : year);
+        if (day > lengthOfMonth(signedYear, (int) month)) {
+            return null;
+        }
+        return LocalDate.of(signedYear, (int) month, (int) day);
+    }
+
+    /**
+     * Appends a book to a record in the format of book.txt, ending with a line separator.
+     *
+     * @param record The record to append to.
+     * @param book   The book to append.
+     */
+    public static void appendBook(StringBuilder record, Book book) {
+        record.append(book.getName()).append(SEPARATOR)
+                .append(book.getNumberTotal()).append(SEPARATOR)
+                .append(book.getNumberBorrowed()).append(SEPARATOR)
+                .append(book.getNumberInInventory()).append(SEPARATOR)
+                .append(book.getBookId())
+                .append(BOOK_LINE_SEPARATOR);
+    }
+
+    /**
+     * Appends a user and the books they borrowed to a record in the format of user.txt,
+     * ending with a new line.
+     *
+     * @param record The record to append to.
+     * @param user   The user to append.
+     */
+    public static void appendUser(StringBuilder record, User user) {
+        record.append(user.getName());
+
+        UserBookView userBooks = user.getUserBooks();
+        for (int i = 0; i < userBooks.size(); i += 1) {
+            int bookId = userBooks.getBookId(i);
+            record.append(SEPARATOR).append(bookId)
+                    .append(SEPARATOR).append(user.getUserBookTitle(bookId))
+                    .append(SEPARATOR);
+            appendDate(record, userBooks.getBorrowDate(i));
+            record.append(SEPARATOR);
+            appendDate(record, userBooks.getReturnDueDate(i));
+        }
+        record.append(USER_LINE_SEPARATOR);
+    }
+
+    /**
+     * Appends a date in the same form as {@link LocalDate#toString()}.
+     *
+     * @param record The record to append to.
+     * @param date   The date to append, which may be null.
+     */
+    public static void appendDate(StringBuilder record, LocalDate date) {
+        if (date == null || date.getYear() < 0 || date.getYear() > 9999) {
+            record.append(date);
+            return;
+        }
+
+        appendPadded(record, date.getYear(), 4);
+        record.append('-');
+        appendPadded(record, date.getMonthValue(), 2);
+        record.append('-');
+        appendPadded(record, date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Returns an empty StringBuilder that is reused by every record written on the current thread.
+     * The builder must not be kept after the record has been turned into a String.
+     *
+     * @return The cleared builder.
+     */
+    public static StringBuilder getRecordBuilder() {
+        StringBuilder record = RECORD_BUILDER.get();
+        record.setLength(0);
+        return record;
+    }
+
+    private static void storeFieldBounds(int[] fieldBounds, int fieldIndex, int fieldStart, int fieldEnd) {
+        if (2 * fieldIndex + 1 < fieldBounds.length) {
+            fieldBounds[2 * fieldIndex] = fieldStart;
+            fieldBounds[2 * fieldIndex + 1] = fieldEnd;
+        }
+    }
+
+    private static int countSeparators(CharSequence record) {
+        int numberOfSeparators = 0;
+        for (int i = findSeparator(record, 0); i != -1; i = findSeparator(record, i + SEPARATOR_LENGTH)) {
+            numberOfSeparators += 1;
+        }
+        return numberOfSeparators;
+    }
+
+    /**
+     * Parses a run of ASCII digits, stopping as soon as the value can no longer be an int.
+     */
+    private static long parseDigits(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return INVALID_NUMBER;
+        }
+
+        long number = 0;
+        for (int i = start; i < end; i += 1) {
+            char digit = text.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return INVALID_NUMBER;
+            }
+            number = number * 10 + (digit - '0');
+            if (number > Integer.MAX_VALUE + 1L) {
+                return INVALID_NUMBER;
+            }
+        }
+        return number;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+        case 2:
+            return Year.isLeap(year) ? 29 : 28;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            return 30;
+        default:
+            return 31;
+        }
+    }
+
+    private static void appendPadded(StringBuilder record, int number, int width) {
+        int limit = 10;
+        for (int i = 1; i < width; i += 1) {
+            if (number < limit) {
+                record.append('0');
+            }
+            limit *= 10;
+        }
+        record.append(number);
+    }
+
+    private static int skipLeadingWhitespace(CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            i += 1;
+        }
+        return i;
+    }
+
+    private static int skipTrailingWhitespace(CharSequence text, int start, int end) {
+        int i = end;
+        while (i > start && Character.isWhitespace(text.charAt(i - 1))) {
+            i -= 1;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,53 @@
+package bookmarked.storage;
+
+import bookmarked.BookList;
+import bookmarked.user.UserList;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Splits a library into a different number of shards, for use with {@link ShardedStorageBackend}.
+ * The library is read either from an existing shard directory, or from a book file and a user file
+ * such as book.txt and user.txt, and the shard directory is only replaced once every new shard is written.
+ * Usage: {@code ReshardTool SHARD_DIRECTORY NUMBER_OF_SHARDS [BOOK_FILE USER_FILE]}
+ */
+public class ReshardTool {
+    private static final String USAGE = "Usage: ReshardTool SHARD_DIRECTORY NUMBER_OF_SHARDS [BOOK_FILE USER_FILE]";
+
+    public static void main(String[] args) {
+        long numberOfShards = args.length == 2 || args.length == 4
+                ? RecordCodec.parseStrippedNumber(args[1]) : RecordCodec.INVALID_NUMBER;
+        if (numberOfShards <= 0) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        File shardDirectory = new File(args[0]);
+        StorageBackend sourceStorage;
+        if (args.length == 4) {
+            File bookDataFile = new File(args[2]);
+            File userDataFile = new File(args[3]);
+            sourceStorage = BinaryBookStorage.isBinaryFile(bookDataFile)
+                    ? new BinaryStorageBackend(bookDataFile, userDataFile)
+                    : new TextStorageBackend(bookDataFile, userDataFile);
+        } else {
+            sourceStorage = new ShardedStorageBackend(shardDirectory, (int) numberOfShards);
+        }
+
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        sourceStorage.load(listOfBooks, listOfUsers);
+        // anything repaired while loading is written before the shard directory is replaced
+        sourceStorage.close(listOfBooks, listOfUsers);
+
+        try {
+            ShardedStorageBackend.writeLibrary(shardDirectory, (int) numberOfShards, listOfBooks, listOfUsers);
+        } catch (IOException e) {
+            System.out.println("Sorry, the shards could not be written: " + e.getMessage());
+            return;
+        }
+        System.out.println("Wrote " + listOfBooks.size() + " books and " + listOfUsers.size() + " users into "
+                + numberOfShards + " shards in " + shardDirectory.getPath());
+    }
+}
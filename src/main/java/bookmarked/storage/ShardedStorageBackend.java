@@ -0,0 +1,417 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.arguments.StorageValidation;
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Stores books and users in a directory of shard files, in the same format as book.txt and user.txt.
+ * Every book is kept in the shard given by its ID, and every user in the shard given by the hash of
+ * their name, so only the shards holding what a command changed are rewritten. Shards are read in
+ * parallel, and a shard with lines that cannot be read is copied aside and rewritten with the lines
+ * that could be, instead of skipping lines across the whole library.
+ * The number of shards is fixed when the directory is created, and can be changed with {@link ReshardTool}.
+ */
+public class ShardedStorageBackend implements StorageBackend {
+    public static final int DEFAULT_NUMBER_OF_SHARDS = 8;
+    private static final String MANIFEST_FILE_NAME = "shards.txt";
+    private static final String BOOK_SHARD_PREFIX = "books-";
+    private static final String USER_SHARD_PREFIX = "users-";
+    private static final String SHARD_EXTENSION = ".txt";
+    private static final String QUARANTINE_EXTENSION = ".corrupt";
+
+    private final File shardDirectory;
+    private final int numberOfShards;
+    private final UnitOfWork unitOfWork = new UnitOfWork(this);
+    private final ArrayList<LinkedHashMap<Integer, Book>> bookShards = new ArrayList<>();
+    private final ArrayList<LinkedHashMap<String, User>> userShards = new ArrayList<>();
+
+    /**
+     * Constructs a backend for the given directory. The number of shards of an existing directory is
+     * read from the directory itself, and the given number is only used to create a new one.
+     *
+     * @param shardDirectory The directory in which the shards are kept.
+     * @param numberOfShards The number of shards for a new directory.
+     */
+    public ShardedStorageBackend(File shardDirectory, int numberOfShards) {
+        this.shardDirectory = shardDirectory;
+        this.numberOfShards = readNumberOfShards(shardDirectory, numberOfShards);
+        for (int i = 0; i < this.numberOfShards; i += 1) {
+            this.bookShards.add(new LinkedHashMap<>());
+            this.userShards.add(new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Reads every shard in parallel, books before users so that borrowed books can be checked.
+     * Users whose names only differ in case are merged, as in user.txt. Shards that had to be repaired,
+     * or that hold a book or user belonging to another shard, are rewritten.
+     */
+    @Override
+    public void load(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        createShardDirectory();
+        boolean[] areBookShardsChanged = new boolean[this.numberOfShards];
+        boolean[] areUserShardsChanged = new boolean[this.numberOfShards];
+
+        List<Shard<Book>> loadedBookShards = IntStream.range(0, this.numberOfShards).parallel()
+                .mapToObj(i -> readBookShard(getBookShardFile(i)))
+                .collect(Collectors.toList());
+        ArrayList<Book> loadedBooks = new ArrayList<>();
+        IdentityHashMap<Book, Shard<Book>> bookSources = new IdentityHashMap<>();
+        for (Shard<Book> shard : loadedBookShards) {
+            loadedBooks.addAll(shard.records);
+            for (Book book : shard.records) {
+                bookSources.put(book, shard);
+            }
+        }
+        // books were first added in the order of their IDs, and books without an ID are given one last
+        loadedBooks.sort(Comparator.comparingInt(book -> book.getBookId() == Book.UNASSIGNED_ID
+                ? Integer.MAX_VALUE : book.getBookId()));
+        for (Book book : loadedBooks) {
+            if (listOfBooks.contains(book)) {
+                bookSources.get(book).isCorrupt = true;
+                continue;
+            }
+            listOfBooks.add(book);
+        }
+
+        List<Shard<User>> loadedUserShards = IntStream.range(0, this.numberOfShards).parallel()
+                .mapToObj(i -> readUserShard(getUserShardFile(i), listOfBooks))
+                .collect(Collectors.toList());
+        for (int i = 0; i < this.numberOfShards; i += 1) {
+            for (User user : loadedUserShards.get(i).records) {
+                int existingPosition = listOfUsers.indexOf(user);
+                if (existingPosition != -1) {
+                    User keptUser = listOfUsers.get(existingPosition);
+                    if (keptUser.getName().equals(user.getName())) {
+                        loadedUserShards.get(i).isCorrupt = true;
+                        continue;
+                    }
+                    // as in user.txt, a user whose name only differs in case is merged into the earlier user,
+                    // and the loan counters and registry are counted again below
+                    StorageValidation.mergeUsers(keptUser, user, listOfBooks);
+                    areUserShardsChanged[i] = true;
+                    areUserShardsChanged[getUserShard(keptUser)] = true;
+                    continue;
+                }
+                listOfUsers.add(user);
+                if (getUserShard(user) != i) {
+                    areUserShardsChanged[i] = true;
+                    areUserShardsChanged[getUserShard(user)] = true;
+                }
+            }
+        }
+        listOfUsers.sort(Comparator.comparing(User::getName));
+
+        for (int i = 0; i < this.numberOfShards; i += 1) {
+            areBookShardsChanged[i] |= quarantineIfCorrupt(loadedBookShards.get(i), getBookShardFile(i));
+            areUserShardsChanged[i] |= quarantineIfCorrupt(loadedUserShards.get(i), getUserShardFile(i));
+            for (Book book : loadedBookShards.get(i).records) {
+                // books read without an ID, or moved between shards by hand, now belong to another shard
+                if (getBookShard(book) != i) {
+                    areBookShardsChanged[i] = true;
+                    areBookShardsChanged[getBookShard(book)] = true;
+                }
+            }
+        }
+
+        if (StorageValidation.validateUsersAndBooksLists(listOfUsers, listOfBooks)) {
+            Arrays.fill(areBookShardsChanged, true);
+        }
+        listOfBooks.getLoanRegistry().rebuild(listOfUsers);
+
+        for (Book book : listOfBooks) {
+            this.bookShards.get(getBookShard(book)).put(book.getBookId(), book);
+        }
+        for (User user : listOfUsers) {
+            this.userShards.get(getUserShard(user)).put(user.getName(), user);
+        }
+        writeShards(areBookShardsChanged, areUserShardsChanged);
+    }
+
+    @Override
+    public void writeChanges(ArrayList<Book> changedBooks, ArrayList<Book> deletedBooks,
+                             ArrayList<User> changedUsers) {
+        boolean[] areBookShardsChanged = new boolean[this.numberOfShards];
+        boolean[] areUserShardsChanged = new boolean[this.numberOfShards];
+        for (Book book : changedBooks) {
+            this.bookShards.get(getBookShard(book)).put(book.getBookId(), book);
+            areBookShardsChanged[getBookShard(book)] = true;
+        }
+        for (Book book : deletedBooks) {
+            this.bookShards.get(getBookShard(book)).remove(book.getBookId());
+            areBookShardsChanged[getBookShard(book)] = true;
+        }
+        for (User user : changedUsers) {
+            LinkedHashMap<String, User> userShard = this.userShards.get(getUserShard(user));
+            if (user.getUserBooks().isEmpty()) {
+                userShard.remove(user.getName());
+            } else {
+                userShard.put(user.getName(), user);
+            }
+            areUserShardsChanged[getUserShard(user)] = true;
+        }
+        writeShards(areBookShardsChanged, areUserShardsChanged);
+    }
+
+    @Override
+    public void compactIfNeeded(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        // every shard is rewritten as a whole, so there is nothing to compact
+    }
+
+    @Override
+    public void reloadIfChanged(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        // shard files are only changed by this application and the reshard tool, so they are not watched
+    }
+
+    @Override
+    public void close(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        WriteBehindPersister.getPersister().flush();
+    }
+
+    @Override
+    public UnitOfWork getUnitOfWork() {
+        return this.unitOfWork;
+    }
+
+    public int getNumberOfShards() {
+        return this.numberOfShards;
+    }
+
+    /**
+     * Writes a whole library into a new directory of shards, which then replaces the given directory.
+     * The directory is only replaced once every shard has been written.
+     *
+     * @param shardDirectory The directory in which the shards are kept.
+     * @param numberOfShards The number of shards to split the library into.
+     * @param listOfBooks    The books of the library.
+     * @param listOfUsers    The users of the library.
+     * @throws IOException If the shards cannot be written.
+     */
+    public static void writeLibrary(File shardDirectory, int numberOfShards, ArrayList<Book> listOfBooks,
+                                    ArrayList<User> listOfUsers) throws IOException {
+        File newShardDirectory = new File(shardDirectory.getPath() + ".new");
+        File oldShardDirectory = new File(shardDirectory.getPath() + ".old");
+        deleteDirectory(newShardDirectory);
+        deleteDirectory(oldShardDirectory);
+        Files.createDirectories(newShardDirectory.toPath());
+
+        ShardedStorageBackend newLibrary = new ShardedStorageBackend(newShardDirectory, numberOfShards);
+        Files.write(new File(newShardDirectory, MANIFEST_FILE_NAME).toPath(),
+                String.valueOf(numberOfShards).getBytes());
+        for (int i = 0; i < numberOfShards; i += 1) {
+            ArrayList<Book> booksInShard = new ArrayList<>();
+            for (Book book : listOfBooks) {
+                if (newLibrary.getBookShard(book) == i) {
+                    booksInShard.add(book);
+                }
+            }
+            ArrayList<User> usersInShard = new ArrayList<>();
+            for (User user : listOfUsers) {
+                if (newLibrary.getUserShard(user) == i) {
+                    usersInShard.add(user);
+                }
+            }
+            Files.write(newLibrary.getBookShardFile(i).toPath(), BookStorage.encodeBooks(booksInShard));
+            Files.write(newLibrary.getUserShardFile(i).toPath(), UserStorage.encodeUsers(usersInShard));
+        }
+
+        if (shardDirectory.exists()) {
+            Files.move(shardDirectory.toPath(), oldShardDirectory.toPath());
+        }
+        Files.move(newShardDirectory.toPath(), shardDirectory.toPath());
+        deleteDirectory(oldShardDirectory);
+    }
+
+    private int getBookShard(Book book) {
+        return Math.floorMod(book.getBookId(), this.numberOfShards);
+    }
+
+    private int getUserShard(User user) {
+        // String.hashCode is specified, so a user stays in the same shard across runs
+        return Math.floorMod(user.getName().hashCode(), this.numberOfShards);
+    }
+
+    private File getBookShardFile(int shard) {
+        return new File(this.shardDirectory, BOOK_SHARD_PREFIX + shard + SHARD_EXTENSION);
+    }
+
+    private File getUserShardFile(int shard) {
+        return new File(this.shardDirectory, USER_SHARD_PREFIX + shard + SHARD_EXTENSION);
+    }
+
+    private void writeShards(boolean[] areBookShardsChanged, boolean[] areUserShardsChanged) {
+        LinkedHashMap<File, byte[]> shardFiles = new LinkedHashMap<>();
+        for (int i = 0; i < this.numberOfShards; i += 1) {
+            if (areBookShardsChanged[i]) {
+                shardFiles.put(getBookShardFile(i),
+                        BookStorage.encodeBooks(new ArrayList<>(this.bookShards.get(i).values())));
+            }
+        }
+        for (int i = 0; i < this.numberOfShards; i += 1) {
+            if (areUserShardsChanged[i]) {
+                shardFiles.put(getUserShardFile(i),
+                        UserStorage.encodeUsers(new ArrayList<>(this.userShards.get(i).values())));
+            }
+        }
+
+        if (!shardFiles.isEmpty()) {
+            WriteBehindPersister.getPersister().addFileWrites(shardFiles);
+        }
+    }
+
+    private void createShardDirectory() {
+        File manifestFile = new File(this.shardDirectory, MANIFEST_FILE_NAME);
+        if (manifestFile.exists()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(this.shardDirectory.toPath());
+            Files.write(manifestFile.toPath(), String.valueOf(this.numberOfShards).getBytes());
+        } catch (IOException e) {
+            System.out.println("Sorry, something's wrong, file is not created");
+        }
+    }
+
+    /**
+     * Keeps a copy of a shard that had lines which could not be read, before it is rewritten
+     * without them.
+     *
+     * @return true if the shard has to be rewritten, false otherwise.
+     */
+    private static boolean quarantineIfCorrupt(Shard<?> shard, File shardFile) {
+        if (!shard.isCorrupt) {
+            return false;
+        }
+
+        File quarantineFile = new File(shardFile.getPath() + QUARANTINE_EXTENSION);
+        try {
+            Files.copy(shardFile.toPath(), quarantineFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Ui.printQuarantinedShardMessage(shardFile.getName(), quarantineFile.getName());
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+        }
+        return true;
+    }
+
+    private static Shard<Book> readBookShard(File shardFile) {
+        Shard<Book> shard = new Shard<>();
+        for (String line : readShardLines(shardFile, shard)) {
+            Book book = BookStorage.parseBookQuietly(line);
+            if (book == null) {
+                shard.isCorrupt = true;
+            } else {
+                shard.records.add(book);
+            }
+        }
+        return shard;
+    }
+
+    private static Shard<User> readUserShard(File shardFile, BookList listOfBooks) {
+        Shard<User> shard = new Shard<>();
+        for (String line : readShardLines(shardFile, shard)) {
+            User user = parseUser(line, listOfBooks);
+            if (user == null) {
+                shard.isCorrupt = true;
+            } else {
+                shard.records.add(user);
+            }
+        }
+        return shard;
+    }
+
+    private static ArrayList<String> readShardLines(File shardFile, Shard<?> shard) {
+        if (!shardFile.exists()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return ChunkedFileReader.readLines(shardFile);
+        } catch (IOException e) {
+            shard.isCorrupt = true;
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Parses a line of a user shard, which is in the format of user.txt. As in user.txt, the titles of
+     * borrowed books are only labels, and books are found by their IDs.
+     *
+     * @return The user, or null if any part of the line is not valid.
+     */
+    private static User parseUser(String line, BookList listOfBooks) {
+        String[] userAttributes = RecordCodec.splitFields(line);
+        int numberOfBookAttributes = userAttributes.length - 1;
+        if (numberOfBookAttributes <= 0 || numberOfBookAttributes % 4 != 0 || userAttributes[0].isBlank()) {
+            return null;
+        }
+
+        // shards are read in parallel, so loans are only recorded once every user has been read
+        User user = new User(userAttributes[0], null);
+        for (int i = 1; i < userAttributes.length; i += 4) {
+            long bookId = RecordCodec.parseStrippedNumber(userAttributes[i]);
+            LocalDate borrowDate = RecordCodec.parseDate(userAttributes[i + 2].strip());
+            LocalDate returnDueDate = RecordCodec.parseDate(userAttributes[i + 3].strip());
+            if (bookId == RecordCodec.INVALID_NUMBER || !listOfBooks.containsBookId((int) bookId)
+                    || borrowDate == null || returnDueDate == null || !borrowDate.isBefore(returnDueDate)
+                    || user.getUserBooks().contains((int) bookId)) {
+                return null;
+            }
+            user.borrowBook((int) bookId, borrowDate, returnDueDate);
+        }
+        user.setListOfBooks(listOfBooks);
+        return user;
+    }
+
+    private static int readNumberOfShards(File shardDirectory, int defaultNumberOfShards) {
+        File manifestFile = new File(shardDirectory, MANIFEST_FILE_NAME);
+        if (!manifestFile.exists()) {
+            return Math.max(1, defaultNumberOfShards);
+        }
+
+        try {
+            String manifest = new String(Files.readAllBytes(manifestFile.toPath()));
+            long numberOfShards = RecordCodec.parseStrippedNumber(manifest);
+            return numberOfShards > 0 ? (int) numberOfShards : Math.max(1, defaultNumberOfShards);
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+            return Math.max(1, defaultNumberOfShards);
+        }
+    }
+
+    private static void deleteDirectory(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory.toPath());
+    }
+
+    /**
+     * The books or users read from a single shard file.
+     */
+    private static class Shard<T> {
+        private final ArrayList<T> records = new ArrayList<>();
+        private boolean isCorrupt = false;
+    }
+}
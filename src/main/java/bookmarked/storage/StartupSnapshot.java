@@ -0,0 +1,289 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.user.User;
+import bookmarked.userbook.UserBookTable;
+import bookmarked.userbook.UserBookView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * This class keeps a binary snapshot of the library as it was on the last clean exit, next to the
+ * book file, so that the next start does not have to parse and check both files again.
+ * The snapshot holds every book with its loan counter, every user with their position in user.txt,
+ * and the line hashes used to notice changes made by other programs. It is only used if both files
+ * still have the size and checksum they had when it was written, no journal is waiting to be
+ * replayed, and its own checksum is correct; otherwise the files are read as usual.
+ * Users are restored without their borrowed books, which are read from user.txt when first used,
+ * unless user.txt is compressed, in which case the snapshot holds their books as well.
+ */
+public class StartupSnapshot {
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    private static final int MAGIC_NUMBER = 0x424d4b53;
+    private static final int VERSION = 1;
+    // magic number, version, the size and checksum of both files, and the checksum of the rest
+    private static final int HEADER_SIZE = 36;
+    private static final int NO_RECORD_OFFSET = -1;
+    private static final long CHECKSUM_CHUNK_BYTES = 64 * 1024 * 1024;
+
+    public static File getSnapshotFile(File bookDataFile) {
+        return new File(bookDataFile.getPath() + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * Writes a snapshot of the library once both files have been written.
+     *
+     * @param bookDataFile    The file in which books are stored.
+     * @param userDataFile    The file in which users are stored.
+     * @param listOfBooks     The list of books.
+     * @param listOfUsers     The list of users.
+     * @param userIndex       The index of the positions of users in the user file.
+     * @param storageReloader The reloader holding the hash of every line of both files.
+     */
+    public static void writeSnapshot(File bookDataFile, File userDataFile, ArrayList<Book> listOfBooks,
+                                     ArrayList<User> listOfUsers, UserIndex userIndex,
+                                     StorageReloader storageReloader) {
+        File snapshotFile = getSnapshotFile(bookDataFile);
+        try {
+            boolean areUserBooksStored = StorageCodecs.isCompressed(userDataFile);
+            byte[] content = encodeContent(listOfBooks, listOfUsers, areUserBooksStored,
+                    userIndex.getRecordOffsets(), storageReloader);
+
+            CRC32C contentChecksum = new CRC32C();
+            contentChecksum.update(content);
+            ByteArrayOutputStream snapshotBytes = new ByteArrayOutputStream(HEADER_SIZE + content.length);
+            DataOutputStream snapshotWriter = new DataOutputStream(snapshotBytes);
+            snapshotWriter.writeInt(MAGIC_NUMBER);
+            snapshotWriter.writeInt(VERSION);
+            snapshotWriter.writeLong(bookDataFile.length());
+            snapshotWriter.writeInt(checksumFile(bookDataFile));
+            snapshotWriter.writeLong(userDataFile.length());
+            snapshotWriter.writeInt(checksumFile(userDataFile));
+            snapshotWriter.writeInt((int) contentChecksum.getValue());
+            snapshotWriter.write(content);
+            snapshotWriter.flush();
+            WriteBehindPersister.writeFileAtomically(snapshotFile, snapshotBytes.toByteArray());
+        } catch (IOException e) {
+            // without a snapshot the files are simply read as usual on the next start
+            snapshotFile.delete();
+        }
+    }
+
+    /**
+     * Restores the library from its snapshot, if the snapshot still matches both files.
+     *
+     * @param bookDataFile    The file in which books are stored.
+     * @param userDataFile    The file in which users are stored.
+     * @param listOfBooks     The list to which the books are added.
+     * @param listOfUsers     The list to which the users are added.
+     * @param userIndex       The index to which the positions of users are given.
+     * @param storageReloader The reloader to which the hash of every line is given.
+     * @return true if the library was restored, false if the files have to be read instead.
+     */
+    public static boolean restoreSnapshot(File bookDataFile, File userDataFile, BookList listOfBooks,
+                                          ArrayList<User> listOfUsers, UserIndex userIndex,
+                                          StorageReloader storageReloader) {
+        File snapshotFile = getSnapshotFile(bookDataFile);
+        if (!snapshotFile.isFile() || JournalStorage.getJournalFile(bookDataFile).length() > 0) {
+            return false;
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                return false;
+            }
+
+            MappedByteBuffer snapshotBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (!isSnapshotCurrent(snapshotBuffer, bookDataFile, userDataFile)) {
+                return false;
+            }
+            return decodeContent(snapshotBuffer, listOfBooks, listOfUsers, userIndex, storageReloader);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] encodeContent(ArrayList<Book> listOfBooks, ArrayList<User> listOfUsers,
+                                        boolean areUserBooksStored, HashMap<String, Long> recordOffsets,
+                                        StorageReloader storageReloader) throws IOException {
+        HashMap<Integer, Integer> bookRecordHashes = storageReloader.getBookRecordHashes();
+        HashMap<String, Integer> userRecordHashes = storageReloader.getUserRecordHashes();
+        ByteArrayOutputStream contentBytes = new ByteArrayOutputStream();
+        DataOutputStream contentWriter = new DataOutputStream(contentBytes);
+
+        int numberOfBooks = 0;
+        for (Book book : listOfBooks) {
+            numberOfBooks += book.isDeleted() ? 0 : 1;
+        }
+        contentWriter.writeInt(numberOfBooks);
+        for (Book book : listOfBooks) {
+            if (book.isDeleted()) {
+                continue;
+            }
+            contentWriter.writeInt(book.getBookId());
+            contentWriter.writeInt(book.getNumberTotal());
+            contentWriter.writeInt(book.getNumberBorrowed());
+            contentWriter.writeInt(book.getNumberInInventory());
+            contentWriter.writeInt(book.getNumberOfLoans());
+            contentWriter.writeInt(bookRecordHashes.getOrDefault(book.getBookId(), 0));
+            writeString(contentWriter, book.getName());
+        }
+
+        contentWriter.writeBoolean(areUserBooksStored);
+        contentWriter.writeInt(listOfUsers.size());
+        for (User user : listOfUsers) {
+            writeString(contentWriter, user.getName());
+            contentWriter.writeLong(recordOffsets.getOrDefault(user.getName(), (long) NO_RECORD_OFFSET));
+            contentWriter.writeInt(userRecordHashes.getOrDefault(user.getName(), 0));
+            if (!areUserBooksStored) {
+                continue;
+            }
+
+            UserBookView userBooks = user.getUserBooks();
+            contentWriter.writeInt(userBooks.size());
+            for (int i = 0; i < userBooks.size(); i += 1) {
+                contentWriter.writeInt(userBooks.getBookId(i));
+                contentWriter.writeLong(userBooks.getBorrowDate(i).toEpochDay());
+                contentWriter.writeLong(userBooks.getReturnDueDate(i).toEpochDay());
+            }
+        }
+        contentWriter.flush();
+        return contentBytes.toByteArray();
+    }
+
+    /**
+     * Reads the books and users from the content of the snapshot. Nothing is added to the lists
+     * unless the whole snapshot could be read.
+     */
+    private static boolean decodeContent(ByteBuffer content, BookList listOfBooks, ArrayList<User> listOfUsers,
+                                         UserIndex userIndex, StorageReloader storageReloader) {
+        int numberOfBooks = content.getInt();
+        ArrayList<Book> restoredBooks = new ArrayList<>(numberOfBooks);
+        HashMap<Integer, Integer> bookRecordHashes = new HashMap<>();
+        for (int i = 0; i < numberOfBooks; i += 1) {
+            int bookId = content.getInt();
+            int numberTotal = content.getInt();
+            int numberBorrowed = content.getInt();
+            int numberInInventory = content.getInt();
+            int numberOfLoans = content.getInt();
+            bookRecordHashes.put(bookId, content.getInt());
+
+            Book book = new Book(readString(content));
+            book.setBookId(bookId);
+            book.setNumberTotal(numberTotal);
+            book.setNumberBorrowed(numberBorrowed);
+            book.setNumberInInventory(numberInInventory);
+            book.setNumberOfLoans(numberOfLoans);
+            restoredBooks.add(book);
+        }
+
+        boolean areUserBooksStored = content.get() != 0;
+        int numberOfUsers = content.getInt();
+        ArrayList<User> restoredUsers = new ArrayList<>(numberOfUsers);
+        HashMap<String, Long> recordOffsets = new HashMap<>();
+        HashMap<String, Integer> userRecordHashes = new HashMap<>();
+        for (int i = 0; i < numberOfUsers; i += 1) {
+            User user = new User(readString(content), listOfBooks);
+            long recordOffset = content.getLong();
+            if (recordOffset != NO_RECORD_OFFSET) {
+                recordOffsets.put(user.getName(), recordOffset);
+            }
+            userRecordHashes.put(user.getName(), content.getInt());
+            if (areUserBooksStored) {
+                // the loan counters were restored with the books, so they are not counted again
+                user.setUserBooks(readUserBooks(content));
+            }
+            restoredUsers.add(user);
+        }
+        if (content.hasRemaining()) {
+            return false;
+        }
+
+        listOfBooks.addAll(restoredBooks);
+        listOfUsers.addAll(restoredUsers);
+        if (areUserBooksStored) {
+            listOfBooks.getLoanRegistry().rebuild(listOfUsers);
+        } else {
+            userIndex.indexUnloadedUsers(listOfUsers, recordOffsets);
+            listOfBooks.getLoanRegistry().markIncomplete();
+        }
+        storageReloader.rememberBookHashes(bookRecordHashes);
+        storageReloader.rememberUserHashes(userRecordHashes);
+        return true;
+    }
+
+    private static UserBookTable readUserBooks(ByteBuffer content) {
+        int numberOfUserBooks = content.getInt();
+        UserBookTable userBooks = new UserBookTable(numberOfUserBooks);
+        for (int i = 0; i < numberOfUserBooks; i += 1) {
+            int bookId = content.getInt();
+            LocalDate borrowDate = LocalDate.ofEpochDay(content.getLong());
+            LocalDate returnDueDate = LocalDate.ofEpochDay(content.getLong());
+            userBooks.add(bookId, borrowDate, returnDueDate);
+        }
+        return userBooks;
+    }
+
+    private static boolean isSnapshotCurrent(ByteBuffer snapshotBuffer, File bookDataFile, File userDataFile)
+            throws IOException {
+        if (snapshotBuffer.getInt() != MAGIC_NUMBER || snapshotBuffer.getInt() != VERSION) {
+            return false;
+        }
+        if (snapshotBuffer.getLong() != bookDataFile.length() || snapshotBuffer.getInt() != checksumFile(bookDataFile)
+                || snapshotBuffer.getLong() != userDataFile.length()
+                || snapshotBuffer.getInt() != checksumFile(userDataFile)) {
+            return false;
+        }
+
+        int contentChecksum = snapshotBuffer.getInt();
+        CRC32C checksum = new CRC32C();
+        checksum.update(snapshotBuffer.slice());
+        return contentChecksum == (int) checksum.getValue();
+    }
+
+    /**
+     * Returns the checksum of the whole file, read through memory mappings of a limited size.
+     */
+    private static int checksumFile(File dataFile) throws IOException {
+        CRC32C checksum = new CRC32C();
+        if (!dataFile.isFile()) {
+            return (int) checksum.getValue();
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = fileChannel.size();
+            for (long position = 0; position < fileSize; position += CHECKSUM_CHUNK_BYTES) {
+                long chunkSize = Math.min(CHECKSUM_CHUNK_BYTES, fileSize - position);
+                checksum.update(fileChannel.map(FileChannel.MapMode.READ_ONLY, position, chunkSize));
+            }
+        }
+        return (int) checksum.getValue();
+    }
+
+    private static void writeString(DataOutputStream contentWriter, String value) throws IOException {
+        byte[] encodedValue = value.getBytes(StandardCharsets.UTF_8);
+        contentWriter.writeInt(encodedValue.length);
+        contentWriter.write(encodedValue);
+    }
+
+    private static String readString(ByteBuffer content) {
+        byte[] encodedValue = new byte[content.getInt()];
+        content.get(encodedValue);
+        return new String(encodedValue, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,51 @@
+package bookmarked.storage;
+
+import bookmarked.ui.Ui;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * This class times the phases of starting the application, so that slow starts can be tracked down.
+ * The timings are only printed, once the library has loaded, if the application is started with
+ * {@code -Dbookmarked.startupTimings=true}.
+ */
+public class StartupTimings {
+    private static final String TIMINGS_PROPERTY = "bookmarked.startupTimings";
+    private static final ArrayList<String> PHASE_NAMES = new ArrayList<>();
+    private static final ArrayList<Long> PHASE_MILLIS = new ArrayList<>();
+    private static long phaseStartNanos = System.nanoTime();
+
+    /**
+     * Starts timing, counting everything since the JVM was started as its first phase.
+     */
+    public static synchronized void start() {
+        long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        PHASE_NAMES.clear();
+        PHASE_MILLIS.clear();
+        PHASE_NAMES.add("start JVM");
+        PHASE_MILLIS.add(System.currentTimeMillis() - jvmStartMillis);
+        phaseStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Ends the current phase, and starts the next one.
+     *
+     * @param phaseName The name of the phase that ended.
+     */
+    public static synchronized void endPhase(String phaseName) {
+        long phaseEndNanos = System.nanoTime();
+        PHASE_NAMES.add(phaseName);
+        PHASE_MILLIS.add((phaseEndNanos - phaseStartNanos) / 1_000_000);
+        phaseStartNanos = phaseEndNanos;
+    }
+
+    /**
+     * Prints the time taken by every phase so far, if timings were asked for.
+     */
+    public static synchronized void printTimings() {
+        if (Boolean.getBoolean(TIMINGS_PROPERTY)) {
+            Ui.printStartupTimings(PHASE_NAMES, PHASE_MILLIS);
+        }
+    }
+}
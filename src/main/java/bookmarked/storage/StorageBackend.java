@@ -0,0 +1,64 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.user.User;
+
+import java.util.ArrayList;
+
+/**
+ * Represents a place where the books and users of the library are kept between runs.
+ * Commands only register what they changed with the {@link UnitOfWork} of the backend,
+ * so the storage format can be changed without changing any command.
+ */
+public interface StorageBackend {
+    /**
+     * Reads every book and user into the given lists, repairing any that do not agree with each other.
+     *
+     * @param listOfBooks The list to which the books are added.
+     * @param listOfUsers The list to which the users are added.
+     */
+    void load(BookList listOfBooks, ArrayList<User> listOfUsers);
+
+    /**
+     * Writes the changes made by a single command in one step, so that either all or none of them are kept.
+     * A user without any borrowed books is removed.
+     *
+     * @param changedBooks The books that were added or changed.
+     * @param deletedBooks The books that were removed.
+     * @param changedUsers The users that were added or changed.
+     */
+    void writeChanges(ArrayList<Book> changedBooks, ArrayList<Book> deletedBooks, ArrayList<User> changedUsers);
+
+    /**
+     * Gives the backend a chance to tidy up its storage between commands.
+     *
+     * @param listOfBooks The current list of books.
+     * @param listOfUsers The current list of users.
+     */
+    void compactIfNeeded(BookList listOfBooks, ArrayList<User> listOfUsers);
+
+    /**
+     * Applies any changes made to the storage by another program since the last command.
+     * The changes are registered with the unit of work, as if a command had made them.
+     *
+     * @param listOfBooks The current list of books.
+     * @param listOfUsers The current list of users.
+     */
+    void reloadIfChanged(BookList listOfBooks, ArrayList<User> listOfUsers);
+
+    /**
+     * Makes sure everything is stored before the application exits.
+     *
+     * @param listOfBooks The current list of books.
+     * @param listOfUsers The current list of users.
+     */
+    void close(BookList listOfBooks, ArrayList<User> listOfUsers);
+
+    /**
+     * Returns the unit of work through which commands register their changes.
+     *
+     * @return The unit of work of this backend.
+     */
+    UnitOfWork getUnitOfWork();
+}
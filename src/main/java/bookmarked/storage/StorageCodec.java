@@ -0,0 +1,38 @@
+package bookmarked.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Represents a way of compressing storage files, chosen from the extension of the file.
+ * Files are streamed through the codec as they are read and written, so a compressed file is
+ * never held in memory as a whole.
+ */
+public interface StorageCodec {
+    /**
+     * Returns the extension of the files this codec is used for, such as {@code .gz}.
+     *
+     * @return The file extension, including the dot.
+     */
+    String getExtension();
+
+    /**
+     * Wraps a stream of compressed bytes so that it can be read as plain text.
+     *
+     * @param compressedInput The stream of the compressed file.
+     * @return A stream of the decompressed content.
+     * @throws IOException If the stream is not in the format of this codec.
+     */
+    InputStream decode(InputStream compressedInput) throws IOException;
+
+    /**
+     * Wraps a stream so that everything written to it is compressed. Closing the returned stream
+     * finishes the compressed data and closes the given stream.
+     *
+     * @param compressedOutput The stream of the compressed file.
+     * @return A stream to which the plain content is written.
+     * @throws IOException If the stream cannot be written.
+     */
+    OutputStream encode(OutputStream compressedOutput) throws IOException;
+}
@@ -0,0 +1,98 @@
+package bookmarked.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+/**
+ * This class chooses the {@link StorageCodec} of a storage file from its extension, and opens
+ * storage files through it. Files without the extension of any codec are read and written as
+ * plain text. GZIP is available by default, and other codecs can be added with {@link #register}.
+ */
+public class StorageCodecs {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final ArrayList<StorageCodec> CODECS = new ArrayList<>();
+
+    static {
+        register(new GzipStorageCodec());
+    }
+
+    /**
+     * Adds a codec for the files with its extension, replacing any codec for the same extension.
+     *
+     * @param codec The codec to add.
+     */
+    public static synchronized void register(StorageCodec codec) {
+        CODECS.removeIf(registeredCodec -> registeredCodec.getExtension().equals(codec.getExtension()));
+        CODECS.add(codec);
+    }
+
+    /**
+     * Returns the codec used for a storage file.
+     *
+     * @param dataFile The storage file.
+     * @return The codec for the extension of the file, or null if the file is plain text.
+     */
+    public static synchronized StorageCodec getCodec(File dataFile) {
+        for (StorageCodec codec : CODECS) {
+            if (dataFile.getName().endsWith(codec.getExtension())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a storage file is compressed, in which case it can only be read from the start.
+     *
+     * @param dataFile The storage file.
+     * @return true if the file has the extension of a codec, false otherwise.
+     */
+    public static boolean isCompressed(File dataFile) {
+        return getCodec(dataFile) != null;
+    }
+
+    /**
+     * Opens a storage file for reading its plain content. An empty file, such as one that has
+     * just been created, has no content even if it is compressed.
+     *
+     * @param dataFile The storage file to read.
+     * @return A buffered stream of the content of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static InputStream openInputStream(File dataFile) throws IOException {
+        StorageCodec codec = getCodec(dataFile);
+        InputStream fileInput = new BufferedInputStream(new FileInputStream(dataFile), BUFFER_BYTES);
+        if (codec == null) {
+            return fileInput;
+        }
+        if (dataFile.length() == 0) {
+            fileInput.close();
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        return codec.decode(fileInput);
+    }
+
+    /**
+     * Opens a file for writing the plain content of a storage file, compressing it with the codec
+     * of the storage file. The file written can differ from the storage file, for example to write
+     * to a temporary file that later replaces it.
+     *
+     * @param dataFile   The storage file whose codec is used.
+     * @param outputFile The file to write.
+     * @return A buffered stream to which the content is written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static OutputStream openOutputStream(File dataFile, File outputFile) throws IOException {
+        StorageCodec codec = getCodec(dataFile);
+        OutputStream fileOutput = new BufferedOutputStream(new FileOutputStream(outputFile), BUFFER_BYTES);
+        return codec == null ? fileOutput : codec.encode(fileOutput);
+    }
+}
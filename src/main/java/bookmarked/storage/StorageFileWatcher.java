@@ -0,0 +1,141 @@
+package bookmarked.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class watches the directories of the storage files on a background thread, and notes which
+ * files were changed so that the changes can be applied between commands.
+ * Files written by this application are recorded when they are written, so that they are not
+ * mistaken for changes made by other programs.
+ */
+public class StorageFileWatcher {
+    // the size and modification time of every file as this application last wrote it
+    private static final ConcurrentHashMap<Path, String> OWN_WRITES = new ConcurrentHashMap<>();
+
+    private final WatchService watchService;
+    private final HashMap<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final ConcurrentHashMap<Path, AtomicBoolean> changedFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Starts watching the given files.
+     *
+     * @param dataFiles The files to watch.
+     * @throws IOException If the directories of the files cannot be watched.
+     */
+    public StorageFileWatcher(File... dataFiles) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (File dataFile : dataFiles) {
+            Path filePath = getPath(dataFile);
+            Path directory = filePath.getParent();
+            if (!this.watchedDirectories.containsValue(directory)) {
+                WatchKey watchKey = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                this.watchedDirectories.put(watchKey, directory);
+            }
+            this.changedFiles.put(filePath, new AtomicBoolean(false));
+        }
+
+        Thread watchThread = new Thread(this::watch, "bookmarked-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Notes that a file has just been written by this application.
+     *
+     * @param dataFile The file that was written.
+     */
+    public static void recordOwnWrite(File dataFile) {
+        OWN_WRITES.put(getPath(dataFile), getFileStamp(dataFile));
+    }
+
+    /**
+     * Checks whether any watched file was changed since it was last checked, by any program.
+     *
+     * @return true if any file was changed, false otherwise.
+     */
+    public boolean hasChanges() {
+        for (AtomicBoolean isChanged : this.changedFiles.values()) {
+            if (isChanged.get()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a file was changed by another program since the last call, clearing the change.
+     * Only call this once everything this application is waiting to write has been written.
+     *
+     * @param dataFile The watched file.
+     * @return true if the file was changed, and was not last written by this application.
+     */
+    public boolean pollExternalChange(File dataFile) {
+        Path filePath = getPath(dataFile);
+        AtomicBoolean isChanged = this.changedFiles.get(filePath);
+        if (isChanged == null || !isChanged.getAndSet(false)) {
+            return false;
+        }
+        return !getFileStamp(dataFile).equals(OWN_WRITES.get(filePath));
+    }
+
+    /**
+     * Stops watching the files.
+     */
+    public void close() {
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            // the watcher is only closed on exit, when there is nothing left to watch
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey watchKey = this.watchService.take();
+                Path directory = this.watchedDirectories.get(watchKey);
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    markChanged(directory, event);
+                }
+                watchKey.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was closed
+        }
+    }
+
+    private void markChanged(Path directory, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // some events were lost, so any of the files may have changed
+            for (AtomicBoolean isChanged : this.changedFiles.values()) {
+                isChanged.set(true);
+            }
+            return;
+        }
+
+        AtomicBoolean isChanged = this.changedFiles.get(directory.resolve((Path) event.context()));
+        if (isChanged != null) {
+            isChanged.set(true);
+        }
+    }
+
+    private static Path getPath(File dataFile) {
+        return dataFile.toPath().toAbsolutePath().normalize();
+    }
+
+    private static String getFileStamp(File dataFile) {
+        return dataFile.length() + ":" + dataFile.lastModified();
+    }
+}
@@ -0,0 +1,310 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.userbook.UserBookView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * This class applies changes made to book.txt and user.txt by other programs to the books and users
+ * in memory. It remembers a hash of every line as this application last read or wrote it, so only
+ * the books and users whose lines were added, changed or removed are applied, and every one of them
+ * is registered with the unit of work so that the journal agrees with the files.
+ */
+public class StorageReloader {
+    private final File bookDataFile;
+    private final File userDataFile;
+    private final UserIndex userIndex;
+    private final UnitOfWork unitOfWork;
+    private HashMap<Integer, Integer> bookRecordHashes = new HashMap<>();
+    private HashMap<String, Integer> userRecordHashes = new HashMap<>();
+
+    /**
+     * Constructs a reloader for the given files. The book file is only reloaded if it is a txt file.
+     *
+     * @param bookDataFile The file in which books are stored.
+     * @param userDataFile The file in which users are stored.
+     * @param userIndex    The index of the positions of users in the user file.
+     * @param unitOfWork   The unit of work with which changed books and users are registered.
+     */
+    public StorageReloader(File bookDataFile, File userDataFile, UserIndex userIndex, UnitOfWork unitOfWork) {
+        this.bookDataFile = bookDataFile;
+        this.userDataFile = userDataFile;
+        this.userIndex = userIndex;
+        this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * Remembers the books as they are stored in the book file.
+     *
+     * @param listOfBooks The books written to, or read from, the book file.
+     */
+    public void rememberBooks(ArrayList<Book> listOfBooks) {
+        HashMap<Integer, Integer> newBookRecordHashes = new HashMap<>();
+        for (Book book : listOfBooks) {
+            if (book.isDeleted()) {
+                continue;
+            }
+            newBookRecordHashes.put(book.getBookId(), BookStorage.serializeBook(book).hashCode());
+        }
+        this.bookRecordHashes = newBookRecordHashes;
+    }
+
+    /**
+     * Remembers the books as they were stored in the book file when the library was last saved.
+     *
+     * @param newBookRecordHashes The hash of the line of every book, by book ID.
+     */
+    public void rememberBookHashes(HashMap<Integer, Integer> newBookRecordHashes) {
+        this.bookRecordHashes = newBookRecordHashes;
+    }
+
+    /**
+     * Remembers the users as they are stored in the user file.
+     *
+     * @param userRecords The attributes of every user in the user file, in file order.
+     */
+    public void rememberUsers(ArrayList<String[]> userRecords) {
+        HashMap<String, Integer> newUserRecordHashes = new HashMap<>();
+        for (String[] userAttributes : userRecords) {
+            newUserRecordHashes.putIfAbsent(userAttributes[0], hashUserRecord(userAttributes));
+        }
+        this.userRecordHashes = newUserRecordHashes;
+    }
+
+    /**
+     * Remembers the users as they were written to the user file.
+     *
+     * @param newUserRecordHashes The hash of the line of every user, given by {@link #hashUserRecord}.
+     */
+    public void rememberUserHashes(HashMap<String, Integer> newUserRecordHashes) {
+        this.userRecordHashes = newUserRecordHashes;
+    }
+
+    public HashMap<Integer, Integer> getBookRecordHashes() {
+        return this.bookRecordHashes;
+    }
+
+    public HashMap<String, Integer> getUserRecordHashes() {
+        return this.userRecordHashes;
+    }
+
+    /**
+     * Returns the hash of a line of the user file, so that it can be compared without keeping the line.
+     *
+     * @param userAttributes The attributes of the line.
+     * @return The hash of the line.
+     */
+    public static int hashUserRecord(String[] userAttributes) {
+        return Arrays.hashCode(userAttributes);
+    }
+
+    /**
+     * Applies the books that were added, changed or removed in the book file since it was last remembered.
+     *
+     * @param listOfBooks The list of books in memory.
+     */
+    public void reloadBooks(BookList listOfBooks) {
+        if (BinaryBookStorage.isBinaryFile(this.bookDataFile)) {
+            return;
+        }
+
+        ArrayList<String> lines;
+        try {
+            lines = ChunkedFileReader.readLines(this.bookDataFile);
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+            return;
+        }
+
+        HashMap<Integer, Integer> newBookRecordHashes = new HashMap<>();
+        int numberOfChangedBooks = 0;
+        for (String line : lines) {
+            Book fileBook = BookStorage.parseBookQuietly(line);
+            if (fileBook == null || newBookRecordHashes.containsKey(fileBook.getBookId())) {
+                Ui.printInvalidBookMessage();
+                continue;
+            }
+
+            int recordHash = BookStorage.serializeBook(fileBook).hashCode();
+            Integer oldRecordHash = this.bookRecordHashes.get(fileBook.getBookId());
+            if (oldRecordHash != null && oldRecordHash == recordHash) {
+                newBookRecordHashes.put(fileBook.getBookId(), recordHash);
+                continue;
+            }
+
+            Book changedBook = applyBook(fileBook, listOfBooks);
+            if (changedBook != null) {
+                this.unitOfWork.registerChangedBook(changedBook);
+                newBookRecordHashes.put(changedBook.getBookId(), BookStorage.serializeBook(changedBook).hashCode());
+                numberOfChangedBooks += 1;
+            }
+        }
+
+        for (Integer bookId : this.bookRecordHashes.keySet()) {
+            if (!newBookRecordHashes.containsKey(bookId) && removeBook(bookId, listOfBooks)) {
+                numberOfChangedBooks += 1;
+            }
+        }
+        this.bookRecordHashes = newBookRecordHashes;
+        if (numberOfChangedBooks > 0) {
+            Ui.printReloadedFileMessage(this.bookDataFile.getName(), numberOfChangedBooks);
+        }
+    }
+
+    /**
+     * Applies the users who were added, changed or removed in the user file since it was last remembered.
+     * A user's line is read as a whole, replacing every book they had borrowed.
+     *
+     * @param listOfBooks The list of books in memory.
+     * @param listOfUsers The list of users in memory.
+     */
+    public void reloadUsers(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        HashMap<String, Long> newRecordOffsets = new HashMap<>();
+        ArrayList<String[]> userRecords = UserStorage.readUserRecords(this.userDataFile, newRecordOffsets);
+        HashSet<String> readUserNames = new HashSet<>();
+        HashSet<String> userNames = new HashSet<>();
+        HashSet<String> changedUserNames = new HashSet<>();
+        for (String[] userAttributes : userRecords) {
+            Integer oldRecordHash = this.userRecordHashes.get(userAttributes[0]);
+            userNames.add(UserList.normalizeName(userAttributes[0]));
+            if (readUserNames.add(userAttributes[0])
+                    && (oldRecordHash == null || oldRecordHash != hashUserRecord(userAttributes))) {
+                changedUserNames.add(UserList.normalizeName(userAttributes[0]));
+            }
+        }
+        // the lines of users whose names differ only in case are merged into one user, so all of them are
+        // read again if any of them changed
+        ArrayList<String[]> changedUserRecords = new ArrayList<>();
+        for (String[] userAttributes : userRecords) {
+            if (changedUserNames.contains(UserList.normalizeName(userAttributes[0]))) {
+                changedUserRecords.add(userAttributes);
+            }
+        }
+
+        HashMap<String, Integer> userPositions = new HashMap<>();
+        for (int i = 0; i < listOfUsers.size(); i += 1) {
+            userPositions.put(UserList.normalizeName(listOfUsers.get(i).getName()), i);
+        }
+
+        ArrayList<String> replacedUserNames = new ArrayList<>();
+        boolean areLoansUnknown = false;
+        ArrayList<User> changedUsers = UserStorage.resolveUserRecords(changedUserRecords, listOfBooks);
+        for (User changedUser : changedUsers) {
+            Integer userPosition = userPositions.get(UserList.normalizeName(changedUser.getName()));
+            if (userPosition == null) {
+                listOfUsers.add(changedUser);
+            } else {
+                areLoansUnknown |= !forgetLoans(listOfUsers.get(userPosition), listOfBooks);
+                listOfUsers.set(userPosition, changedUser);
+                replacedUserNames.add(changedUser.getName());
+            }
+            this.unitOfWork.registerChangedUser(changedUser);
+        }
+        int numberOfChangedUsers = changedUsers.size();
+
+        for (String userName : this.userRecordHashes.keySet()) {
+            String normalizedName = UserList.normalizeName(userName);
+            Integer userPosition = userPositions.get(normalizedName);
+            // a user whose name differs only in case from another removed user was already removed with it
+            if (userNames.contains(normalizedName) || userPosition == null || listOfUsers.get(userPosition) == null) {
+                continue;
+            }
+            // an empty user is removed from storage when it is committed
+            areLoansUnknown |= !forgetLoans(listOfUsers.get(userPosition), listOfBooks);
+            listOfUsers.set(userPosition, null);
+            replacedUserNames.add(userName);
+            this.unitOfWork.registerChangedUser(new User(userName, listOfBooks));
+            numberOfChangedUsers += 1;
+        }
+        listOfUsers.removeIf(user -> user == null);
+
+        this.userIndex.updateRecordOffsets(newRecordOffsets, replacedUserNames);
+        if (areLoansUnknown) {
+            listOfBooks.getLoanRegistry().markIncomplete();
+            countLoans(listOfBooks, listOfUsers);
+        }
+        rememberUsers(userRecords);
+        if (numberOfChangedUsers > 0) {
+            Ui.printReloadedFileMessage(this.userDataFile.getName(), numberOfChangedUsers);
+        }
+    }
+
+    /**
+     * Updates the book with the same ID as a book read from the file, or adds the book if there is none.
+     * A book without an ID, such as one added by a script, is matched by its title instead.
+     *
+     * @return The book in the list of books, or null if its title is already used by another book.
+     */
+    private static Book applyBook(Book fileBook, BookList listOfBooks) {
+        Book bookWithSameTitle = listOfBooks.getBookByTitle(fileBook.getName());
+        Book existingBook = fileBook.getBookId() == Book.UNASSIGNED_ID
+                ? bookWithSameTitle : listOfBooks.getBookById(fileBook.getBookId());
+        if (bookWithSameTitle != null && bookWithSameTitle != existingBook) {
+            Ui.printInvalidBookMessage();
+            return null;
+        }
+
+        if (existingBook == null) {
+            listOfBooks.add(fileBook);
+            return fileBook;
+        }
+        listOfBooks.renameBook(existingBook, fileBook.getName());
+        existingBook.setNumberTotal(fileBook.getNumberTotal());
+        existingBook.setNumberBorrowed(fileBook.getNumberBorrowed());
+        existingBook.setNumberInInventory(fileBook.getNumberInInventory());
+        return existingBook;
+    }
+
+    /**
+     * Removes a book that is no longer in the file, unless it is still borrowed.
+     *
+     * @return true if the book was removed, false otherwise.
+     */
+    private boolean removeBook(int bookId, BookList listOfBooks) {
+        Book removedBook = listOfBooks.getBookById(bookId);
+        if (removedBook == null) {
+            return false;
+        }
+        if (removedBook.getNumberOfLoans() > 0) {
+            Ui.printBorrowedBookNotRemovedMessage(removedBook.getName());
+            return false;
+        }
+
+        listOfBooks.remove(removedBook);
+        this.unitOfWork.registerDeletedBook(removedBook);
+        return true;
+    }
+
+    /**
+     * Stops counting the loans of a user who is replaced or removed.
+     *
+     * @return false if the loans of the user are not in memory, so the loans of every book have to be counted again.
+     */
+    private static boolean forgetLoans(User user, BookList listOfBooks) {
+        if (!user.areUserBooksLoaded()) {
+            return false;
+        }
+        UserBookView userBooks = user.getUserBooks();
+        for (int i = 0; i < userBooks.size(); i += 1) {
+            listOfBooks.removeLoan(userBooks.getBookId(i), user);
+        }
+        return true;
+    }
+
+    private static void countLoans(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        int[] numbersOfLoans = listOfBooks.countLoans(listOfUsers);
+        for (int i = 0; i < listOfBooks.size(); i += 1) {
+            listOfBooks.get(i).setNumberOfLoans(numbersOfLoans[i]);
+        }
+    }
+}
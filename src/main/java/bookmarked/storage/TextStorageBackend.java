@@ -0,0 +1,226 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.arguments.StorageValidation;
+import bookmarked.user.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores books in the pipe-delimited book.txt and users in user.txt.
+ * Changes made by commands are appended to a journal kept next to the book file, which is
+ * compacted into fresh copies of both files on exit or once it grows past a size threshold.
+ */
+public class TextStorageBackend implements StorageBackend {
+    private static final long COMPACTION_THRESHOLD_BYTES = 64 * 1024;
+    protected final File bookDataFile;
+    protected final File userDataFile;
+    private final UnitOfWork unitOfWork = new UnitOfWork(this);
+    private final UserIndex userIndex;
+    private final StorageReloader storageReloader;
+    private StorageFileWatcher storageFileWatcher;
+
+    public TextStorageBackend(File bookDataFile, File userDataFile) {
+        this.bookDataFile = bookDataFile;
+        this.userDataFile = userDataFile;
+        this.userIndex = new UserIndex(userDataFile);
+        this.storageReloader = new StorageReloader(bookDataFile, userDataFile, this.userIndex, this.unitOfWork);
+    }
+
+    /**
+     * Reads both files and replays the journal on top of them. Only files that no longer
+     * match what is in memory are written, so a clean start only reads from the disk.
+     * Once everything has been checked, users are indexed by their position in user.txt,
+     * so that only the books of recently used users stay in memory, and both files are watched
+     * for changes made by other programs. If neither file changed since the last clean exit, the
+     * library is restored from the snapshot written then instead.
+     */
+    @Override
+    public void load(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        if (StartupSnapshot.restoreSnapshot(this.bookDataFile, this.userDataFile, listOfBooks, listOfUsers,
+                this.userIndex, this.storageReloader)) {
+            StartupTimings.endPhase("restore snapshot");
+            watchFiles();
+            return;
+        }
+
+        // user.txt is read while the books load, then checked against them once they are ready
+        HashMap<String, Long> userRecordOffsets = new HashMap<>();
+        CompletableFuture<ArrayList<String[]>> userRecords =
+                UserStorage.readUserRecordsAsync(this.userDataFile, userRecordOffsets);
+        listOfBooks.addAll(readBooks());
+        listOfUsers.addAll(UserStorage.resolveUserRecords(userRecords.join(), listOfBooks));
+        this.storageReloader.rememberBooks(listOfBooks);
+        this.storageReloader.rememberUsers(userRecords.join());
+        StartupTimings.endPhase("read files");
+        boolean areBooksChanged = BookStorage.hasRepairedBooks();
+        boolean areUsersChanged = UserStorage.hasRepairedUsers();
+        boolean isJournalReplayed = JournalStorage.replayJournal(this.bookDataFile, listOfBooks, listOfUsers);
+        StartupTimings.endPhase("replay journal");
+
+        if (StorageValidation.validateUsersAndBooksLists(listOfUsers, listOfBooks)) {
+            areBooksChanged = true;
+        }
+        StartupTimings.endPhase("check loans");
+
+        if (isJournalReplayed) {
+            compact(listOfBooks, listOfUsers);
+        } else {
+            if (areBooksChanged) {
+                writeBooks(listOfBooks);
+                this.storageReloader.rememberBooks(listOfBooks);
+            }
+            if (areUsersChanged) {
+                writeUsers(listOfUsers);
+            } else {
+                this.userIndex.indexUsers(listOfUsers, userRecordOffsets, false);
+            }
+        }
+        StartupTimings.endPhase("write and index");
+        watchFiles();
+    }
+
+    /**
+     * Appends one journal record for every change, with books before users so that replaying
+     * the journal always finds the books that users have borrowed.
+     */
+    @Override
+    public void writeChanges(ArrayList<Book> changedBooks, ArrayList<Book> deletedBooks,
+                             ArrayList<User> changedUsers) {
+        ArrayList<String> records = new ArrayList<>();
+        for (Book book : changedBooks) {
+            records.add(JournalStorage.updateBookRecord(book));
+        }
+        for (Book book : deletedBooks) {
+            records.add(JournalStorage.deleteBookRecord(book));
+        }
+        for (User user : changedUsers) {
+            if (user.getUserBooks().isEmpty()) {
+                records.add(JournalStorage.deleteUserRecord(user.getName()));
+            } else {
+                records.add(JournalStorage.updateUserRecord(user));
+            }
+        }
+        JournalStorage.appendRecords(this.bookDataFile, records.toArray(new String[0]));
+    }
+
+    /**
+     * Compacts the journal once it has grown past the size threshold.
+     */
+    @Override
+    public void compactIfNeeded(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        if (JournalStorage.getJournalFile(this.bookDataFile).length() > COMPACTION_THRESHOLD_BYTES) {
+            compact(listOfBooks, listOfUsers);
+        }
+    }
+
+    /**
+     * Applies the changes made to either file by another program since the last command.
+     * Everything waiting to be written is written first, so that the files can be told apart
+     * from the ones this application wrote.
+     */
+    @Override
+    public void reloadIfChanged(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        if (this.storageFileWatcher == null || !this.storageFileWatcher.hasChanges()) {
+            return;
+        }
+
+        JournalStorage.flush();
+        if (this.storageFileWatcher.pollExternalChange(this.bookDataFile)) {
+            this.storageReloader.reloadBooks(listOfBooks);
+        }
+        if (this.storageFileWatcher.pollExternalChange(this.userDataFile)) {
+            this.storageReloader.reloadUsers(listOfBooks, listOfUsers);
+        }
+    }
+
+    /**
+     * Compacts the journal and waits until everything has been written, then snapshots the
+     * library for the next start. If the journal is empty once everything waiting has been written,
+     * both files already hold the whole library and are left as they are.
+     */
+    @Override
+    public void close(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        JournalStorage.flush();
+        if (JournalStorage.getJournalFile(this.bookDataFile).length() > 0) {
+            compact(listOfBooks, listOfUsers);
+            JournalStorage.flush();
+        }
+        StartupSnapshot.writeSnapshot(this.bookDataFile, this.userDataFile, listOfBooks, listOfUsers,
+                this.userIndex, this.storageReloader);
+        if (this.storageFileWatcher != null) {
+            this.storageFileWatcher.close();
+        }
+    }
+
+    @Override
+    public UnitOfWork getUnitOfWork() {
+        return this.unitOfWork;
+    }
+
+    protected BookList readBooks() {
+        return BookStorage.readFileStorage(this.bookDataFile);
+    }
+
+    protected void writeBooks(ArrayList<Book> listOfBooks) {
+        BookStorage.writeBookToTxt(this.bookDataFile, listOfBooks);
+    }
+
+    protected byte[] encodeBooks(ArrayList<Book> listOfBooks) {
+        return BookStorage.encodeBooks(listOfBooks);
+    }
+
+    /**
+     * Marks fresh snapshots of both lists to be written, after which the journal is cleared.
+     * The lists are encoded immediately, so later changes do not affect the snapshots.
+     * Users whose books are not in memory have their lines copied from the current user file.
+     */
+    private void compact(BookList listOfBooks, ArrayList<User> listOfUsers) {
+        HashMap<String, Long> userRecordOffsets = new HashMap<>();
+        HashMap<String, Integer> userRecordHashes = new HashMap<>();
+        byte[] bookData = encodeBooks(listOfBooks);
+        byte[] userData = UserStorage.encodeUsers(listOfUsers, userRecordOffsets, userRecordHashes, this.userIndex);
+        WriteBehindPersister.getPersister().addSnapshot(JournalStorage.getJournalFile(this.bookDataFile),
+                this.bookDataFile, bookData, this.userDataFile, userData);
+        this.userIndex.indexUsers(listOfUsers, userRecordOffsets, true);
+        this.storageReloader.rememberBooks(listOfBooks);
+        this.storageReloader.rememberUserHashes(userRecordHashes);
+    }
+
+    /**
+     * Rewrites the user file straight away. Users are only indexed if it was written, as their
+     * books could not be read back otherwise.
+     */
+    private void writeUsers(ArrayList<User> listOfUsers) {
+        HashMap<String, Long> userRecordOffsets = new HashMap<>();
+        HashMap<String, Integer> userRecordHashes = new HashMap<>();
+        try {
+            WriteBehindPersister.writeFileAtomically(this.userDataFile,
+                    UserStorage.encodeUsers(listOfUsers, userRecordOffsets, userRecordHashes));
+            this.userIndex.indexUsers(listOfUsers, userRecordOffsets, false);
+            this.storageReloader.rememberUserHashes(userRecordHashes);
+        } catch (IOException e) {
+            System.out.println("Failed to write to file");
+        }
+    }
+
+    /**
+     * Starts watching both files, unless watching is turned off with the bookmarked.watchFiles property.
+     * The library is still usable if the files cannot be watched, only without picking up outside changes.
+     */
+    private void watchFiles() {
+        if (!Boolean.parseBoolean(System.getProperty("bookmarked.watchFiles", "true"))) {
+            return;
+        }
+        try {
+            this.storageFileWatcher = new StorageFileWatcher(this.bookDataFile, this.userDataFile);
+        } catch (IOException e) {
+            this.storageFileWatcher = null;
+        }
+    }
+}
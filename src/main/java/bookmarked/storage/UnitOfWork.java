@@ -0,0 +1,76 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * This class collects every book and user changed by a single command, so that all of the
+ * changes are committed to storage together in one write once the command has finished.
+ * The changes are recorded when they are committed, so a book or user changed several times
+ * by the same command is only written once, in its final state.
+ */
+public class UnitOfWork {
+    private final StorageBackend storageBackend;
+    private final LinkedHashMap<Integer, Book> changedBooks = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, Book> deletedBooks = new LinkedHashMap<>();
+    private final LinkedHashMap<String, User> changedUsers = new LinkedHashMap<>();
+
+    public UnitOfWork(StorageBackend storageBackend) {
+        this.storageBackend = storageBackend;
+    }
+
+    /**
+     * Marks a book as added or changed by the current command.
+     *
+     * @param book The book that was changed.
+     */
+    public void registerChangedBook(Book book) {
+        this.changedBooks.put(book.getBookId(), book);
+    }
+
+    /**
+     * Marks a book as removed from the list of books by the current command.
+     *
+     * @param book The book that was removed.
+     */
+    public void registerDeletedBook(Book book) {
+        this.changedBooks.remove(book.getBookId());
+        this.deletedBooks.put(book.getBookId(), book);
+    }
+
+    /**
+     * Marks a user as changed by the current command. A user who has no books left
+     * when the command is committed is removed from storage.
+     *
+     * @param user The user that was changed.
+     */
+    public void registerChangedUser(User user) {
+        this.changedUsers.put(UserList.normalizeName(user.getName()), user);
+    }
+
+    /**
+     * Commits every change made by the current command to the storage backend in a single write.
+     */
+    public void commit() {
+        if (this.changedBooks.isEmpty() && this.deletedBooks.isEmpty() && this.changedUsers.isEmpty()) {
+            return;
+        }
+
+        this.storageBackend.writeChanges(new ArrayList<>(this.changedBooks.values()),
+                new ArrayList<>(this.deletedBooks.values()), new ArrayList<>(this.changedUsers.values()));
+        discard();
+    }
+
+    /**
+     * Forgets every change registered since the last commit.
+     */
+    public void discard() {
+        this.changedBooks.clear();
+        this.deletedBooks.clear();
+        this.changedUsers.clear();
+    }
+}
@@ -0,0 +1,285 @@
+package bookmarked.storage;
+
+import bookmarked.ui.Ui;
+import bookmarked.user.User;
+import bookmarked.user.UserLoader;
+import bookmarked.userbook.UserBookTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * This class keeps the position of every user in user.txt, so that the books borrowed by a user can
+ * be dropped from memory and read again from the file when the user is next used.
+ * Only the most recently used users keep their books in memory, up to a number of users and an
+ * estimated number of bytes that can be set with {@code -Dbookmarked.userCacheSize} and
+ * {@code -Dbookmarked.userCacheBytes}. Users changed since the file was last written always keep
+ * their books, until the file is rewritten with their changes. A compressed user file cannot be
+ * read from the middle, so every user keeps their books in memory when the file is compressed.
+ */
+public class UserIndex implements UserLoader {
+    private static final String CACHE_SIZE_PROPERTY = "bookmarked.userCacheSize";
+    private static final String CACHE_BYTES_PROPERTY = "bookmarked.userCacheBytes";
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final long DEFAULT_CACHE_BYTES = 4 * 1024 * 1024;
+    // rough heap sizes of a user and of each book they borrowed, used to stay within the byte limit
+    private static final int USER_BYTES = 128;
+    private static final int USER_BOOK_BYTES = 24;
+    private static final int RECORD_BUFFER_BYTES = 256;
+
+    private final File userDataFile;
+    private final int maxCachedUsers;
+    private final long maxCachedBytes;
+    // users whose books are in memory and can be dropped, from the least to the most recently used
+    private final LinkedHashMap<String, User> cachedUsers = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, Long> cachedUserBytes = new HashMap<>();
+    private HashMap<String, Long> recordOffsets = new HashMap<>();
+    private long numberOfCachedBytes = 0;
+    private boolean isFileWritePending = false;
+
+    public UserIndex(File userDataFile) {
+        this.userDataFile = userDataFile;
+        this.maxCachedUsers = Math.max(1, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+        this.maxCachedBytes = Long.getLong(CACHE_BYTES_PROPERTY, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * Lets every user drop their books, which are read again from the positions given.
+     * Users are only given the index once their books are stored at these positions, or are waiting to be.
+     *
+     * @param listOfUsers      The list of users.
+     * @param newRecordOffsets The position of every user in the user file.
+     * @param isFileWritePending Whether the user file with these positions is still waiting to be written,
+     *                           in which case it is written before any user is read from it.
+     */
+    public void indexUsers(ArrayList<User> listOfUsers, HashMap<String, Long> newRecordOffsets,
+                           boolean isFileWritePending) {
+        if (StorageCodecs.isCompressed(this.userDataFile)) {
+            return;
+        }
+
+        this.recordOffsets = newRecordOffsets;
+        this.isFileWritePending = isFileWritePending;
+        for (User user : listOfUsers) {
+            String userName = user.getName();
+            if (!user.areUserBooksLoaded() || this.cachedUsers.containsKey(userName)
+                    || !this.recordOffsets.containsKey(userName)) {
+                continue;
+            }
+
+            // the size is taken before the user is given the index, so the books are not read again
+            long userBytes = estimateUserBytes(userName, user.getUserBooks().size());
+            user.setUserLoader(this);
+            addCachedUser(user, userBytes);
+        }
+        dropLeastRecentlyUsed(null);
+    }
+
+    /**
+     * Lets every user read their books from the positions given the first time they are used, without
+     * reading any of them now. This is used for users who were restored without their books.
+     *
+     * @param listOfUsers      The list of users, none of whom has any books in memory.
+     * @param newRecordOffsets The position of every user in the user file.
+     */
+    public void indexUnloadedUsers(ArrayList<User> listOfUsers, HashMap<String, Long> newRecordOffsets) {
+        this.recordOffsets = newRecordOffsets;
+        this.isFileWritePending = false;
+        for (User user : listOfUsers) {
+            user.setUserLoader(this);
+            user.unloadUserBooks();
+        }
+    }
+
+    /**
+     * Returns the position of every indexed user in the user file.
+     *
+     * @return The positions, by user name.
+     */
+    public HashMap<String, Long> getRecordOffsets() {
+        return this.recordOffsets;
+    }
+
+    /**
+     * Moves every user to their position in a user file that was changed by another program.
+     * Users who were replaced or removed are forgotten, and the users who replace them keep their
+     * books in memory until the file is next rewritten.
+     *
+     * @param newRecordOffsets  The position of every user in the changed user file.
+     * @param replacedUserNames The names of the users who were replaced or removed.
+     */
+    public void updateRecordOffsets(HashMap<String, Long> newRecordOffsets, ArrayList<String> replacedUserNames) {
+        this.recordOffsets = newRecordOffsets;
+        this.isFileWritePending = false;
+        for (String userName : replacedUserNames) {
+            Long userBytes = this.cachedUserBytes.remove(userName);
+            if (userBytes != null) {
+                this.cachedUsers.remove(userName);
+                this.numberOfCachedBytes -= userBytes;
+            }
+        }
+    }
+
+    @Override
+    public void loadUserBooks(User user) {
+        String userName = user.getName();
+        if (this.cachedUsers.get(userName) != null) {
+            return;
+        }
+
+        UserBookTable userBooks = readUserBooks(userName);
+        user.setUserBooks(userBooks);
+        addCachedUser(user, estimateUserBytes(userName, userBooks.size()));
+        dropLeastRecentlyUsed(userName);
+    }
+
+    @Override
+    public void keepUserBooks(User user) {
+        Long userBytes = this.cachedUserBytes.remove(user.getName());
+        if (userBytes != null) {
+            this.cachedUsers.remove(user.getName());
+            this.numberOfCachedBytes -= userBytes;
+        }
+    }
+
+    private void addCachedUser(User user, long userBytes) {
+        this.cachedUsers.put(user.getName(), user);
+        this.cachedUserBytes.put(user.getName(), userBytes);
+        this.numberOfCachedBytes += userBytes;
+    }
+
+    /**
+     * Drops the books of the least recently used users until the cache is within its limits,
+     * never dropping the user that is being used.
+     */
+    private void dropLeastRecentlyUsed(String userInUse) {
+        Iterator<User> iterator = this.cachedUsers.values().iterator();
+        while (iterator.hasNext() && (this.cachedUsers.size() > this.maxCachedUsers
+                || this.numberOfCachedBytes > this.maxCachedBytes)) {
+            User user = iterator.next();
+            if (user.getName().equals(userInUse)) {
+                continue;
+            }
+
+            iterator.remove();
+            this.numberOfCachedBytes -= this.cachedUserBytes.remove(user.getName());
+            user.unloadUserBooks();
+        }
+    }
+
+    /**
+     * Reads the books borrowed by a user from their line in the user file, which was checked
+     * when the file was loaded or written by this application.
+     */
+    private UserBookTable readUserBooks(String userName) {
+        UserBookTable userBooks = new UserBookTable();
+        if (this.isFileWritePending) {
+            WriteBehindPersister.getPersister().flush();
+            this.isFileWritePending = false;
+        }
+
+        Long recordOffset = this.recordOffsets.get(userName);
+        String record = recordOffset == null ? null : readRecord(recordOffset);
+        if (record == null) {
+            return userBooks;
+        }
+
+        String[] userAttributes = RecordCodec.splitFields(record);
+        if (!userAttributes[0].equals(userName)) {
+            Ui.printInvalidTxtLine();
+            return userBooks;
+        }
+
+        for (int i = 1; i + 3 < userAttributes.length; i += 4) {
+            long bookId = RecordCodec.parseStrippedNumber(userAttributes[i]);
+            LocalDate borrowDate = RecordCodec.parseDate(userAttributes[i + 2].strip());
+            LocalDate returnDueDate = RecordCodec.parseDate(userAttributes[i + 3].strip());
+            if (bookId == RecordCodec.INVALID_NUMBER || borrowDate == null || returnDueDate == null) {
+                Ui.printInvalidTxtLine();
+                continue;
+            }
+            userBooks.add((int) bookId, borrowDate, returnDueDate);
+        }
+        return userBooks;
+    }
+
+    /**
+     * Reads the whole user file the users are indexed in, once every write to it has finished.
+     *
+     * @return The content of the user file, which is empty if it could not be read.
+     */
+    public byte[] readUserFile() {
+        if (this.isFileWritePending) {
+            WriteBehindPersister.getPersister().flush();
+            this.isFileWritePending = false;
+        }
+
+        try {
+            return Files.readAllBytes(this.userDataFile.toPath());
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Finds the line of a user in the content of the user file, at the position the user is indexed at.
+     *
+     * @param userData The content of the user file, as returned by {@link #readUserFile()}.
+     * @param userName The name of the user.
+     * @return The line of the user without its line break, or null if the line there is not the user's.
+     */
+    public String findRecord(byte[] userData, String userName) {
+        Long recordOffset = this.recordOffsets.get(userName);
+        if (recordOffset == null || recordOffset >= userData.length) {
+            return null;
+        }
+
+        int recordStart = recordOffset.intValue();
+        int recordEnd = recordStart;
+        while (recordEnd < userData.length && userData[recordEnd] != '\n' && userData[recordEnd] != '\r') {
+            recordEnd += 1;
+        }
+        String record = new String(userData, recordStart, recordEnd - recordStart, Charset.defaultCharset());
+        return RecordCodec.splitFields(record)[0].equals(userName) ? record : null;
+    }
+
+    /**
+     * Reads the line of the user file that starts at the given position.
+     */
+    private String readRecord(long recordOffset) {
+        try (RandomAccessFile userFile = new RandomAccessFile(this.userDataFile, "r")) {
+            userFile.seek(recordOffset);
+            ByteArrayOutputStream record = new ByteArrayOutputStream(RECORD_BUFFER_BYTES);
+            byte[] buffer = new byte[RECORD_BUFFER_BYTES];
+            int bytesRead = userFile.read(buffer);
+            while (bytesRead > 0) {
+                for (int i = 0; i < bytesRead; i += 1) {
+                    if (buffer[i] == '\n' || buffer[i] == '\r') {
+                        record.write(buffer, 0, i);
+                        return record.toString(Charset.defaultCharset());
+                    }
+                }
+                record.write(buffer, 0, bytesRead);
+                bytesRead = userFile.read(buffer);
+            }
+            return record.toString(Charset.defaultCharset());
+        } catch (IOException e) {
+            Ui.printFileInterruptedError();
+            return null;
+        }
+    }
+
+    private static long estimateUserBytes(String userName, int numberOfUserBooks) {
+        return USER_BYTES + 2L * userName.length() + (long) USER_BOOK_BYTES * numberOfUserBooks;
+    }
+}
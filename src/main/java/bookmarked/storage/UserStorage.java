@@ -1,24 +1,27 @@
 package bookmarked.storage;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.arguments.StorageValidation;
-import bookmarked.exceptions.DifferentUserBookStorageException;
 import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.userbook.UserBookView;
 import bookmarked.ui.Ui;
-import bookmarked.userbook.UserBook;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public class UserStorage {
+    private static boolean areUsersRepaired = false;
+
     /**
      * Creates a file at the specified path if it does not already exist.
      *
@@ -42,20 +45,95 @@ public class UserStorage {
      * @param userDataFile The file from which to read Book data.
      * @return A list of books read from the file.
      */
-    public static ArrayList<User> readFileStorage(File userDataFile, ArrayList<Book> listOfBooks) {
-        ArrayList<User> listOfUser = new ArrayList<>();
-        try (BufferedReader fileReader = new BufferedReader(new FileReader(userDataFile))) {
-            fileReader.lines().forEach(line ->
-                    processReadLine(line, listOfUser, listOfBooks));
-        } catch (FileNotFoundException e) {
+    public static ArrayList<User> readFileStorage(File userDataFile, BookList listOfBooks) {
+        return resolveUserRecords(readUserRecords(userDataFile), listOfBooks);
+    }
+
+    /**
+     * Starts reading the user file in the background, so that it can be read while the books
+     * are still being loaded.
+     *
+     * @param userDataFile  The file from which to read User data.
+     * @param recordOffsets The map to which the position of the first line of every user name is added.
+     * @return The raw user records, split into their attributes, once they have been read.
+     */
+    public static CompletableFuture<ArrayList<String[]>> readUserRecordsAsync(File userDataFile,
+                                                                              HashMap<String, Long> recordOffsets) {
+        return CompletableFuture.supplyAsync(() -> readUserRecords(userDataFile, recordOffsets));
+    }
+
+    /**
+     * Reads the user file and splits every line into its attributes, without resolving
+     * the borrowed books against the list of books.
+     *
+     * @param userDataFile The file from which to read User data.
+     * @return The raw user records in file order.
+     */
+    public static ArrayList<String[]> readUserRecords(File userDataFile) {
+        return readUserRecords(userDataFile, new HashMap<>());
+    }
+
+    /**
+     * Reads the user file and splits every line into its attributes, noting where the line
+     * of every user starts so that it can be read again on its own. Positions are not noted
+     * for a compressed file, which can only be read from the start.
+     *
+     * @param userDataFile  The file from which to read User data.
+     * @param recordOffsets The map to which the position of the first line of every user name is added.
+     * @return The raw user records in file order.
+     */
+    public static ArrayList<String[]> readUserRecords(File userDataFile, HashMap<String, Long> recordOffsets) {
+        try {
+            ArrayList<Long> lineOffsets = new ArrayList<>();
+            ArrayList<String> lines = StorageCodecs.isCompressed(userDataFile)
+                    ? ChunkedFileReader.readLines(userDataFile)
+                    : ChunkedFileReader.readLines(userDataFile, lineOffsets);
+            ArrayList<String[]> userRecords = lines.parallelStream()
+                    .map(RecordCodec::splitFields)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            for (int i = 0; i < lineOffsets.size(); i += 1) {
+                String[] userAttributes = userRecords.get(i);
+                if (userAttributes.length > 0) {
+                    recordOffsets.putIfAbsent(userAttributes[0], lineOffsets.get(i));
+                }
+            }
+            return userRecords;
+        } catch (FileNotFoundException | NoSuchFileException e) {
             System.out.println("File not found!");
         } catch (IOException e) {
             System.out.println("Access to file is interrupted");
         }
 
+        return new ArrayList<>();
+    }
+
+    /**
+     * Turns raw user records into users, checking every borrowed book against the list of books.
+     *
+     * @param userRecords The raw user records in file order.
+     * @param listOfBooks The list of books which have been loaded.
+     * @return The list of valid users.
+     */
+    public static UserList resolveUserRecords(ArrayList<String[]> userRecords, BookList listOfBooks) {
+        areUsersRepaired = false;
+        UserList listOfUser = new UserList();
+        for (String[] userAttributes : userRecords) {
+            processUserRecord(userAttributes, listOfUser, listOfBooks);
+        }
+
         return listOfUser;
     }
 
+    /**
+     * Checks whether the last call to {@link #resolveUserRecords(ArrayList, BookList)} skipped or
+     * repaired any user, in which case the file no longer matches the users that were read from it.
+     *
+     * @return true if any user was skipped or repaired, false otherwise.
+     */
+    public static boolean hasRepairedUsers() {
+        return areUsersRepaired;
+    }
+
     /**
      * Write all users in listOfUsers to txt file for storage, with a specific format.
      *
@@ -63,21 +141,75 @@ public class UserStorage {
      * @param listOfUsers The list to which users who borrowed books are kept tracked.
      */
     public static void writeUserToTxt(File userDataFile, ArrayList<User> listOfUsers) {
+        // written to a temporary file first, so that quitting while the library loads cannot cut the file short
         try {
-            BufferedWriter fileWriter = new BufferedWriter(new FileWriter(userDataFile, false));
-
-            for (User user : listOfUsers) {
-                fileWriter.write(serializeUser(user));
-            }
-
-            fileWriter.close();
-        } catch (FileNotFoundException e) {
-            System.out.println("FILE NOT FOUND!!!");
+            WriteBehindPersister.writeFileAtomically(userDataFile, encodeUsers(listOfUsers));
         } catch (IOException e) {
             System.out.println("Failed to write to file");
         }
     }
 
+    /**
+     * Encodes all users in the format of the user file, so that they can be written later.
+     *
+     * @param listOfUsers The list of users to encode.
+     * @return The content of the file.
+     */
+    static byte[] encodeUsers(ArrayList<User> listOfUsers) {
+        StringBuilder encodedUsers = new StringBuilder();
+        for (User user : listOfUsers) {
+            RecordCodec.appendUser(encodedUsers, user);
+        }
+        return encodedUsers.toString().getBytes();
+    }
+
+    /**
+     * Encodes all users in the format of the user file, noting the position at which the line
+     * of every user starts and a hash of the line, so that later changes to the file can be found.
+     *
+     * @param listOfUsers   The list of users to encode.
+     * @param recordOffsets The map to which the position of every user is added.
+     * @param recordHashes  The map to which the hash of the line of every user is added.
+     * @return The content of the file.
+     */
+    static byte[] encodeUsers(ArrayList<User> listOfUsers, HashMap<String, Long> recordOffsets,
+                              HashMap<String, Integer> recordHashes) {
+        return encodeUsers(listOfUsers, recordOffsets, recordHashes, null);
+    }
+
+    /**
+     * Encodes all users like {@link #encodeUsers(ArrayList, HashMap, HashMap)}, copying the lines of users
+     * whose books are not in memory from the user file the index points into, so that their books are not
+     * read one user at a time. The user file is only read if there is such a user.
+     *
+     * @param listOfUsers   The list of users to encode.
+     * @param recordOffsets The map to which the position of every user is added.
+     * @param recordHashes  The map to which the hash of the line of every user is added.
+     * @param userIndex     The index of the users in the current user file, or null to encode every user.
+     * @return The content of the file.
+     */
+    static byte[] encodeUsers(ArrayList<User> listOfUsers, HashMap<String, Long> recordOffsets,
+                              HashMap<String, Integer> recordHashes, UserIndex userIndex) {
+        ByteArrayOutputStream encodedUsers = new ByteArrayOutputStream();
+        byte[] currentUserData = null;
+        for (User user : listOfUsers) {
+            recordOffsets.put(user.getName(), (long) encodedUsers.size());
+            String userRecord = null;
+            if (userIndex != null && !user.areUserBooksLoaded()) {
+                if (currentUserData == null) {
+                    currentUserData = userIndex.readUserFile();
+                }
+                userRecord = userIndex.findRecord(currentUserData, user.getName());
+            }
+            String serializedUser = userRecord == null ? serializeUser(user) : userRecord + "\n";
+            String[] userAttributes = RecordCodec.splitFields(serializedUser.substring(0, serializedUser.length() - 1));
+            recordHashes.put(user.getName(), StorageReloader.hashUserRecord(userAttributes));
+            byte[] encodedUser = serializedUser.getBytes();
+            encodedUsers.write(encodedUser, 0, encodedUser.length);
+        }
+        return encodedUsers.toByteArray();
+    }
+
     /**
      * Takes in a user from an array list and convert into a formatted string to be written
      * in txt file for storage.
@@ -85,24 +217,9 @@ public class UserStorage {
      * @param user a user from the array list who currently have at least a book borrowed.
      * @return string of user and the book borrowed in a specific format.
      */
-    private static String serializeUser(User user) {
-        StringBuilder serializedString = new StringBuilder();
-        serializedString.append(user.getName());
-
-        ArrayList<UserBook> listOfUserBooks = user.getListOfUserBooks();
-
-        for (UserBook userBooks : listOfUserBooks) {
-            serializedString.append(" | ");
-            serializedString.append(userBooks.getUserBookIndex());
-            serializedString.append(" | ");
-            serializedString.append(userBooks.getUserBookTitle());
-            serializedString.append(" | ");
-            serializedString.append(userBooks.getBorrowDate());
-            serializedString.append(" | ");
-            serializedString.append(userBooks.getReturnDueDate());
-        }
-        serializedString.append("\n");
-
+    static String serializeUser(User user) {
+        StringBuilder serializedString = RecordCodec.getRecordBuilder();
+        RecordCodec.appendUser(serializedString, user);
         return serializedString.toString();
     }
 
@@ -113,75 +230,101 @@ public class UserStorage {
      * @param line A string representing a line of text from the storage file.
      * @param listOfUsers The list to which users who borrowed books are kept tracked.
      */
-    private static void processReadLine(String line, ArrayList<User> listOfUsers, ArrayList<Book> listOfBooks) {
-        String[] userAttributes = line.split(" \\| ");
+    static void processReadLine(String line, ArrayList<User> listOfUsers, BookList listOfBooks) {
+        processUserRecord(RecordCodec.splitFields(line), listOfUsers, listOfBooks);
+    }
+
+    private static void processUserRecord(String[] userAttributes, ArrayList<User> listOfUsers,
+                                          BookList listOfBooks) {
         User currentUser = new User(userAttributes[0], listOfBooks);
 
         if (StorageValidation.isValidLine(listOfUsers, currentUser, userAttributes)) {
+            areUsersRepaired = true;
             return;
         }
 
         for (int i = 1; i < userAttributes.length; i += 4) {
-            try {
-                int bookIndex = Integer.parseInt(userAttributes[i].strip());
-
-                StorageValidation.checkValidBookIndex(listOfBooks, bookIndex);
-                StorageValidation.checkValidBookInBookStorage(listOfBooks, bookIndex, userAttributes[i + 1]);
-
-                setBookBorrowDetails(listOfBooks, userAttributes, i, bookIndex, currentUser);
-            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            long bookId = RecordCodec.parseStrippedNumber(userAttributes[i]);
+            if (bookId == RecordCodec.INVALID_NUMBER) {
                 Ui.printInvalidTxtLine();
+                discardUser(currentUser, listOfBooks);
                 return;
-            } catch (DifferentUserBookStorageException e) {
-                Ui.printInvalidUserTxtLine();
+            }
+
+            try {
+                // the title after the ID is only a label for people reading the file, so it is not compared
+                StorageValidation.checkValidBookId(listOfBooks, (int) bookId);
+                setBookBorrowDetails(listOfBooks, userAttributes, i, (int) bookId, currentUser);
+            } catch (IndexOutOfBoundsException e) {
+                Ui.printInvalidTxtLine();
+                discardUser(currentUser, listOfBooks);
                 return;
             }
         }
 
-        listOfUsers.add(currentUser);
+        int existingPosition = listOfUsers.indexOf(currentUser);
+        if (existingPosition == -1) {
+            listOfUsers.add(currentUser);
+            return;
+        }
+
+        // only a user whose name differs in case can be found here, as exact duplicates were skipped
+        StorageValidation.mergeUsers(listOfUsers.get(existingPosition), currentUser, listOfBooks);
+        areUsersRepaired = true;
     }
 
-    private static void setBookBorrowDetails(ArrayList<Book> listOfBooks, String[] userAttributes, int i,
-                                             int bookIndex, User currentUser) {
+    /**
+     * Gives back the books borrowed by a user whose line turned out to be invalid part way through,
+     * so that the loans of those books are not counted for a user who is not kept.
+     */
+    private static void discardUser(User discardedUser, BookList listOfBooks) {
+        areUsersRepaired = true;
+        UserBookView userBooks = discardedUser.getUserBooks();
+        for (int i = 0; i < userBooks.size(); i += 1) {
+            listOfBooks.removeLoan(userBooks.getBookId(i), discardedUser);
+        }
+    }
+
+    private static void setBookBorrowDetails(BookList listOfBooks, String[] userAttributes, int i,
+                                             int bookId, User currentUser) {
         String borrowDateInString = userAttributes[i + 2].strip();
         String returnDueDateInString = userAttributes[i + 3].strip();
+        Book borrowedBook = listOfBooks.getBookById(bookId);
 
-        LocalDate borrowDate = getBorrowDate(borrowDateInString, listOfBooks.get(bookIndex));
-        LocalDate returnDueDate = getReturnDueDate(returnDueDateInString, listOfBooks.get(bookIndex),
-                borrowDate);
+        LocalDate borrowDate = getBorrowDate(borrowDateInString, borrowedBook);
+        LocalDate returnDueDate = getReturnDueDate(returnDueDateInString, borrowedBook, borrowDate);
 
-        currentUser.borrowBook(bookIndex, borrowDate, returnDueDate);
+        currentUser.borrowBook(bookId, borrowDate, returnDueDate);
     }
 
     private static LocalDate getBorrowDate(String borrowDateInString, Book bookToInput) {
-        LocalDate borrowDate;
+        LocalDate borrowDate = RecordCodec.parseDate(borrowDateInString.strip());
 
-        try {
-            borrowDate = LocalDate.parse(borrowDateInString.strip());
-        } catch (DateTimeParseException e) {
+        if (borrowDate == null) {
             String bookTitle = bookToInput.getName();
             Ui.printInvalidBorrowDate(bookTitle);
             borrowDate = LocalDate.now();
+            areUsersRepaired = true;
         }
 
         return borrowDate;
     }
 
     private static LocalDate getReturnDueDate(String borrowDateInString, Book bookToInput, LocalDate borrowDate) {
-        LocalDate returnDueDate;
+        LocalDate returnDueDate = RecordCodec.parseDate(borrowDateInString);
         String bookTitle = bookToInput.getName();
 
-        try {
-            returnDueDate = LocalDate.parse(borrowDateInString);
-        } catch (DateTimeParseException e) {
+        if (returnDueDate == null) {
             Ui.printInvalidReturnDueDate(bookTitle);
             returnDueDate = LocalDate.now().plusWeeks(2);
+            areUsersRepaired = true;
         }
 
         // Ensure borrow date is before return due date
         if (borrowDate.isAfter(returnDueDate) || borrowDate.isEqual(returnDueDate)) {
             returnDueDate = borrowDate.plusWeeks(2);
             Ui.printInvalidReturnBeforeBorrowDate(bookTitle);
+            areUsersRepaired = true;
         }
 
         return returnDueDate;
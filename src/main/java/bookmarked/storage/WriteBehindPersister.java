@@ -0,0 +1,284 @@
+package bookmarked.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class writes journal records and storage snapshots on a background thread, so that
+ * commands only mark what they changed and never wait for the disk.
+ * Pending writes are flushed once the flush interval has passed or enough records are dirty,
+ * whichever comes first, and in full on exit and when the JVM shuts down.
+ * Records with the same key are merged while they wait, so a book or user changed several
+ * times between flushes is only written once, and a snapshot replaces every record before it.
+ */
+public class WriteBehindPersister {
+    private static final String FLUSH_INTERVAL_PROPERTY = "bookmarked.flushIntervalMillis";
+    private static final String FLUSH_DIRTY_COUNT_PROPERTY = "bookmarked.flushDirtyCount";
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 500;
+    private static final int DEFAULT_FLUSH_DIRTY_COUNT = 32;
+    private static WriteBehindPersister persister;
+
+    private final int flushDirtyCount;
+    private final ScheduledExecutorService flushExecutor;
+    private final Object flushLock = new Object();
+    private ArrayList<PendingWrite> pendingWrites = new ArrayList<>();
+    private int numberOfDirtyRecords = 0;
+    // only changed while holding the flush lock
+    private volatile long numberOfFileWrites = 0;
+
+    private WriteBehindPersister(long flushIntervalMillis, int flushDirtyCount) {
+        this.flushDirtyCount = flushDirtyCount;
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread flushThread = new Thread(runnable, "bookmarked-persister");
+            flushThread.setDaemon(true);
+            return flushThread;
+        });
+        this.flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    /**
+     * Returns the persister shared by the whole application, starting it on first use.
+     * The flush interval and dirty count can be configured with the
+     * {@code bookmarked.flushIntervalMillis} and {@code bookmarked.flushDirtyCount} system properties.
+     *
+     * @return The shared persister.
+     */
+    public static synchronized WriteBehindPersister getPersister() {
+        if (persister == null) {
+            long flushIntervalMillis = Long.getLong(FLUSH_INTERVAL_PROPERTY, DEFAULT_FLUSH_INTERVAL_MILLIS);
+            int flushDirtyCount = Integer.getInteger(FLUSH_DIRTY_COUNT_PROPERTY, DEFAULT_FLUSH_DIRTY_COUNT);
+            persister = new WriteBehindPersister(Math.max(1, flushIntervalMillis), Math.max(1, flushDirtyCount));
+        }
+        return persister;
+    }
+
+    /**
+     * Marks records as waiting to be appended to a journal, replacing any waiting record with the same key.
+     *
+     * @param journalFile The journal to which the records belong.
+     * @param recordKeys  The key of every record, identifying the book or user it describes.
+     * @param records     The records to append.
+     */
+    public synchronized void addRecords(File journalFile, String[] recordKeys, String[] records) {
+        PendingRecords pendingRecords = getLastPendingRecords(journalFile);
+        for (int i = 0; i < records.length; i += 1) {
+            // a rewritten record moves to the end, so that it is written after the records it was changed after
+            if (pendingRecords.records.remove(recordKeys[i]) == null) {
+                this.numberOfDirtyRecords += 1;
+            }
+            pendingRecords.records.put(recordKeys[i], records[i]);
+        }
+
+        if (this.numberOfDirtyRecords >= this.flushDirtyCount) {
+            this.numberOfDirtyRecords = 0;
+            this.flushExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Marks a snapshot of the books and users as waiting to be written, after which the journal is deleted.
+     * Records for the same journal that are still waiting are dropped, as the snapshot already contains them.
+     *
+     * @param journalFile  The journal that the snapshot replaces.
+     * @param bookDataFile The file in which the book snapshot is stored.
+     * @param bookData     The encoded book snapshot.
+     * @param userDataFile The file in which the user snapshot is stored.
+     * @param userData     The encoded user snapshot.
+     */
+    public synchronized void addSnapshot(File journalFile, File bookDataFile, byte[] bookData,
+                                         File userDataFile, byte[] userData) {
+        Iterator<PendingWrite> iterator = this.pendingWrites.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().journalFile.equals(journalFile)) {
+                iterator.remove();
+            }
+        }
+        this.pendingWrites.add(new PendingSnapshot(journalFile, bookDataFile, bookData, userDataFile, userData));
+    }
+
+    /**
+     * Marks whole files as waiting to be rewritten together in the same flush, replacing any earlier
+     * content of the same files that is still waiting.
+     *
+     * @param dataFiles The new content of every file to rewrite, in the order they are written.
+     */
+    public synchronized void addFileWrites(LinkedHashMap<File, byte[]> dataFiles) {
+        Iterator<PendingWrite> iterator = this.pendingWrites.iterator();
+        while (iterator.hasNext()) {
+            PendingWrite pendingWrite = iterator.next();
+            if (pendingWrite instanceof PendingFile && dataFiles.containsKey(pendingWrite.journalFile)) {
+                iterator.remove();
+            }
+        }
+        for (File dataFile : dataFiles.keySet()) {
+            this.pendingWrites.add(new PendingFile(dataFile, dataFiles.get(dataFile)));
+        }
+    }
+
+    /**
+     * Writes everything that is waiting, in the order it was added, and returns once it is on disk.
+     */
+    public void flush() {
+        synchronized (this.flushLock) {
+            ArrayList<PendingWrite> writesToFlush;
+            synchronized (this) {
+                writesToFlush = this.pendingWrites;
+                this.pendingWrites = new ArrayList<>();
+                this.numberOfDirtyRecords = 0;
+            }
+
+            for (PendingWrite pendingWrite : writesToFlush) {
+                try {
+                    this.numberOfFileWrites += pendingWrite.write();
+                } catch (IOException e) {
+                    System.out.println("Failed to write to file");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times a file has been written or appended to since the persister started,
+     * counting every file of a snapshot separately.
+     *
+     * @return The number of file writes made so far.
+     */
+    public long getNumberOfFileWrites() {
+        return this.numberOfFileWrites;
+    }
+
+    /**
+     * Writes data to a temporary file and then moves it over the given file, so that the file
+     * always holds either its old or its new content. The data is compressed as it is written
+     * if the file has the extension of a {@link StorageCodec}.
+     *
+     * @param dataFile The file to write.
+     * @param data     The new content of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    static void writeFileAtomically(File dataFile, byte[] data) throws IOException {
+        File temporaryFile = new File(dataFile.getPath() + ".tmp");
+        try (OutputStream fileWriter = StorageCodecs.openOutputStream(dataFile, temporaryFile)) {
+            fileWriter.write(data);
+        }
+        Files.move(temporaryFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        StorageFileWatcher.recordOwnWrite(dataFile);
+    }
+
+    private PendingRecords getLastPendingRecords(File journalFile) {
+        if (!this.pendingWrites.isEmpty()) {
+            PendingWrite lastPendingWrite = this.pendingWrites.get(this.pendingWrites.size() - 1);
+            if (lastPendingWrite instanceof PendingRecords && lastPendingWrite.journalFile.equals(journalFile)) {
+                return (PendingRecords) lastPendingWrite;
+            }
+        }
+
+        PendingRecords pendingRecords = new PendingRecords(journalFile);
+        this.pendingWrites.add(pendingRecords);
+        return pendingRecords;
+    }
+
+    private abstract static class PendingWrite {
+        protected final File journalFile;
+
+        PendingWrite(File journalFile) {
+            this.journalFile = journalFile;
+        }
+
+        /**
+         * Writes to disk, returning the number of files written.
+         */
+        abstract int write() throws IOException;
+    }
+
+    private static class PendingRecords extends PendingWrite {
+        private final LinkedHashMap<String, String> records = new LinkedHashMap<>();
+
+        PendingRecords(File journalFile) {
+            super(journalFile);
+        }
+
+        /**
+         * Appends the records as a single committed batch, with every book record before every user record.
+         * A user merged from several commands can borrow a book added after the user was first changed,
+         * so the books are written first for replay to find every book that the users have borrowed.
+         */
+        @Override
+        int write() throws IOException {
+            StringBuilder recordsToWrite = new StringBuilder();
+            for (String recordKey : this.records.keySet()) {
+                if (JournalStorage.isBookRecordKey(recordKey)) {
+                    recordsToWrite.append(this.records.get(recordKey)).append("\n");
+                }
+            }
+            for (String recordKey : this.records.keySet()) {
+                if (!JournalStorage.isBookRecordKey(recordKey)) {
+                    recordsToWrite.append(this.records.get(recordKey)).append("\n");
+                }
+            }
+            recordsToWrite.append(JournalStorage.COMMIT_RECORD).append("\n");
+            try (FileOutputStream fileWriter = new FileOutputStream(this.journalFile, true)) {
+                fileWriter.write(recordsToWrite.toString().getBytes());
+            }
+            return 1;
+        }
+    }
+
+    private static class PendingSnapshot extends PendingWrite {
+        private final File bookDataFile;
+        private final byte[] bookData;
+        private final File userDataFile;
+        private final byte[] userData;
+
+        PendingSnapshot(File journalFile, File bookDataFile, byte[] bookData, File userDataFile, byte[] userData) {
+            super(journalFile);
+            this.bookDataFile = bookDataFile;
+            this.bookData = bookData;
+            this.userDataFile = userDataFile;
+            this.userData = userData;
+        }
+
+        /**
+         * Writes both snapshots before deleting the journal, so a crash in between replays
+         * records that are already in the snapshots, which has no effect.
+         */
+        @Override
+        int write() throws IOException {
+            writeFileAtomically(this.bookDataFile, this.bookData);
+            writeFileAtomically(this.userDataFile, this.userData);
+            Files.deleteIfExists(this.journalFile.toPath());
+            return 2;
+        }
+    }
+
+    /**
+     * A file that is rewritten on its own, without a journal, so it is keyed by the file itself.
+     */
+    private static class PendingFile extends PendingWrite {
+        private final byte[] data;
+
+        PendingFile(File dataFile, byte[] data) {
+            super(dataFile);
+            this.data = data;
+        }
+
+        @Override
+        int write() throws IOException {
+            writeFileAtomically(this.journalFile, this.data);
+            return 1;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package bookmarked.ui;
 import bookmarked.Book;
 import bookmarked.user.User;
+import bookmarked.userbook.UserBookView;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 
 
@@ -76,6 +78,12 @@ public class Ui {
         System.out.println();
         System.out.println("15.To find a book in the inventory");
         System.out.println("   find /by book BOOK_TITLE");
+        System.out.println();
+        System.out.println("16.To find the users borrowing a book");
+        System.out.println("   find /by borrower BOOK_TITLE");
+        System.out.println();
+        System.out.println("17.To check that borrowed copies match the users borrowing them");
+        System.out.println("   check");
 
     }
 
@@ -183,13 +191,24 @@ public class Ui {
     public static void invalidUser(String userName) {
         System.out.println("user not found: " + userName);
     }
-    public static void printCommand(User user, int i) {
+
+    public static void printNoBorrowersMessage(String bookTitle) {
+        System.out.println("Nobody is borrowing " + bookTitle + " right now.");
+    }
+
+    public static void printBorrowers(String bookTitle, ArrayList<User> borrowers) {
+        System.out.println("Users borrowing " + bookTitle + ":");
+        for (int i = 0; i < borrowers.size(); i += 1) {
+            System.out.println(" " + (i + 1) + ". " + borrowers.get(i).getName());
+        }
+    }
+    public static void printCommand(int i, String bookTitle, LocalDate borrowDate, LocalDate returnDueDate) {
         System.out.print(i + 1 + ". ");
-        System.out.print(user.getUserBooks().get(i).getName());
+        System.out.print(bookTitle);
         System.out.print(", Borrowed on: ");
-        System.out.print(user.getUserBooks().get(i).getBorrowDate());
+        System.out.print(borrowDate);
         System.out.print(", Return by: ");
-        System.out.print(user.getUserBooks().get(i).getReturnDate());
+        System.out.print(returnDueDate);
     }
     public static void printOverdue() {
         System.out.print(", OVERDUE");
@@ -242,6 +261,14 @@ public class Ui {
         System.out.println("Skipping a line due to invalid line in user.txt");
     }
 
+    public static void printInvalidJournalLine() {
+        System.out.println("Skipping a line due to invalid record in the journal");
+    }
+
+    public static void printIncompleteJournalMessage() {
+        System.out.println("Skipping changes in the journal that were not completely saved");
+    }
+
     public static void printExtensionSuccessMessage(String bookName) {
         System.out.println("The borrowing period for '" + bookName + "' has been successfully extended by one week.");
     }
@@ -250,14 +277,63 @@ public class Ui {
         System.out.println("Modifying book quantity of " + bookName + " to sync with total books borrowed by user.");
     }
 
+    public static void printLoanDriftMessage(String bookName, int numberBorrowed, int loanCounter,
+                                             int numberOfLoans) {
+        System.out.println(bookName + ": " + numberOfLoans + " user(s) borrowing it, but " + numberBorrowed
+                + " copies marked as borrowed and a loan counter of " + loanCounter);
+    }
+
+    public static void printLoanDriftNotRepairedMessage() {
+        System.out.println("Nothing was changed; the books above are repaired the next time BookMarked starts.");
+    }
+
+    public static void printNoLoanDriftMessage() {
+        System.out.println("Every book's borrowed copies match the users borrowing it.");
+    }
+
+    public static void printWaitingForLibraryMessage() {
+        System.out.println("Please wait, the library is still loading...");
+    }
+
+    public static void printStartupTimings(ArrayList<String> phaseNames, ArrayList<Long> phaseMillis) {
+        long totalMillis = 0;
+        System.out.println("Startup timings:");
+        for (int i = 0; i < phaseNames.size(); i += 1) {
+            System.out.println("  " + phaseNames.get(i) + ": " + phaseMillis.get(i) + "ms");
+            totalMillis += phaseMillis.get(i);
+        }
+        System.out.println("  total: " + totalMillis + "ms");
+    }
+
+    public static void printBooksRenumberedMessage() {
+        System.out.println("Deleted books have been cleared from the list, so the remaining books are renumbered.");
+    }
+
+    public static void printReloadedFileMessage(String fileName, int numberOfChanges) {
+        System.out.println("Applied " + numberOfChanges + " change(s) made to " + fileName + " by another program.");
+    }
+
+    public static void printBorrowedBookNotRemovedMessage(String bookName) {
+        System.out.println(bookName + " was removed from the book file, but is kept as it is still borrowed.");
+    }
+
     public static void printInvalidUserMessage() {
         System.out.println("Skipping a line due to invalid or duplicate user");
     }
 
+    public static void printMergedUsersMessage(String keptUserName, String mergedUserName) {
+        System.out.println("Users " + keptUserName + " and " + mergedUserName + " only differ in case, so the books "
+                + "borrowed by " + mergedUserName + " are now borrowed by " + keptUserName + ".");
+    }
+
     public static void printInvalidBookMessage() {
         System.out.println("Skipping a line due to invalid or duplicate book");
     }
 
+    public static void printInvalidCatalogMessage() {
+        System.out.println("Skipping the book catalog as it is not a valid binary catalog");
+    }
+
     public static void printFileNotFoundError() {
         System.out.println("File not found!");
     }
@@ -266,6 +342,15 @@ public class Ui {
         System.out.println("Access to file is interrupted");
     }
 
+    public static void printDatabaseError() {
+        System.out.println("Access to the library database failed");
+    }
+
+    public static void printQuarantinedShardMessage(String shardName, String quarantineName) {
+        System.out.println("Some lines of " + shardName + " could not be read, so they were skipped. "
+                + "The original file was kept as " + quarantineName);
+    }
+
     public static void printDuplicateTitleMessage() {
         System.out.println("Unable to edit book title due to same title as other existing book title");
     }
@@ -286,13 +371,23 @@ public class Ui {
      * Prints an extra line if it is the final user in the list
      * Used by both lisuser and find user class
      * hence placing this function under UI since it prints output and to avoid duplicate
+     * Reads every loan once from the user's books, skipping books that were since deleted
      * @param user      the user that i currently represents
      * @param userCount the number of users
      */
     public static void printUserBooks(User user, int userCount, ArrayList<User> listOfUsers) {
-        for (int i = 0; i < user.getUserBooks().size(); i++) {
-            Ui.printCommand(user, i);
-            if (Book.isOverdue(user.getUserBooks().get(i).getReturnDate())) {
+        UserBookView userBooks = user.getUserBooks();
+        int numberOfBooksPrinted = 0;
+        for (int i = 0; i < userBooks.size(); i += 1) {
+            String bookTitle = user.getUserBookTitle(userBooks.getBookId(i));
+            if (bookTitle == null) {
+                continue;
+            }
+
+            LocalDate returnDueDate = userBooks.getReturnDueDate(i);
+            Ui.printCommand(numberOfBooksPrinted, bookTitle, userBooks.getBorrowDate(i), returnDueDate);
+            numberOfBooksPrinted += 1;
+            if (Book.isOverdue(returnDueDate)) {
                 Ui.printOverdue();
             }
             System.out.println();
@@ -1,96 +1,144 @@
 package bookmarked.user;
 
 import bookmarked.Book;
-import bookmarked.userbook.UserBook;
+import bookmarked.BookList;
+import bookmarked.userbook.UserBookTable;
+import bookmarked.userbook.UserBookView;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Objects;
 
 public class User {
     private static final int EXTENSION_DAYS = 7;
     private String userName;
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<UserBook> listOfUserBooks;
-    private ArrayList<Integer> userBooksIndex;
+    private BookList listOfBooks;
+    private UserBookTable userBooks;
+    private UserLoader userLoader;
 
-    public User(String userName, ArrayList<Book> listOfBooks) {
+    public User(String userName, BookList listOfBooks) {
         this.userName = userName;
-        this.userBooksIndex = new ArrayList<>();
         this.listOfBooks = listOfBooks;
-        this.listOfUserBooks = new ArrayList<>();
+        this.userBooks = new UserBookTable();
     }
 
     public String getName() {
         return this.userName;
     }
 
-    public ArrayList<Book> getUserBooks() {
-        ArrayList<Book> userBooks = new ArrayList<>();
+    /**
+     * Returns the books borrowed by this user, with the dates of every loan. Loans can only be
+     * changed through this user, and some of them may be of books that were since deleted.
+     *
+     * @return A read-only view of the books borrowed by this user.
+     */
+    public UserBookView getUserBooks() {
+        useUserBooks();
+        return this.userBooks;
+    }
 
-        for (int i = 0; i < this.userBooksIndex.size(); i += 1) {
-            int currentBookIndex = this.userBooksIndex.get(i);
-            UserBook currentUserBook = this.listOfUserBooks.get(i);
-            Book bookToAddToList = this.listOfBooks.get(currentBookIndex);
+    /**
+     * Checks whether this user is borrowing any book that is still in the list of books.
+     *
+     * @return true if the user has a loan of a book in the list, false otherwise.
+     */
+    public boolean hasBorrowedBooks() {
+        useUserBooks();
+        for (int i = 0; i < this.userBooks.size(); i += 1) {
+            if (this.listOfBooks.containsBookId(this.userBooks.getBookId(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            LocalDate borrowDate = currentUserBook.getBorrowDate();
-            LocalDate returnDueDate = currentUserBook.getReturnDueDate();
-            bookToAddToList.setBorrowDate(borrowDate);
-            bookToAddToList.setReturnDate(returnDueDate);
+    /**
+     * Returns the current title of a book borrowed by this user.
+     *
+     * @param bookId The ID of a book borrowed by this user.
+     * @return The title of the book, or null if it is no longer in the list of books.
+     */
+    public String getUserBookTitle(int bookId) {
+        Book borrowedBook = this.listOfBooks.getBookById(bookId);
+        return borrowedBook == null ? null : borrowedBook.getName();
+    }
 
-            userBooks.add(bookToAddToList);
+    public void borrowBook(int bookId, LocalDate borrowDate, LocalDate returnDueDate) {
+        keepUserBooks();
+        this.userBooks.add(bookId, borrowDate, returnDueDate);
+        if (this.listOfBooks != null) {
+            this.listOfBooks.addLoan(bookId, this);
         }
-        return userBooks;
     }
 
-    public ArrayList<Integer> getUserBooksIndex() {
-        return this.userBooksIndex;
+    public void unborrowBook(int bookId) {
+        keepUserBooks();
+        if (this.userBooks.remove(bookId) && this.listOfBooks != null) {
+            this.listOfBooks.removeLoan(bookId, this);
+        }
     }
 
-    public ArrayList<UserBook> getListOfUserBooks() {
-        return this.listOfUserBooks;
+    public void extendDueDate(int bookId) {
+        keepUserBooks();
+        int position = this.userBooks.indexOf(bookId);
+        if (position != -1) {
+            LocalDate currentReturnDueDate = this.userBooks.getReturnDueDate(position);
+            this.userBooks.setReturnDueDate(position, currentReturnDueDate.plusDays(EXTENSION_DAYS));
+        }
     }
 
-    public void borrowBook(Integer bookIndex, LocalDate borrowDate, LocalDate returnDueDate) {
-        this.userBooksIndex.add(bookIndex);
-        String bookTitleToBorrow = listOfBooks.get(bookIndex).getName();
-        UserBook bookToBorrow = new UserBook(bookIndex, bookTitleToBorrow, borrowDate, returnDueDate);
-        this.listOfUserBooks.add(bookToBorrow);
+    public void setListOfBooks(BookList listOfBooks) {
+        this.listOfBooks = listOfBooks;
     }
 
-    public void unborrowBook(Integer bookIndex) {
-        this.userBooksIndex.remove(bookIndex);
-        UserBook bookToReturn = null;
-        for (int i = 0; i < this.listOfUserBooks.size(); i += 1) {
-            UserBook currentBook = this.listOfUserBooks.get(i);
-            if (Objects.equals(currentBook.getUserBookIndex(), bookIndex)) {
-                bookToReturn = currentBook;
-            }
-        }
-        this.listOfUserBooks.remove(bookToReturn);
+    /**
+     * Lets the books borrowed by this user be dropped from memory, to be read again by the given
+     * loader the next time they are used.
+     *
+     * @param userLoader The loader that reads the books of this user, or null to always keep them in memory.
+     */
+    public void setUserLoader(UserLoader userLoader) {
+        this.userLoader = userLoader;
     }
 
-    public void editBook(String oldTitle, String newTitle, ArrayList<UserBook> currentUserBooksList) {
-        for (UserBook currentUserBook : currentUserBooksList) {
-            String currentUserBookTitle = currentUserBook.getUserBookTitle();
-            if (currentUserBookTitle.equals(oldTitle)) {
-                currentUserBook.setUserBookTitle(newTitle);
-            }
+    public boolean areUserBooksLoaded() {
+        return this.userBooks != null;
+    }
+
+    /**
+     * Replaces the books borrowed by this user with the ones read by its loader.
+     *
+     * @param userBooks The books borrowed by this user.
+     */
+    public void setUserBooks(UserBookTable userBooks) {
+        this.userBooks = userBooks;
+    }
+
+    /**
+     * Drops the books borrowed by this user from memory. This has no effect on a user without
+     * a loader, as their books could not be read again.
+     */
+    public void unloadUserBooks() {
+        if (this.userLoader == null) {
+            return;
         }
+
+        this.userBooks = null;
     }
 
-    public void extendDueDate(Integer bookIndex) {
-        for (int i = 0; i < this.listOfUserBooks.size(); i += 1) {
-            if (bookIndex == i) {
-                UserBook currentUserBook = this.listOfUserBooks.get(i);
-                LocalDate currentReturnDueDate = currentUserBook.getReturnDueDate();
-                currentUserBook.setReturnDueDate(currentReturnDueDate.plusDays(EXTENSION_DAYS));
-            }
+    private void useUserBooks() {
+        if (this.userLoader != null) {
+            this.userLoader.loadUserBooks(this);
         }
     }
 
-    public void setListOfBooks(ArrayList<Book> listOfBooks) {
-        this.listOfBooks = listOfBooks;
+    /**
+     * Keeps the books of this user in memory from now on, as they are about to be changed.
+     */
+    private void keepUserBooks() {
+        if (this.userLoader != null) {
+            this.userLoader.loadUserBooks(this);
+            this.userLoader.keepUserBooks(this);
+            this.userLoader = null;
+        }
     }
 
     @Override
@@ -98,9 +146,20 @@ public class User {
         return (this.userName + getUserBooks());
     }
 
+    /**
+     * Checks whether another user has the same name as this user, ignoring case, as in {@link UserList}.
+     */
     @Override
     public boolean equals(Object obj) {
+        if (!(obj instanceof User)) {
+            return false;
+        }
         User otherUser = (User) obj;
-        return Objects.equals(this.userName, otherUser.getName());
+        return UserList.normalizeName(this.userName).equals(UserList.normalizeName(otherUser.getName()));
+    }
+
+    @Override
+    public int hashCode() {
+        return UserList.normalizeName(this.userName).hashCode();
     }
 }
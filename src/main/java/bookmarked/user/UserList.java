@@ -0,0 +1,321 @@
+package bookmarked.user;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Represents the list of users of the library, which can be looked up by name in constant time.
+ * Names are matched literally and without regard to case, so "Alice" and "alice" are the same user.
+ * Users are kept in the order they were added, which is the order they are listed and stored in.
+ * A removed user leaves an empty slot behind instead of moving the users after it, and the empty slots are
+ * only closed up when the list is next read by position or gone through, so adding, finding and removing a
+ * user by name all take constant time.
+ */
+public class UserList extends ArrayList<User> {
+    private final HashMap<String, Integer> positionsByName = new HashMap<>();
+    private int numberOfRemovedUsers = 0;
+
+    public UserList() {
+        super();
+    }
+
+    /**
+     * Returns the key under which a user name is looked up.
+     *
+     * @param userName The name of the user.
+     * @return The name in lower case.
+     */
+    public static String normalizeName(String userName) {
+        return userName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the position of the user with the given name, ignoring case.
+     *
+     * @param userName The name of the user.
+     * @return The position of the user, or -1 if no user in the list has that name.
+     */
+    public int indexOfName(String userName) {
+        compactRemovedUsers();
+        return findSlot(userName);
+    }
+
+    /**
+     * Returns the user with the given name, ignoring case.
+     *
+     * @param userName The name of the user.
+     * @return The user, or null if no user in the list has that name.
+     */
+    public User getUserByName(String userName) {
+        int slot = findSlot(userName);
+        return slot == -1 ? null : super.get(slot);
+    }
+
+    /**
+     * Removes the user with the same name as the given user, ignoring case, leaving an empty slot behind so
+     * that the users after it are not moved.
+     *
+     * @param user The user to remove.
+     * @return true if the user was in the list, false otherwise.
+     */
+    public boolean removeUser(User user) {
+        int slot = findSlot(user.getName());
+        if (slot == -1) {
+            return false;
+        }
+
+        unregisterName(super.set(slot, null), slot);
+        this.numberOfRemovedUsers += 1;
+        // empty slots at the end are dropped at once, as no user has to be moved to drop them
+        while (this.numberOfRemovedUsers > 0 && super.get(super.size() - 1) == null) {
+            super.remove(super.size() - 1);
+            this.numberOfRemovedUsers -= 1;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position of the user with the same name as the given user, ignoring case.
+     */
+    @Override
+    public int indexOf(Object user) {
+        if (!(user instanceof User)) {
+            return -1;
+        }
+        return indexOfName(((User) user).getName());
+    }
+
+    @Override
+    public int lastIndexOf(Object user) {
+        return indexOf(user);
+    }
+
+    @Override
+    public boolean contains(Object user) {
+        return user instanceof User && findSlot(((User) user).getName()) != -1;
+    }
+
+    @Override
+    public int size() {
+        return super.size() - this.numberOfRemovedUsers;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public User get(int index) {
+        compactRemovedUsers();
+        return super.get(index);
+    }
+
+    @Override
+    public boolean add(User user) {
+        super.add(user);
+        registerName(user, super.size() - 1);
+        return true;
+    }
+
+    @Override
+    public void add(int index, User user) {
+        compactRemovedUsers();
+        super.add(index, user);
+        rebuildNameIndex();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends User> users) {
+        for (User user : users) {
+            add(user);
+        }
+        return !users.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends User> users) {
+        compactRemovedUsers();
+        boolean isChanged = super.addAll(index, users);
+        rebuildNameIndex();
+        return isChanged;
+    }
+
+    @Override
+    public User set(int index, User user) {
+        compactRemovedUsers();
+        User replacedUser = super.set(index, user);
+        unregisterName(replacedUser, index);
+        registerName(user, index);
+        return replacedUser;
+    }
+
+    @Override
+    public User remove(int index) {
+        compactRemovedUsers();
+        User removedUser = super.remove(index);
+        rebuildNameIndex();
+        return removedUser;
+    }
+
+    @Override
+    public boolean remove(Object user) {
+        return user instanceof User && removeUser((User) user);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super User> filter) {
+        compactRemovedUsers();
+        boolean isRemoved = super.removeIf(filter);
+        if (isRemoved) {
+            rebuildNameIndex();
+        }
+        return isRemoved;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> users) {
+        return removeIf(users::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> users) {
+        return removeIf(user -> !users.contains(user));
+    }
+
+    @Override
+    public void sort(Comparator<? super User> comparator) {
+        compactRemovedUsers();
+        super.sort(comparator);
+        rebuildNameIndex();
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<User> operator) {
+        compactRemovedUsers();
+        super.replaceAll(operator);
+        rebuildNameIndex();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.positionsByName.clear();
+        this.numberOfRemovedUsers = 0;
+    }
+
+    @Override
+    public Iterator<User> iterator() {
+        compactRemovedUsers();
+        return super.iterator();
+    }
+
+    @Override
+    public ListIterator<User> listIterator() {
+        compactRemovedUsers();
+        return super.listIterator();
+    }
+
+    @Override
+    public ListIterator<User> listIterator(int index) {
+        compactRemovedUsers();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public Spliterator<User> spliterator() {
+        compactRemovedUsers();
+        return super.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        compactRemovedUsers();
+        super.forEach(action);
+    }
+
+    @Override
+    public List<User> subList(int fromIndex, int toIndex) {
+        compactRemovedUsers();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public Object[] toArray() {
+        compactRemovedUsers();
+        return super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] array) {
+        compactRemovedUsers();
+        return super.toArray(array);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        compactRemovedUsers();
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        compactRemovedUsers();
+        return super.hashCode();
+    }
+
+    /**
+     * Returns the slot holding the user with the given name, ignoring case, which is its position once the
+     * empty slots before it are closed up.
+     */
+    private int findSlot(String userName) {
+        Integer slot = this.positionsByName.get(normalizeName(userName));
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Closes up the slots left by removed users, moving the users after them forward in one pass.
+     */
+    private void compactRemovedUsers() {
+        if (this.numberOfRemovedUsers == 0) {
+            return;
+        }
+        this.numberOfRemovedUsers = 0;
+        super.removeIf(Objects::isNull);
+        rebuildNameIndex();
+    }
+
+    private void rebuildNameIndex() {
+        this.positionsByName.clear();
+        for (int i = 0; i < super.size(); i += 1) {
+            registerName(super.get(i), i);
+        }
+    }
+
+    /**
+     * Records the position of a user by name, unless the name is already used by an earlier user.
+     * A null placeholder, which is removed before the list is used again, is not recorded.
+     */
+    private void registerName(User user, int index) {
+        if (user != null) {
+            this.positionsByName.putIfAbsent(normalizeName(user.getName()), index);
+        }
+    }
+
+    private void unregisterName(User user, int index) {
+        if (user != null) {
+            this.positionsByName.remove(normalizeName(user.getName()), index);
+        }
+    }
+}
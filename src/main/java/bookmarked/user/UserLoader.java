@@ -0,0 +1,23 @@
+package bookmarked.user;
+
+/**
+ * Reads the books borrowed by a user from storage when they are needed, so that only the users
+ * who were used recently keep their borrowed books in memory.
+ */
+public interface UserLoader {
+    /**
+     * Makes sure the books borrowed by a user are in memory, reading them again if they were dropped,
+     * and marks the user as the most recently used.
+     *
+     * @param user The user whose books are about to be used.
+     */
+    void loadUserBooks(User user);
+
+    /**
+     * Stops dropping the books borrowed by a user, because they are about to be changed and the
+     * changes cannot be read back from storage until it is next rewritten.
+     *
+     * @param user The user whose books are about to be changed.
+     */
+    void keepUserBooks(User user);
+}
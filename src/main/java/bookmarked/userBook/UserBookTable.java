@@ -0,0 +1,221 @@
+package bookmarked.userbook;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Represents the books borrowed by a user, in the order they were borrowed, except that the last loan
+ * takes the place of a returned one so that no other loan has to move. Every loan is kept as
+ * the ID of the book and the epoch days of its borrow and return due dates, in primitive arrays,
+ * so that a loan takes a few tens of bytes rather than an object for the loan and each of its dates.
+ * Once a user borrows more than a few books, their loans are also indexed by book ID in an
+ * open-addressing table, so that a loan is found and removed in constant time when it is returned or extended.
+ */
+public class UserBookTable implements UserBookView {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MAX_LINEAR_SEARCH_SIZE = 8;
+    private static final int EMPTY_SLOT = 0;
+    private int[] bookIds;
+    private long[] borrowDays;
+    private long[] returnDueDays;
+    private int size;
+    // the position of the loan of every indexed book, plus one so that an empty slot is zero
+    private int[] slots;
+
+    public UserBookTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public UserBookTable(int capacity) {
+        int initialCapacity = Math.max(capacity, 1);
+        this.bookIds = new int[initialCapacity];
+        this.borrowDays = new long[initialCapacity];
+        this.returnDueDays = new long[initialCapacity];
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int getBookId(int position) {
+        return this.bookIds[checkPosition(position)];
+    }
+
+    @Override
+    public LocalDate getBorrowDate(int position) {
+        return LocalDate.ofEpochDay(this.borrowDays[checkPosition(position)]);
+    }
+
+    @Override
+    public LocalDate getReturnDueDate(int position) {
+        return LocalDate.ofEpochDay(this.returnDueDays[checkPosition(position)]);
+    }
+
+    public void setReturnDueDate(int position, LocalDate returnDueDate) {
+        this.returnDueDays[checkPosition(position)] = returnDueDate.toEpochDay();
+    }
+
+    @Override
+    public int indexOf(int bookId) {
+        if (this.slots == null) {
+            for (int i = 0; i < this.size; i += 1) {
+                if (this.bookIds[i] == bookId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mask = this.slots.length - 1;
+        for (int slot = hash(bookId) & mask; this.slots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+            int position = this.slots[slot] - 1;
+            if (this.bookIds[position] == bookId) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(int bookId) {
+        return indexOf(bookId) != -1;
+    }
+
+    /**
+     * Adds a loan after every other loan.
+     *
+     * @param bookId        The ID of the borrowed book.
+     * @param borrowDate    The date the book was borrowed.
+     * @param returnDueDate The date the book is due to be returned.
+     */
+    public void add(int bookId, LocalDate borrowDate, LocalDate returnDueDate) {
+        if (this.size == this.bookIds.length) {
+            int newCapacity = this.size * 2;
+            this.bookIds = Arrays.copyOf(this.bookIds, newCapacity);
+            this.borrowDays = Arrays.copyOf(this.borrowDays, newCapacity);
+            this.returnDueDays = Arrays.copyOf(this.returnDueDays, newCapacity);
+        }
+
+        this.bookIds[this.size] = bookId;
+        this.borrowDays[this.size] = borrowDate.toEpochDay();
+        this.returnDueDays[this.size] = returnDueDate.toEpochDay();
+        this.size += 1;
+        if (this.slots != null && this.size * 2 <= this.slots.length) {
+            indexPosition(this.size - 1);
+        } else {
+            rebuildSlots();
+        }
+    }
+
+    /**
+     * Removes a loan of a book, moving the last loan into its place.
+     *
+     * @param bookId The ID of the returned book.
+     * @return true if the user was borrowing the book, false otherwise.
+     */
+    public boolean remove(int bookId) {
+        int position = indexOf(bookId);
+        if (position == -1) {
+            return false;
+        }
+
+        int lastPosition = this.size - 1;
+        if (this.slots != null) {
+            removeSlot(findSlot(position));
+            if (position != lastPosition) {
+                this.slots[findSlot(lastPosition)] = position + 1;
+            }
+        }
+        this.bookIds[position] = this.bookIds[lastPosition];
+        this.borrowDays[position] = this.borrowDays[lastPosition];
+        this.returnDueDays[position] = this.returnDueDays[lastPosition];
+        this.size -= 1;
+        return true;
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= this.size) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of " + this.size + " loans");
+        }
+        return position;
+    }
+
+    private void rebuildSlots() {
+        if (this.size <= MAX_LINEAR_SEARCH_SIZE) {
+            this.slots = null;
+            return;
+        }
+
+        this.slots = new int[Integer.highestOneBit(this.size) * 4];
+        for (int i = 0; i < this.size; i += 1) {
+            indexPosition(i);
+        }
+    }
+
+    /**
+     * Records the position of a loan. Every loan has its own slot, even if the same book was borrowed twice,
+     * so that the slot of any loan can be moved or emptied when a loan is removed.
+     */
+    private void indexPosition(int position) {
+        int mask = this.slots.length - 1;
+        int slot = hash(this.bookIds[position]) & mask;
+        while (this.slots[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        this.slots[slot] = position + 1;
+    }
+
+    /**
+     * Returns the slot recording the given position.
+     */
+    private int findSlot(int position) {
+        int mask = this.slots.length - 1;
+        int slot = hash(this.bookIds[position]) & mask;
+        while (this.slots[slot] != position + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, moving later entries of the same probe sequence back so that they can still be found.
+     */
+    private void removeSlot(int slot) {
+        int mask = this.slots.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; this.slots[next] != EMPTY_SLOT; next = (next + 1) & mask) {
+            int home = hash(this.bookIds[this.slots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                this.slots[hole] = this.slots[next];
+                hole = next;
+            }
+        }
+        this.slots[hole] = EMPTY_SLOT;
+    }
+
+    private static int hash(int bookId) {
+        int mixed = bookId * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder userBookDetails = new StringBuilder("[");
+        for (int i = 0; i < this.size; i += 1) {
+            if (i > 0) {
+                userBookDetails.append(", ");
+            }
+            userBookDetails.append('[').append(this.bookIds[i])
+                    .append(", ").append(getBorrowDate(i))
+                    .append(", ").append(getReturnDueDate(i)).append(']');
+        }
+        return userBookDetails.append(']').toString();
+    }
+}
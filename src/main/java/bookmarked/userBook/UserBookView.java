@@ -0,0 +1,29 @@
+package bookmarked.userbook;
+
+import java.time.LocalDate;
+
+/**
+ * Gives read-only access to the books borrowed by a user, by their position in the order they were
+ * borrowed. Reading a loan through a view allocates nothing besides the dates that are asked for.
+ */
+public interface UserBookView {
+    int size();
+
+    boolean isEmpty();
+
+    int getBookId(int position);
+
+    LocalDate getBorrowDate(int position);
+
+    LocalDate getReturnDueDate(int position);
+
+    /**
+     * Returns the position of the first loan of a book.
+     *
+     * @param bookId The ID of the book.
+     * @return The position of the loan, or -1 if the user is not borrowing the book.
+     */
+    int indexOf(int bookId);
+
+    boolean contains(int bookId);
+}
@@ -3,8 +3,11 @@ package bookmarked;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 
 public class BookTest {
 
@@ -26,8 +29,88 @@ public class BookTest {
     @Test
     public void getBorrowedStatus_borrowed_returnFormattedString() {
         Book testBook = new Book("Test Book");
-        testBook.isBorrowed = true;
+        testBook.setNumberBorrowed(1);
         assertEquals(", borrowed", testBook.getBorrowedStatus());
     }
-}
 
+    @Test
+    public void setQuantities_bookAddedToListAndRemoved_quantitiesKept() {
+        Book book = new Book("Test Book");
+        book.setNumberTotal(5);
+        book.setNumberInInventory(3);
+        book.setNumberBorrowed(2);
+
+        BookList listOfBooks = new BookList();
+        listOfBooks.add(book);
+        book.setNumberOfLoans(2);
+        book.borrowBook();
+        listOfBooks.remove(0);
+
+        assertEquals(5, book.getNumberTotal());
+        assertEquals(2, book.getNumberInInventory());
+        assertEquals(3, book.getNumberBorrowed());
+        assertEquals(2, book.getNumberOfLoans());
+        assertNull(listOfBooks.getBookById(book.getBookId()));
+    }
+
+    @Test
+    public void getBookById_manyBooksDeletedAndCompacted_remainingBooksFound() {
+        BookList listOfBooks = new BookList();
+        for (int i = 0; i < 100; i += 1) {
+            Book book = new Book("Book " + i);
+            book.setNumberTotal(i);
+            listOfBooks.add(book);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            listOfBooks.delete(i);
+        }
+        listOfBooks.compact();
+        listOfBooks.add(new Book("Book 100"));
+
+        for (int bookId = 0; bookId < 100; bookId += 1) {
+            Book book = listOfBooks.getBookById(bookId);
+            if (bookId % 3 == 0) {
+                assertNull(book);
+            } else {
+                assertEquals("Book " + bookId, book.getName());
+                assertEquals(bookId, book.getNumberTotal());
+            }
+        }
+        assertEquals(100, listOfBooks.getBookById(100).getBookId());
+        assertTrue(listOfBooks.containsBookId(100));
+        assertEquals(67, listOfBooks.size());
+    }
+
+    @Test
+    public void getBooksInTitleRange_booksAddedRenamedAndDeleted_titlesInOrder() {
+        BookList listOfBooks = new BookList();
+        String[] titles = {"Persuasion", "Emma", "Moby Dick", "Dune", "Middlemarch", "Emma", "Oliver Twist"};
+        for (String title : titles) {
+            listOfBooks.add(new Book(title));
+        }
+        assertEquals("[Dune, Emma, Emma, Middlemarch, Moby Dick, Oliver Twist, Persuasion]",
+                getTitles(listOfBooks.getBooksInTitleOrder()));
+
+        listOfBooks.renameBook(listOfBooks.get(1), "Northanger Abbey");
+        listOfBooks.delete(2);
+        listOfBooks.add(new Book("Mansfield Park"));
+
+        assertEquals("[Dune, Emma, Mansfield Park, Middlemarch, Northanger Abbey, Oliver Twist, Persuasion]",
+                getTitles(listOfBooks.getBooksInTitleOrder()));
+        assertEquals("[Mansfield Park, Middlemarch, Northanger Abbey, Oliver Twist]",
+                getTitles(listOfBooks.getBooksInTitleRange("M", "P")));
+        assertEquals(listOfBooks.get(5), listOfBooks.getBooksInTitleRange(null, "F").get(1));
+
+        listOfBooks.compact();
+        assertEquals("[Dune, Emma, Mansfield Park, Middlemarch, Northanger Abbey, Oliver Twist, Persuasion]",
+                getTitles(listOfBooks.getBooksInTitleOrder()));
+    }
+
+    private static String getTitles(ArrayList<Book> books) {
+        ArrayList<String> titles = new ArrayList<>();
+        for (Book book : books) {
+            titles.add(book.getName());
+        }
+        return titles.toString();
+    }
+}
@@ -1,35 +1,38 @@
 package bookmarked.parser;
 
-import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.command.Command;
 import bookmarked.exceptions.BookMarkedException;
 import bookmarked.storage.BookStorage;
 import bookmarked.storage.UserStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
 
 import java.io.File;
-import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 public class ParserTest {
     private static final String TEST_FILE_PATH = "./test.txt";
     private static final String TEST_USER_FILE_PATH = "./userTest.txt";
-    private ArrayList<Book> listOfBooks;
+    private BookList listOfBooks;
     private String newItem;
     private File bookDataFile;
     private File userDataFile;
+    private StorageBackend storage;
     private String[] splitItem;
     private Command userCommand;
-    private ArrayList<User> listOfUsers;
+    private UserList listOfUsers;
 
     @BeforeEach
     public void init() {
-        listOfBooks = new ArrayList<>();
-        listOfUsers = new ArrayList<>();
+        listOfBooks = new BookList();
+        listOfUsers = new UserList();
         bookDataFile = BookStorage.createFile(TEST_FILE_PATH);
         userDataFile = UserStorage.createFile(TEST_USER_FILE_PATH);
+        storage = new TextStorageBackend(bookDataFile, userDataFile);
         userCommand = null;
     }
 
@@ -39,20 +42,20 @@ public class ParserTest {
         splitItem = newItem.split(" ");
 
         assertThrows(BookMarkedException.class, () -> {
-            Parser.parseCommand(newItem, userCommand, listOfBooks, bookDataFile, splitItem, listOfUsers, userDataFile);
+            Parser.parseCommand(newItem, userCommand, listOfBooks, storage, splitItem, listOfUsers);
         });
 
         newItem = "1";
         splitItem = newItem.split(" ");
 
         assertThrows(BookMarkedException.class, () -> {
-            Parser.parseCommand(newItem, userCommand, listOfBooks, bookDataFile, splitItem, listOfUsers, userDataFile);
+            Parser.parseCommand(newItem, userCommand, listOfBooks, storage, splitItem, listOfUsers);
         });
 
         newItem = "hello";
         splitItem = newItem.split(" ");
         assertThrows(BookMarkedException.class, () -> {
-            Parser.parseCommand(newItem, userCommand, listOfBooks, bookDataFile, splitItem, listOfUsers, userDataFile);
+            Parser.parseCommand(newItem, userCommand, listOfBooks, storage, splitItem, listOfUsers);
         });
     }
 
@@ -62,7 +65,7 @@ public class ParserTest {
         splitItem = newItem.split(" ");
 
         assertThrows(ArrayIndexOutOfBoundsException.class, () -> {
-            Parser.parseCommand(newItem, userCommand, listOfBooks, bookDataFile, splitItem, listOfUsers, userDataFile);
+            Parser.parseCommand(newItem, userCommand, listOfBooks, storage, splitItem, listOfUsers);
         });
     }
 
@@ -1,41 +1,56 @@
 package bookmarked.command;
 
-import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
 
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
-import java.util.ArrayList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class AddCommandTest {
 
     @Test
     public void addCommand_emptyArguments_exceptionThrown() {
-        ArrayList<Book> listOfBooks = new ArrayList<>();
-        File bookDataFile = null;
-        AddCommand addCommand = new AddCommand("", listOfBooks, bookDataFile);
+        BookList listOfBooks = new BookList();
+        StorageBackend storage = null;
+        AddCommand addCommand = new AddCommand("", listOfBooks, storage);
         assertThrows(IndexOutOfBoundsException.class, addCommand::handleCommand);
     }
 
     @Test
     public void addCommand_wrongQuantityFormat_exceptionThrown() {
-        ArrayList<Book> listOfBooks = new ArrayList<>();
-        AddCommand addCommand = new AddCommand("Book /quantity p", listOfBooks, new File("books.txt"));
+        BookList listOfBooks = new BookList();
+        StorageBackend storage = new TextStorageBackend(new File("books.txt"), new File("users.txt"));
+        AddCommand addCommand = new AddCommand("Book /quantity p", listOfBooks, storage);
         assertThrows(IndexOutOfBoundsException.class, addCommand::handleCommand);
     }
     @Test
     public void addCommand_maxIntNumber_exceptionThrown() {
-        ArrayList<Book> listOfBooks = new ArrayList<>();
-        AddCommand addCommand = new AddCommand("Book /quantity 10000", listOfBooks, new File("books.txt"));
+        BookList listOfBooks = new BookList();
+        StorageBackend storage = new TextStorageBackend(new File("books.txt"), new File("users.txt"));
+        AddCommand addCommand = new AddCommand("Book /quantity 10000", listOfBooks, storage);
         assertThrows(IndexOutOfBoundsException.class, addCommand::handleCommand);
     }
     @Test
     public void addCommand_negativeQuantity_exceptionThrown() {
-        ArrayList<Book> listOfBooks = new ArrayList<>();
-        AddCommand addCommand = new AddCommand("Book /quantity -1", listOfBooks, new File("books.txt"));
+        BookList listOfBooks = new BookList();
+        StorageBackend storage = new TextStorageBackend(new File("books.txt"), new File("users.txt"));
+        AddCommand addCommand = new AddCommand("Book /quantity -1", listOfBooks, storage);
         assertThrows(IndexOutOfBoundsException.class, addCommand::handleCommand);
     }
 
+    @Test
+    public void addCommand_existingTitle_copiesAdded() {
+        BookList listOfBooks = new BookList();
+        StorageBackend storage = new TextStorageBackend(new File("books.txt"), new File("users.txt"));
+        new AddCommand("add Dune Messiah /quantity 2", listOfBooks, storage).handleCommand();
+        new AddCommand("add Dune Messiah /quantity 3", listOfBooks, storage).handleCommand();
+
+        assertEquals(1, listOfBooks.size());
+        assertEquals(5, listOfBooks.getBookByTitle("Dune Messiah").getNumberTotal());
+    }
 }
@@ -1,35 +1,46 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.storage.JournalStorage;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
+import bookmarked.storage.WriteBehindPersister;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.Period;
-import java.util.ArrayList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class BorrowCommandTest {
     private static final Period DEFAULT_BORROW_PERIOD = Period.ofWeeks(2);
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<User> listOfUsers;
+    private BookList listOfBooks;
+    private UserList listOfUsers;
     private File bookDataFile;
     private File userDataFile;
+    private StorageBackend storage;
     private ByteArrayOutputStream outContent;
     private PrintStream originalOut;
 
     @BeforeEach
     public void setUp() {
-        listOfBooks = new ArrayList<>();
-        listOfUsers = new ArrayList<>();
+        listOfBooks = new BookList();
+        listOfUsers = new UserList();
         bookDataFile = new File("testBooks.txt");
         userDataFile = new File("testUsers.txt");
+        storage = new TextStorageBackend(bookDataFile, userDataFile);
         outContent = new ByteArrayOutputStream();
         originalOut = System.out;
         System.setOut(new PrintStream(outContent));
@@ -43,7 +54,7 @@ public class BorrowCommandTest {
     @Test
     public void borrowCommand_emptyBookList_printsEmptyListMessage() {
         String commandString = "borrow 1 /by Alice";
-        new BorrowCommand(listOfBooks, bookDataFile, listOfUsers, commandString, userDataFile).handleCommand();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
         String expectedOutput = "Please enter a book index that exists on the current list.";
         assertTrue(outContent.toString().contains(expectedOutput));
     }
@@ -51,7 +62,7 @@ public class BorrowCommandTest {
     /* @Test
     public void borrowCommand_successfulBorrowByBookName_printsSuccessMessage() {
         listOfBooks.add(new Book("Java Basics"));
-        User alice = new User("Alice", new ArrayList<>());
+        User alice = new User("Alice", new BookList());
         listOfUsers.add(alice);
 
         ByteArrayOutputStream outContent = new ByteArrayOutputStream();
@@ -59,7 +70,7 @@ public class BorrowCommandTest {
         System.setOut(new PrintStream(outContent));
 
         String commandString = "borrow Java Basics /by Alice";
-        new BorrowCommand(listOfBooks, bookDataFile, listOfUsers, commandString, userDataFile).handleCommand();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
 
         String actualOutput = outContent.toString().trim();
         System.setOut(originalOut);
@@ -83,7 +94,7 @@ public class BorrowCommandTest {
     @Test
     public void borrowCommand_nonExistingBook_printsBookNotFoundMessage() {
         String commandString = "borrow NonExistingBook /by Alice";
-        new BorrowCommand(listOfBooks, bookDataFile, listOfUsers, commandString, userDataFile).handleCommand();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
         String expectedOutput = "The book does not exist; try adding it to the library first.";
         assertTrue(outContent.toString().contains(expectedOutput));
     }
@@ -92,7 +103,7 @@ public class BorrowCommandTest {
     public void borrowCommand_bookAlreadyBorrowed_noAvailableCopies() {
 
         Book book = new Book("Java Basics");
-        book.borrowBook(LocalDate.now(), Period.ofWeeks(2)); // Alice borrows the book
+        book.borrowBook(); // Alice borrows the book
         listOfBooks.add(book);
 
         User alice = new User("Alice", listOfBooks);
@@ -100,7 +111,7 @@ public class BorrowCommandTest {
 
         String commandString = "borrow Java Basics /by John";
 
-        new BorrowCommand(listOfBooks, bookDataFile, listOfUsers, commandString, userDataFile).handleCommand();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
 
         String expectedOutput = "There are currently no available copies of the book in the inventory.";
         assertTrue(outContent.toString().contains(expectedOutput));
@@ -110,7 +121,7 @@ public class BorrowCommandTest {
     @Test
     public void borrowCommand_missingBookTitle_printsInvalidArgumentsMessage() {
         String commandString = "borrow /by Alice";
-        new BorrowCommand(listOfBooks, bookDataFile, listOfUsers, commandString, userDataFile).handleCommand();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
         String expectedOutput = "Please type in the correct arguments.";
         assertTrue(outContent.toString().contains(expectedOutput),
                 "Expected invalid arguments message not printed.");
@@ -120,10 +131,43 @@ public class BorrowCommandTest {
     public void borrowCommand_missingByKeyword_printsInvalidFormatMessage() {
         listOfBooks.add(new Book("Java Basics"));
         String commandString = "borrow Java Basics Alice";
-        new BorrowCommand(listOfBooks, bookDataFile, listOfUsers, commandString, userDataFile).handleCommand();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
         String expectedOutput = "Please type in the correct arguments";
         assertTrue(outContent.toString().contains(expectedOutput),
                 "Expected invalid format message not printed.");
     }
 
+    @Test
+    public void borrowCommand_newUser_committedInOneWrite() {
+        Book book = new Book("Java Basics");
+        book.setNumberInInventory(1);
+        book.setNumberTotal(1);
+        listOfBooks.add(book);
+        WriteBehindPersister persister = WriteBehindPersister.getPersister();
+        persister.flush();
+        long numberOfFileWritesBefore = persister.getNumberOfFileWrites();
+        String journalBefore = readJournal();
+
+        String commandString = "borrow Java Basics /by Alice";
+        new BorrowCommand(listOfBooks, storage, listOfUsers, commandString).handleCommand();
+        storage.getUnitOfWork().commit();
+        persister.flush();
+
+        assertEquals(1, persister.getNumberOfFileWrites() - numberOfFileWritesBefore);
+        String[] appendedRecords = readJournal().substring(journalBefore.length()).split("\n");
+        assertEquals(3, appendedRecords.length);
+        assertTrue(appendedRecords[0].startsWith("book | SET | Java Basics"));
+        assertTrue(appendedRecords[1].startsWith("user | SET | Alice"));
+        assertEquals("commit", appendedRecords[2]);
+    }
+
+    private String readJournal() {
+        try {
+            File journalFile = JournalStorage.getJournalFile(bookDataFile);
+            return journalFile.exists() ? Files.readString(journalFile.toPath()) : "";
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
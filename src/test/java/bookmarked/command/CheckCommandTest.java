@@ -0,0 +1,111 @@
+package bookmarked.command;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.arguments.StorageValidation;
+import bookmarked.user.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckCommandTest {
+
+    @Test
+    public void checkCommand_borrowedCopiesMatchLoans_noDrift() {
+        BookList listOfBooks = new BookList();
+        ArrayList<User> listOfUsers = new ArrayList<>();
+        Book book = createBook("Dune", 2, 1, listOfBooks);
+        User alice = new User("Alice", listOfBooks);
+        alice.borrowBook(book.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+        listOfUsers.add(alice);
+
+        assertEquals(1, book.getNumberOfLoans());
+        assertTrue(new CheckCommand(listOfBooks, listOfUsers).findBooksWithDrift().isEmpty());
+    }
+
+    @Test
+    public void checkCommand_borrowedCopiesWithoutLoans_driftReportedAndNotRepaired() {
+        BookList listOfBooks = new BookList();
+        ArrayList<User> listOfUsers = new ArrayList<>();
+        createBook("Dune", 2, 0, listOfBooks);
+        Book emma = createBook("Emma", 1, 1, listOfBooks);
+
+        CheckCommand checkCommand = new CheckCommand(listOfBooks, listOfUsers);
+        checkCommand.handleCommand();
+
+        assertEquals(1, checkCommand.findBooksWithDrift().size());
+        assertEquals(emma, checkCommand.findBooksWithDrift().get(0));
+        assertEquals(1, emma.getNumberBorrowed());
+    }
+
+    @Test
+    public void checkCommand_loanReturned_loanCounterFollows() {
+        BookList listOfBooks = new BookList();
+        ArrayList<User> listOfUsers = new ArrayList<>();
+        Book book = createBook("Dune", 2, 1, listOfBooks);
+        User alice = new User("Alice", listOfBooks);
+        alice.borrowBook(book.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+        listOfUsers.add(alice);
+
+        alice.unborrowBook(book.getBookId());
+        book.setReturned();
+
+        assertEquals(0, book.getNumberOfLoans());
+        assertTrue(new CheckCommand(listOfBooks, listOfUsers).findBooksWithDrift().isEmpty());
+    }
+
+    @Test
+    public void validateUsersAndBooksLists_loansCountedOnce_borrowedCopiesRepaired() {
+        BookList listOfBooks = new BookList();
+        ArrayList<User> listOfUsers = new ArrayList<>();
+        Book book = createBook("Dune", 3, 0, listOfBooks);
+        for (String userName : new String[] {"Alice", "Bob"}) {
+            User user = new User(userName, listOfBooks);
+            user.borrowBook(book.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+            listOfUsers.add(user);
+        }
+        book.setNumberOfLoans(0);
+
+        assertTrue(StorageValidation.validateUsersAndBooksLists(listOfUsers, listOfBooks));
+        assertEquals(2, book.getNumberBorrowed());
+        assertEquals(2, book.getNumberOfLoans());
+        assertTrue(new CheckCommand(listOfBooks, listOfUsers).findBooksWithDrift().isEmpty());
+    }
+
+    @Test
+    public void countLoans_bookAddedAfterCompaction_loansCountedByPosition() {
+        BookList listOfBooks = new BookList();
+        ArrayList<User> listOfUsers = new ArrayList<>();
+        createBook("Dune", 1, 0, listOfBooks);
+        createBook("Emma", 1, 0, listOfBooks);
+        listOfBooks.delete(0);
+        listOfBooks.compact();
+        // the new book is given the row freed by the deleted book, which is not its position
+        Book ulysses = createBook("Ulysses", 2, 2, listOfBooks);
+        for (String userName : new String[] {"Alice", "Bob"}) {
+            User user = new User(userName, listOfBooks);
+            user.borrowBook(ulysses.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+            listOfUsers.add(user);
+        }
+
+        int[] numbersOfLoans = listOfBooks.countLoans(listOfUsers);
+
+        assertEquals(2, numbersOfLoans.length);
+        assertEquals(0, numbersOfLoans[0]);
+        assertEquals(2, numbersOfLoans[1]);
+        assertTrue(new CheckCommand(listOfBooks, listOfUsers).findBooksWithDrift().isEmpty());
+    }
+
+    private static Book createBook(String title, int numberTotal, int numberBorrowed, BookList listOfBooks) {
+        Book book = new Book(title);
+        book.setNumberTotal(numberTotal);
+        book.setNumberBorrowed(numberBorrowed);
+        book.setNumberInInventory(numberTotal - numberBorrowed);
+        listOfBooks.add(book);
+        return book;
+    }
+}
@@ -1,30 +1,36 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.EmptyListException;
 import bookmarked.storage.BookStorage;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
+import bookmarked.storage.UserStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.io.File;
-import java.util.ArrayList;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DeleteCommandTest {
     private static final String TEST_FILE_PATH = "./testBooks.txt";
+    private static final String TEST_USER_FILE_PATH = "./testUsers.txt";
     private String userInput;
     private String[] splitInput;
-    private ArrayList<Book> listOfBooks;
-    private File bookDataFile;
+    private BookList listOfBooks;
+    private StorageBackend storage;
     private DeleteCommand userCommand;
 
     @BeforeEach
     public void init() {
-        listOfBooks = new ArrayList<>();
-        bookDataFile = BookStorage.createFile(TEST_FILE_PATH);
+        listOfBooks = new BookList();
+        storage = new TextStorageBackend(BookStorage.createFile(TEST_FILE_PATH),
+                UserStorage.createFile(TEST_USER_FILE_PATH));
         listOfBooks.add(new Book("book 1"));
         listOfBooks.add(new Book("book 2"));
         listOfBooks.add(new Book("book 3"));
@@ -35,7 +41,7 @@ public class DeleteCommandTest {
         userInput = "delete";
         splitInput = userInput.split("delete");
 
-        userCommand = new DeleteCommand(userInput, listOfBooks, bookDataFile);
+        userCommand = new DeleteCommand(userInput, listOfBooks, storage);
 
         assertThrows(EmptyArgumentsException.class, () -> {
             userCommand.processDeleteCommand(splitInput);
@@ -47,13 +53,13 @@ public class DeleteCommandTest {
         userInput = "delete          ";
         splitInput = userInput.split("delete");
 
-        userCommand = new DeleteCommand(userInput, listOfBooks, bookDataFile);
+        userCommand = new DeleteCommand(userInput, listOfBooks, storage);
         assertThrows(EmptyArgumentsException.class, () -> {
             userCommand.processDeleteCommand(splitInput);
         });
 
         userInput = "delete ";
-        userCommand = new DeleteCommand(userInput, listOfBooks, bookDataFile);
+        userCommand = new DeleteCommand(userInput, listOfBooks, storage);
         assertThrows(EmptyArgumentsException.class, () -> {
             userCommand.processDeleteCommand(splitInput);
         });
@@ -64,9 +70,9 @@ public class DeleteCommandTest {
         userInput = "delete 1";
         splitInput = userInput.split("delete");
 
-        listOfBooks = new ArrayList<>();
+        listOfBooks = new BookList();
 
-        userCommand = new DeleteCommand(userInput, listOfBooks, bookDataFile);
+        userCommand = new DeleteCommand(userInput, listOfBooks, storage);
         assertThrows(EmptyListException.class, () -> {
             userCommand.processDeleteCommand(splitInput);
         });
@@ -77,11 +83,49 @@ public class DeleteCommandTest {
         userInput = "delete 1";
         splitInput = userInput.split("delete");
 
-        int numberOfBooksBefore = listOfBooks.size();
-        userCommand = new DeleteCommand(userInput, listOfBooks, bookDataFile);
+        int numberOfBooksBefore = listOfBooks.getNumberOfBooks();
+        userCommand = new DeleteCommand(userInput, listOfBooks, storage);
         userCommand.handleCommand();
-        int numberOfBooksAfter = listOfBooks.size();
+        int numberOfBooksAfter = listOfBooks.getNumberOfBooks();
 
         assertEquals(numberOfBooksBefore - 1, numberOfBooksAfter);
     }
+
+    @Test
+    public void handleCommand_deleteTwoBooks_laterBookKeepsItsNumber() {
+        Book thirdBook = listOfBooks.get(2);
+
+        new DeleteCommand("delete 2", listOfBooks, storage).handleCommand();
+        new DeleteCommand("delete 3", listOfBooks, storage).handleCommand();
+
+        assertTrue(thirdBook.isDeleted());
+        assertEquals(3, listOfBooks.size());
+        assertEquals(1, listOfBooks.getNumberOfBooks());
+        assertNull(listOfBooks.getBookById(thirdBook.getBookId()));
+    }
+
+    @Test
+    public void handleCommand_deletedBookNumber_bookNotDeletedAgain() {
+        new DeleteCommand("delete 2", listOfBooks, storage).handleCommand();
+        new DeleteCommand("delete 2", listOfBooks, storage).handleCommand();
+
+        assertEquals(2, listOfBooks.getNumberOfBooks());
+    }
+
+    @Test
+    public void compactIfNeeded_mostBooksDeleted_remainingBooksMovedForward() {
+        Book firstBook = listOfBooks.get(0);
+        Book thirdBook = listOfBooks.get(2);
+        listOfBooks.add(new Book("book 4"));
+
+        new DeleteCommand("delete 2", listOfBooks, storage).handleCommand();
+        assertFalse(listOfBooks.compactIfNeeded());
+        new DeleteCommand("delete 4", listOfBooks, storage).handleCommand();
+
+        assertTrue(listOfBooks.compactIfNeeded());
+        assertEquals(2, listOfBooks.size());
+        assertEquals(firstBook, listOfBooks.get(0));
+        assertEquals(thirdBook, listOfBooks.get(1));
+        assertEquals(thirdBook, listOfBooks.getBookById(thirdBook.getBookId()));
+    }
 }
@@ -1,10 +1,13 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.storage.UserStorage;
 import bookmarked.user.User;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.storage.BookStorage;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -21,18 +24,20 @@ public class EditCommandTest {
     private int bookNumberToEdit;
     private String userInput;
     private EditCommand userCommand;
-    private ArrayList<Book> listOfBooks;
+    private BookList listOfBooks;
     private ArrayList<User> listOfUsers;
     private File bookDataFile;
     private File userDataFile;
+    private StorageBackend storage;
     private String bookToEditArgument;
 
     @BeforeEach
     public void init() {
-        listOfBooks = new ArrayList<>();
+        listOfBooks = new BookList();
         listOfUsers = new ArrayList<>();
         bookDataFile = BookStorage.createFile(BOOK_FILE_PATH);
         userDataFile = UserStorage.createFile(USER_FILE_PATH);
+        storage = new TextStorageBackend(bookDataFile, userDataFile);
         listOfBooks.add(new Book("book 1"));
         listOfBooks.add(new Book("book 2"));
         listOfBooks.add(new Book("book 3"));
@@ -42,7 +47,7 @@ public class EditCommandTest {
     @Test
     public void handleEditTitle_spaceBookName_emptyArgumentException() {
         userInput = "edit 1 /title ";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
         bookToEdit = listOfBooks.get(bookNumberToEdit - 1);
 
         assertThrows(EmptyArgumentsException.class, () -> {
@@ -50,7 +55,7 @@ public class EditCommandTest {
         });
 
         userInput = "edit 1 /title             ";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
         assertThrows(EmptyArgumentsException.class, () -> {
             userCommand.handleEditTitle(bookToEdit);
         });
@@ -59,7 +64,7 @@ public class EditCommandTest {
     @Test
     public void handleEditTitle_emptyBookName_stringIndexOutOfBoundsException() {
         userInput = "edit 1 /title";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
         bookToEdit = listOfBooks.get(bookNumberToEdit - 1);
 
         assertThrows(StringIndexOutOfBoundsException.class, () -> {
@@ -70,28 +75,28 @@ public class EditCommandTest {
     @Test
     public void getBookNumberToEdit_nonIntegerBookNumber_numberFormatExceptionCaught() {
         userInput = "edit x /title book";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
 
         assertThrows(NumberFormatException.class, () -> {
             userCommand.getBookNumberToEdit("x");
         });
 
         userInput = "edit #*? /title book";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
 
         assertThrows(NumberFormatException.class, () -> {
             userCommand.getBookNumberToEdit("#*?");
         });
 
         userInput = "edit 1.5 /title book";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
 
         assertThrows(NumberFormatException.class, () -> {
             userCommand.getBookNumberToEdit("1.5");
         });
 
         userInput = "edit   /title book";
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
 
         assertThrows(NumberFormatException.class, () -> {
             userCommand.getBookNumberToEdit("  ");
@@ -102,7 +107,7 @@ public class EditCommandTest {
     public void getBookToEdit_invalidIntegerBookNumber_indexOutOfBoundsExceptionCaught() {
         userInput = "edit 10 /title book";
         bookNumberToEdit = 10;
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
         boolean isInputIndex = true;
 
         bookToEditArgument = "10";
@@ -112,7 +117,7 @@ public class EditCommandTest {
 
         userInput = "edit 0 /title book";
         bookNumberToEdit = 0;
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
 
         bookToEditArgument = "0";
         assertThrows(IndexOutOfBoundsException.class, () -> {
@@ -121,7 +126,7 @@ public class EditCommandTest {
 
         userInput = "edit -5 /title book";
         bookNumberToEdit = -5;
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile, listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
 
         bookToEditArgument = "-5";
         assertThrows(IndexOutOfBoundsException.class, () -> {
@@ -136,7 +141,7 @@ public class EditCommandTest {
         Book book2 = listOfBooks.get(1);
         Book book3 = listOfBooks.get(2);
 
-        userCommand = new EditCommand(userInput, listOfBooks, bookDataFile, userDataFile,listOfUsers);
+        userCommand = new EditCommand(userInput, listOfBooks, storage, listOfUsers);
         userCommand.handleCommand();
         Book bookAfterEdit = listOfBooks.get(bookNumberToEdit - 1);
         Book book2AfterEdit = listOfBooks.get(1);
@@ -148,4 +153,14 @@ public class EditCommandTest {
         assertEquals(book2.getName(), book2AfterEdit.getName());
         assertEquals(book3.getName(), book3AfterEdit.getName());
     }
+
+    @Test
+    public void handleCommand_editByTitle_bookFoundByNewTitleOnly() {
+        userCommand = new EditCommand("edit book 2 /title book 2 revised", listOfBooks, storage, listOfUsers);
+        userCommand.handleCommand();
+
+        assertEquals("book 2 revised", listOfBooks.get(1).getName());
+        assertEquals(1, listOfBooks.indexOfTitle("book 2 revised"));
+        assertEquals(-1, listOfBooks.indexOfTitle("book 2"));
+    }
 }
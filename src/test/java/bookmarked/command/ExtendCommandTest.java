@@ -1,35 +1,38 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.File;
 import java.time.LocalDate;
-import java.time.Period ;
-import java.util.ArrayList;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ExtendCommandTest {
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<User> listOfUsers;
+    private BookList listOfBooks;
+    private UserList listOfUsers;
     private File bookDataFile;
     private File userDataFile;
+    private StorageBackend storage;
     private Book borrowedBook;
     private User currentUser;
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
 
     @BeforeEach
     public void setUp() {
-        listOfBooks = new ArrayList<>();
-        listOfUsers = new ArrayList<>();
+        listOfBooks = new BookList();
+        listOfUsers = new UserList();
         bookDataFile = new File("testBooks.txt");
         userDataFile = new File("testUsers.txt");
+        storage = new TextStorageBackend(bookDataFile, userDataFile);
         borrowedBook = new Book("Borrowed Book");
-        Period borrowPeriod = Period.ofDays(14); // Assuming you want to borrow for 14 days
-        borrowedBook.borrowBook(LocalDate.now(), borrowPeriod);
+        borrowedBook.borrowBook();
         currentUser = new User("Alice", listOfBooks);
         listOfBooks.add(borrowedBook);
         listOfUsers.add(currentUser);
@@ -40,7 +43,7 @@ public class ExtendCommandTest {
     public void extendCommand_borrowedBook_extensionSuccessful() {
         currentUser.borrowBook(0, LocalDate.now(), LocalDate.now().plusWeeks(2));
         String commandString = "extend Borrowed Book /by Alice";
-        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, storage, listOfUsers);
         command.handleCommand();
 
         String expectedOutput = "The borrowing period for 'Borrowed Book' has been successfully extended by one week";
@@ -53,7 +56,7 @@ public class ExtendCommandTest {
         Book notBorrowedBook = new Book("Not Borrowed Book");
         listOfBooks.add(notBorrowedBook);
         String commandString = "extend Not Borrowed Book /by Alice";
-        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, storage, listOfUsers);
         command.handleCommand();
 
         String expectedOutput = "Alice has not borrowed this book. Nothing to extend.";
@@ -64,7 +67,7 @@ public class ExtendCommandTest {
     @Test
     public void extendCommand_bookNotFound_printsBookNotFoundExceptionMessage() {
         String commandString = "extend Nonexistent Book /by Alice";
-        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, storage, listOfUsers);
         command.handleCommand();
 
         String expectedOutput = "The book does not exist; try adding it to the library first.";
@@ -75,7 +78,7 @@ public class ExtendCommandTest {
     @Test
     public void extendCommand_noArgumentsProvided_printsEmptyArgumentsMessage() {
         String commandString = "extend /by Alice";
-        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, storage, listOfUsers);
         command.handleCommand();
 
         String expectedOutput = "Please type in the correct arguments.";
@@ -86,7 +89,7 @@ public class ExtendCommandTest {
     @Test
     public void extendCommand_noUserProvided_printsUserNotFoundExceptionMessage() {
         String commandString = "extend Borrowed Book /by ";
-        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, bookDataFile, listOfUsers, userDataFile);
+        ExtendCommand command = new ExtendCommand(commandString, listOfBooks, storage, listOfUsers);
         command.handleCommand();
 
         String expectedOutput = "Please type in the correct arguments.";
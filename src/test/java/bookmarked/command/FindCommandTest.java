@@ -1,23 +1,27 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 
 import bookmarked.user.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FindCommandTest {
-    private ArrayList<Book> listOfBooks;
+    private BookList listOfBooks;
     private ArrayList<User> listOfUsers;
     private Command userCommand;
     private String userInput;
 
     @BeforeEach
     public void init() {
-        listOfBooks = new ArrayList<>();
+        listOfBooks = new BookList();
         listOfUsers = new ArrayList<>();
     }
     @Test
@@ -47,7 +51,7 @@ public class FindCommandTest {
 
     @Test
     public void handleCommand_keywordNoMatch_numberOfBookFoundZero() {
-        ArrayList<Book> listOfBook = new ArrayList<>();
+        BookList listOfBook = new BookList();
         userInput = "find /by book nomatch";
         FindCommand userCommand = new FindCommand(userInput, listOfBook, listOfUsers);
         userCommand.handleCommand();
@@ -75,4 +79,28 @@ public class FindCommandTest {
         numberOfBookFound = userCommand2.getNumberOfBookFound();
         assertEquals(1, numberOfBookFound);
     }
+
+    @Test
+    public void findBorrowers_loansBorrowedAndReturned_currentBorrowersFound() {
+        Book dune = new Book("Dune");
+        Book emma = new Book("Emma");
+        listOfBooks.add(dune);
+        listOfBooks.add(emma);
+        for (String userName : new String[] {"Carol", "Alice", "Bob"}) {
+            User user = new User(userName, listOfBooks);
+            user.borrowBook(dune.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+            listOfUsers.add(user);
+        }
+        listOfUsers.get(2).unborrowBook(dune.getBookId());
+
+        FindBorrowerCommand findBorrowerCommand = new FindBorrowerCommand(listOfBooks, listOfUsers, "Dune");
+        ArrayList<User> borrowers = findBorrowerCommand.findBorrowers(dune);
+
+        assertEquals(2, borrowers.size());
+        assertEquals("Alice", borrowers.get(0).getName());
+        assertEquals("Carol", borrowers.get(1).getName());
+        assertTrue(findBorrowerCommand.findBorrowers(emma).isEmpty());
+        assertTrue(listOfBooks.getLoanRegistry().hasBorrowed(listOfUsers.get(0), dune.getBookId()));
+        assertFalse(listOfBooks.getLoanRegistry().hasBorrowed(listOfUsers.get(2), dune.getBookId()));
+    }
 }
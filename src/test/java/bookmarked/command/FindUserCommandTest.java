@@ -1,6 +1,6 @@
 package bookmarked.command;
 
-import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.exceptions.EmptyUserListException;
 import bookmarked.user.User;
 import org.junit.jupiter.api.Test;
@@ -25,7 +25,7 @@ public class FindUserCommandTest {
     public void findUserCommand_userNotFound() throws EmptyUserListException {
         ByteArrayOutputStream outputWord = new ByteArrayOutputStream();
         System.setOut(new PrintStream(outputWord));
-        ArrayList<Book> listOfBooks = new ArrayList<>();
+        BookList listOfBooks = new BookList();
         ArrayList<User> userList = new ArrayList<>();
         User a = new User("Tom", listOfBooks);
         userList.add(a);
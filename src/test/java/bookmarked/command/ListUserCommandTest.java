@@ -1,13 +1,19 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.user.User;
 import bookmarked.exceptions.EmptyArgumentsException;
 import bookmarked.exceptions.EmptyUserListException;
 import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ListUserCommandTest {
 
@@ -28,5 +34,38 @@ public class ListUserCommandTest {
         assertThrows(EmptyArgumentsException.class, listAll::parseCommand);
     }
 
+    @Test
+    public void listUserCommand_usersBorrowingSameBook_eachUserShowsOwnDates() {
+        BookList listOfBooks = new BookList();
+        for (String title : new String[] {"Dune", "Emma", "Poe"}) {
+            listOfBooks.add(new Book(title));
+        }
+        User alice = new User("Alice", listOfBooks);
+        alice.borrowBook(0, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+        alice.borrowBook(1, LocalDate.of(2024, 4, 2), LocalDate.of(2024, 4, 16));
+        alice.borrowBook(2, LocalDate.of(2024, 4, 3), LocalDate.of(2024, 4, 17));
+        User bob = new User("Bob", listOfBooks);
+        bob.borrowBook(0, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 15));
+        ArrayList<User> listOfUsers = new ArrayList<>();
+        listOfUsers.add(alice);
+        listOfUsers.add(bob);
+        listOfBooks.delete(1);
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        try {
+            new ListUserCommand(listOfUsers).handleCommand();
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        String output = outContent.toString();
+        assertTrue(output.contains("1. Dune, Borrowed on: 2024-04-01, Return by: 2024-04-15"));
+        assertTrue(output.contains("2. Poe, Borrowed on: 2024-04-03, Return by: 2024-04-17"));
+        assertTrue(output.contains("1. Dune, Borrowed on: 2024-05-01, Return by: 2024-05-15"));
+        assertEquals(-1, output.indexOf("Emma"));
+    }
+
 
 }
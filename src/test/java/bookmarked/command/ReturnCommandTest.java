@@ -1,7 +1,12 @@
 package bookmarked.command;
 
 import bookmarked.Book;
+import bookmarked.BookList;
 import bookmarked.user.User;
+import bookmarked.user.UserList;
+import bookmarked.userbook.UserBookView;
+import bookmarked.storage.StorageBackend;
+import bookmarked.storage.TextStorageBackend;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
@@ -10,24 +15,28 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.File;
 import java.time.LocalDate;
-import java.util.ArrayList;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ReturnCommandTest {
-    private ArrayList<Book> listOfBooks;
-    private ArrayList<User> listOfUsers;
+    private BookList listOfBooks;
+    private UserList listOfUsers;
     private File dummyBookDataFile;
     private File dummyUserDataFile;
+    private StorageBackend storage;
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
     private final PrintStream originalOut = System.out;
 
     @BeforeEach
     public void setUp() {
-        listOfBooks = new ArrayList<>();
-        listOfUsers = new ArrayList<>();
+        listOfBooks = new BookList();
+        listOfUsers = new UserList();
         dummyBookDataFile = new File("./testBooks.txt");
         dummyUserDataFile = new File("./testUsers.txt");
+        storage = new TextStorageBackend(dummyBookDataFile, dummyUserDataFile);
         System.setOut(new PrintStream(outContent));
     }
 
@@ -44,14 +53,14 @@ public class ReturnCommandTest {
         // Arrange
         Book book = new Book("Java Basics");
         listOfBooks.add(book);
-        int bookIndex = listOfBooks.indexOf(book);
+        int bookId = book.getBookId();
         User user = new User("Alice", listOfBooks);
         listOfUsers.add(user);
 
         // Set the borrow and return dates for the book to be in the past to simulate an overdue return
         LocalDate borrowDate = LocalDate.now().minusDays(30); // Borrowed 30 days ago
         LocalDate returnDueDate = borrowDate.plusWeeks(2); // Should have been returned 2 weeks ago
-        user.borrowBook(bookIndex, borrowDate, returnDueDate);
+        user.borrowBook(bookId, borrowDate, returnDueDate);
 
         // Capture output
         ByteArrayOutputStream outContent = new ByteArrayOutputStream();
@@ -59,7 +68,7 @@ public class ReturnCommandTest {
 
         // Act
         ReturnCommand returnCommand = new ReturnCommand("return Java Basics /by Alice",
-                listOfBooks, dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                listOfBooks, storage, listOfUsers);
         returnCommand.handleCommand();
 
         // Assert
@@ -73,10 +82,90 @@ public class ReturnCommandTest {
 
 
 
+    @Test
+    public void returnCommand_lastBookReturnedByNameInOtherCase_userRemoved() {
+        Book book = new Book("Java Basics");
+        listOfBooks.add(book);
+        for (String userName : new String[] {"Alice", "Bob", "Carol"}) {
+            User user = new User(userName, listOfBooks);
+            user.borrowBook(book.getBookId(), LocalDate.now(), LocalDate.now().plusWeeks(2));
+            listOfUsers.add(user);
+        }
+
+        new ReturnCommand("return Java Basics /by alice", listOfBooks, storage, listOfUsers).handleCommand();
+
+        assertTrue(outContent.toString().contains("Returned Java Basics!"));
+        assertEquals(2, listOfUsers.size());
+        assertNull(listOfUsers.getUserByName("Alice"));
+        assertEquals("Carol", listOfUsers.getUserByName("CAROL").getName());
+        assertEquals("Bob", listOfUsers.getUserByName("bob").getName());
+        assertEquals("Bob", listOfUsers.get(0).getName());
+        assertEquals(1, listOfUsers.indexOfName("Carol"));
+    }
+
+    @Test
+    public void returnCommand_usersRemovedOneAfterAnother_otherUsersFoundAndKeptInOrder() {
+        Book book = new Book("Java Basics");
+        listOfBooks.add(book);
+        for (String userName : new String[] {"Alice", "Bob", "Carol", "Dave", "Eve"}) {
+            User user = new User(userName, listOfBooks);
+            user.borrowBook(book.getBookId(), LocalDate.now(), LocalDate.now().plusWeeks(2));
+            listOfUsers.add(user);
+        }
+
+        new ReturnCommand("return Java Basics /by Bob", listOfBooks, storage, listOfUsers).handleCommand();
+        new ReturnCommand("return Java Basics /by dave", listOfBooks, storage, listOfUsers).handleCommand();
+
+        assertEquals(3, listOfUsers.size());
+        assertEquals("Eve", listOfUsers.getUserByName("EVE").getName());
+        assertTrue(listOfUsers.contains(new User("carol", listOfBooks)));
+        assertFalse(listOfUsers.contains(new User("Dave", listOfBooks)));
+        assertEquals(2, listOfUsers.indexOfName("eve"));
+        String[] userNames = new String[listOfUsers.size()];
+        int position = 0;
+        for (User user : listOfUsers) {
+            userNames[position] = user.getName();
+            position += 1;
+        }
+        assertEquals("Alice Carol Eve", String.join(" ", userNames));
+        assertEquals(new User("ALICE", listOfBooks), listOfUsers.get(0));
+        assertFalse(listOfUsers.get(0).equals("Alice"));
+    }
+
+    @Test
+    public void returnCommand_manyBooksBorrowed_lastLoanMovedIntoReturnedPlace() {
+        User user = new User("Alice", listOfBooks);
+        listOfUsers.add(user);
+        LocalDate borrowDate = LocalDate.of(2024, 4, 1);
+        for (int i = 1; i <= 12; i += 1) {
+            Book book = new Book("Book " + i);
+            listOfBooks.add(book);
+            user.borrowBook(book.getBookId(), borrowDate.plusDays(i), borrowDate.plusDays(i).plusWeeks(2));
+        }
+        int extendedBookId = listOfBooks.getBookByTitle("Book 12").getBookId();
+        user.extendDueDate(extendedBookId);
+
+        new ReturnCommand("return Book 3 /by Alice", listOfBooks, storage, listOfUsers).handleCommand();
+        new ReturnCommand("return Book 11 /by Alice", listOfBooks, storage, listOfUsers).handleCommand();
+
+        UserBookView userBooks = user.getUserBooks();
+        assertEquals(10, userBooks.size());
+        assertFalse(userBooks.contains(listOfBooks.getBookByTitle("Book 3").getBookId()));
+        assertFalse(userBooks.contains(listOfBooks.getBookByTitle("Book 11").getBookId()));
+        assertEquals(listOfBooks.getBookByTitle("Book 4").getBookId(), userBooks.getBookId(3));
+        int extendedPosition = userBooks.indexOf(extendedBookId);
+        assertEquals(2, extendedPosition);
+        assertEquals(LocalDate.of(2024, 5, 4), userBooks.getReturnDueDate(extendedPosition));
+        assertEquals(LocalDate.of(2024, 4, 13), userBooks.getBorrowDate(extendedPosition));
+        for (int i = 0; i < userBooks.size(); i += 1) {
+            assertEquals(i, userBooks.indexOf(userBooks.getBookId(i)));
+        }
+    }
+
     @Test
     public void returnCommand_emptyBookList_printsEmptyListMessage() {
         ReturnCommand returnCommand = new ReturnCommand("return Java Basics /by Alice",
-                listOfBooks, dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                listOfBooks, storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "The book does not exist; try adding it to the library first.";
@@ -88,7 +177,7 @@ public class ReturnCommandTest {
         listOfBooks.add(new Book("Java Basics"));
 
         ReturnCommand returnCommand = new ReturnCommand("return /by", listOfBooks,
-                dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "Please type in the correct arguments";
@@ -101,7 +190,7 @@ public class ReturnCommandTest {
         listOfBooks.add(new Book("Java Basics"));
 
         ReturnCommand returnCommand = new ReturnCommand("return NonExistingBook /by Alice",
-                listOfBooks, dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                listOfBooks, storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "The book does not exist; try adding it to the library first.";
@@ -115,7 +204,7 @@ public class ReturnCommandTest {
         listOfBooks.add(book);
 
         ReturnCommand returnCommand = new ReturnCommand("return Java Basics /by NonExistingUser",
-                listOfBooks, dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                listOfBooks, storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "No such user exists. Please input the name of an existing user instead.";
@@ -136,7 +225,7 @@ public class ReturnCommandTest {
         user.borrowBook(bookIndex, borrowDate, returnDueDate);
 
         ReturnCommand returnCommand = new ReturnCommand("return 2 /by Alice", listOfBooks,
-                dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "Please enter a book index that exists on the current list.";
@@ -148,7 +237,7 @@ public class ReturnCommandTest {
     @Test
     public void returnCommand_missingBookTitle_printsEmptyArgumentsMessage() {
         ReturnCommand returnCommand = new ReturnCommand("return /by Alice", listOfBooks,
-                dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "Please type in the correct arguments.";
@@ -159,11 +248,11 @@ public class ReturnCommandTest {
     @Test
     public void returnCommand_missingByKeyword_printsInvalidStringExceptionMessage() {
         listOfBooks.add(new Book("Java Basics"));
-        User alice = new User("Alice", new ArrayList<>());
+        User alice = new User("Alice", new BookList());
         listOfUsers.add(alice);
 
         ReturnCommand returnCommand = new ReturnCommand("return Java Basics Alice",
-                listOfBooks, dummyBookDataFile, listOfUsers, dummyUserDataFile);
+                listOfBooks, storage, listOfUsers);
         returnCommand.handleCommand();
 
         String expectedMessage = "Please type in the correct arguments.";
@@ -0,0 +1,56 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryBookStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void readFileStorage_encodedCatalog_sameBooks() throws IOException {
+        ArrayList<Book> listOfBooks = new ArrayList<>();
+        listOfBooks.add(new Book("Dune"));
+        listOfBooks.add(new Book("\u00c9mile"));
+        File catalogFile = this.tempDir.resolve("book.bin").toFile();
+        Files.write(catalogFile.toPath(), BinaryBookStorage.encodeCatalog(listOfBooks));
+
+        BookList readBooks = BinaryBookStorage.readFileStorage(catalogFile);
+
+        assertEquals(2, readBooks.size());
+        assertEquals("\u00c9mile", readBooks.get(1).getName());
+    }
+
+    @Test
+    public void readFileStorage_countTooLargeForFile_catalogRejected() throws IOException {
+        ArrayList<Book> listOfBooks = new ArrayList<>();
+        listOfBooks.add(new Book("Dune"));
+        byte[] catalog = BinaryBookStorage.encodeCatalog(listOfBooks);
+        File catalogFile = this.tempDir.resolve("book.bin").toFile();
+
+        // each count makes the offset of the titles overflow, or point past the end of the file
+        int[] corruptCounts = {Integer.MAX_VALUE, 0x0AAAAAAB, 2};
+        for (int corruptCount : corruptCounts) {
+            ByteBuffer.wrap(catalog).putInt(4, corruptCount);
+            Files.write(catalogFile.toPath(), catalog);
+
+            BookList readBooks = BinaryBookStorage.readFileStorage(catalogFile);
+
+            assertTrue(readBooks.isEmpty());
+            assertTrue(BookStorage.hasRepairedBooks());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package bookmarked.storage;
+
+import bookmarked.BookList;
+import bookmarked.command.AddCommand;
+import bookmarked.command.BorrowCommand;
+import bookmarked.command.DeleteCommand;
+import bookmarked.command.ReturnCommand;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DatabaseStorageBackendTest {
+    private static int numberOfDatabases = 0;
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private String databaseUrl;
+    // keeps the in-memory database open between the backends of a test, which each close their own connection
+    private Connection keepAliveConnection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        numberOfDatabases += 1;
+        this.databaseUrl = "jdbc:h2:mem:bookmarked" + numberOfDatabases;
+        this.keepAliveConnection = DriverManager.getConnection(this.databaseUrl);
+        System.setOut(new PrintStream(this.outContent));
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        this.keepAliveConnection.close();
+        System.setOut(this.originalOut);
+    }
+
+    @Test
+    public void databaseBackend_borrowReturnAndDelete_changesKeptAcrossLoads() {
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        DatabaseStorageBackend storage = load(listOfBooks, listOfUsers);
+        new AddCommand("add Dune /quantity 2", listOfBooks, storage).handleCommand();
+        new AddCommand("add Emma", listOfBooks, storage).handleCommand();
+        storage.getUnitOfWork().commit();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, "borrow Dune /by Alice").handleCommand();
+        storage.getUnitOfWork().commit();
+        new BorrowCommand(listOfBooks, storage, listOfUsers, "borrow Emma /by Bob").handleCommand();
+        storage.getUnitOfWork().commit();
+        storage.close(listOfBooks, listOfUsers);
+
+        listOfBooks = new BookList();
+        listOfUsers = new UserList();
+        storage = load(listOfBooks, listOfUsers);
+        assertEquals(2, listOfBooks.size());
+        assertEquals(1, listOfBooks.getBookByTitle("Dune").getNumberBorrowed());
+        assertEquals(2, listOfUsers.size());
+        User alice = listOfUsers.getUserByName("Alice");
+        assertEquals(listOfBooks.getBookByTitle("Dune").getBookId(), alice.getUserBooks().getBookId(0));
+        assertEquals(LocalDate.now(), alice.getUserBooks().getBorrowDate(0));
+
+        new ReturnCommand("return Dune /by Alice", listOfBooks, storage, listOfUsers).handleCommand();
+        storage.getUnitOfWork().commit();
+        new DeleteCommand("delete 1 /quantity 2", listOfBooks, storage).handleCommand();
+        storage.getUnitOfWork().commit();
+        storage.close(listOfBooks, listOfUsers);
+
+        listOfBooks = new BookList();
+        listOfUsers = new UserList();
+        storage = load(listOfBooks, listOfUsers);
+        storage.close(listOfBooks, listOfUsers);
+        assertNull(listOfBooks.getBookByTitle("Dune"));
+        assertEquals(1, listOfBooks.getBookByTitle("Emma").getNumberOfLoans());
+        assertEquals(1, listOfUsers.size());
+        assertEquals("Bob", listOfUsers.get(0).getName());
+    }
+
+    @Test
+    public void databaseBackend_invalidAndMergedRows_loadedAndWrittenBack() throws SQLException {
+        load(new BookList(), new UserList()).close(new BookList(), new UserList());
+        try (Statement statement = this.keepAliveConnection.createStatement()) {
+            statement.execute("INSERT INTO books VALUES (1, 'Dune', 3, 3, 0), (2, 'Emma', 1, 0, 1)");
+            statement.execute("INSERT INTO users VALUES ('Alice', 0), ('alice', 1), ('Carol', 2)");
+            statement.execute("INSERT INTO loans VALUES ('Alice', 0, 1, '2024-04-01', '2024-04-15'), "
+                    + "('alice', 0, 1, '2024-04-02', '2024-04-16'), ('alice', 1, 2, '2024-04-03', '2024-04-17'), "
+                    + "('Carol', 0, 1, '2024-04-01', 'not a date'), ('Dave', 0, 1, '2024-04-01', '2024-04-15')");
+        }
+
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        load(listOfBooks, listOfUsers).close(listOfBooks, listOfUsers);
+
+        assertEquals(1, listOfUsers.size());
+        User alice = listOfUsers.get(0);
+        assertEquals("Alice", alice.getName());
+        assertEquals(2, alice.getUserBooks().size());
+        assertEquals(LocalDate.of(2024, 4, 1), alice.getUserBooks().getBorrowDate(0));
+        assertEquals(1, listOfBooks.getBookByTitle("Dune").getNumberBorrowed());
+        assertEquals(1, listOfBooks.getBookByTitle("Emma").getNumberBorrowed());
+
+        assertEquals(1, countRows("SELECT COUNT(*) FROM users"));
+        assertEquals(2, countRows("SELECT COUNT(*) FROM loans WHERE user_name = 'Alice'"));
+        assertEquals(2, countRows("SELECT COUNT(*) FROM loans"));
+        assertEquals(1, countRows("SELECT number_borrowed FROM books WHERE id = 1"));
+        assertTrue(this.outContent.toString().contains("alice"));
+    }
+
+    private DatabaseStorageBackend load(BookList listOfBooks, UserList listOfUsers) {
+        DatabaseStorageBackend storage = new DatabaseStorageBackend(this.databaseUrl);
+        storage.load(listOfBooks, listOfUsers);
+        return storage;
+    }
+
+    private int countRows(String query) throws SQLException {
+        try (Statement statement = this.keepAliveConnection.createStatement();
+             ResultSet result = statement.executeQuery(query)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+}
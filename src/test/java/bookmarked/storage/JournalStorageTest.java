@@ -0,0 +1,51 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.user.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JournalStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void replayJournal_userRewrittenAfterBorrowingNewBook_loansKept() {
+        File bookDataFile = this.tempDir.resolve("book.txt").toFile();
+        BookList listOfBooks = new BookList();
+        User ann = new User("Ann", listOfBooks);
+
+        Book alpha = new Book("Alpha");
+        listOfBooks.add(alpha);
+        alpha.setNumberBorrowed(1);
+        ann.borrowBook(alpha.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+        JournalStorage.appendRecords(bookDataFile, JournalStorage.updateBookRecord(alpha),
+                JournalStorage.updateUserRecord(ann));
+
+        Book beta = new Book("Beta");
+        listOfBooks.add(beta);
+        beta.setNumberBorrowed(1);
+        ann.borrowBook(beta.getBookId(), LocalDate.of(2024, 4, 2), LocalDate.of(2024, 4, 16));
+        JournalStorage.appendRecords(bookDataFile, JournalStorage.updateBookRecord(beta),
+                JournalStorage.updateUserRecord(ann));
+        JournalStorage.flush();
+
+        BookList replayedBooks = new BookList();
+        ArrayList<User> replayedUsers = new ArrayList<>();
+        JournalStorage.replayJournal(bookDataFile, replayedBooks, replayedUsers);
+
+        assertEquals(2, replayedBooks.size());
+        assertEquals(1, replayedUsers.size());
+        assertEquals(UserStorage.serializeUser(ann), UserStorage.serializeUser(replayedUsers.get(0)));
+        assertEquals(1, replayedBooks.getBookById(beta.getBookId()).getNumberOfLoans());
+    }
+}
@@ -0,0 +1,158 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordCodecTest {
+    private static final String[] DATES = {"2024-04-01", "2024-02-29", "2023-02-29", "2024-13-01", "2024-04-31",
+        "0000-01-01", "9999-12-31", "+10000-01-01", "10000-01-01", "+2024-01-01", "-0001-01-01", "2024-4-01",
+        "2024/04/01", " 2024-04-01", "", "Alice", "null", "2024-04-0x"};
+    private static final String[] NUMBERS = {"0", "12", "-3", "+4", "2147483647", "2147483648", "-2147483648",
+        "-2147483649", "", "-", "+", "1.5", "1 2", "abc", "99999999999999999999"};
+
+    @Test
+    public void serializeBook_sameAsFormattedString() {
+        Book book = createBook("Moby Dick | Part 1", 3, 1, 2, 42);
+
+        String expectedRecord = String.format("%s | %d | %d | %d | %d%n", "Moby Dick | Part 1", 3, 1, 2, 42);
+        assertArrayEquals(expectedRecord.getBytes(), BookStorage.serializeBook(book).getBytes());
+    }
+
+    @Test
+    public void encodeBooks_sameAsFormattedStrings() {
+        ArrayList<Book> listOfBooks = new ArrayList<>();
+        listOfBooks.add(createBook("Dune", 2, 0, 2, 0));
+        listOfBooks.add(createBook("\u00c9mile", 1, 1, 0, 7));
+        listOfBooks.add(createBook("War and Peace", 1000, 999, 1, 2147483647));
+
+        StringBuilder expectedRecords = new StringBuilder();
+        for (Book book : listOfBooks) {
+            expectedRecords.append(String.format("%s | %d | %d | %d | %d%n", book.getName(), book.getNumberTotal(),
+                    book.getNumberBorrowed(), book.getNumberInInventory(), book.getBookId()));
+        }
+        assertArrayEquals(expectedRecords.toString().getBytes(), BookStorage.encodeBooks(listOfBooks));
+    }
+
+    @Test
+    public void encodeUsers_sameAsAppendedStrings() {
+        BookList listOfBooks = new BookList();
+        listOfBooks.add(createBook("Dune", 2, 2, 0, 0));
+        listOfBooks.add(createBook("Emma", 1, 1, 0, 1));
+        User alice = new User("Alice", listOfBooks);
+        alice.borrowBook(0, LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+        alice.borrowBook(1, LocalDate.of(987, 12, 31), LocalDate.of(12345, 1, 9));
+        User bob = new User("Bob", listOfBooks);
+        bob.borrowBook(0, LocalDate.of(2024, 10, 20), LocalDate.of(2024, 11, 3));
+        ArrayList<User> listOfUsers = new ArrayList<>(Arrays.asList(alice, bob));
+
+        String expectedRecords = "Alice | 0 | Dune | 2024-04-01 | 2024-04-15 | 1 | Emma | 0987-12-31 | +12345-01-09\n"
+                + "Bob | 0 | Dune | 2024-10-20 | 2024-11-03\n";
+        assertArrayEquals(expectedRecords.getBytes(), UserStorage.encodeUsers(listOfUsers));
+        assertEquals("Bob | 0 | Dune | 2024-10-20 | 2024-11-03\n", UserStorage.serializeUser(bob));
+    }
+
+    @Test
+    public void processReadLine_oldTitleOfRenamedBook_loanFoundById() {
+        BookList listOfBooks = new BookList();
+        listOfBooks.add(createBook("Dune", 2, 1, 1, 0));
+        listOfBooks.renameBook(listOfBooks.get(0), "Dune Messiah");
+        ArrayList<User> listOfUsers = new ArrayList<>();
+
+        UserStorage.processReadLine("Alice | 0 | Dune | 2024-04-01 | 2024-04-15", listOfUsers, listOfBooks);
+
+        assertEquals(1, listOfUsers.size());
+        assertEquals(1, listOfBooks.get(0).getNumberOfLoans());
+        assertEquals("Alice | 0 | Dune Messiah | 2024-04-01 | 2024-04-15\n",
+                UserStorage.serializeUser(listOfUsers.get(0)));
+    }
+
+    @Test
+    public void resolveUserRecords_namesDifferingInCase_loansMerged() {
+        BookList listOfBooks = new BookList();
+        listOfBooks.add(createBook("Dune", 2, 2, 0, 0));
+        listOfBooks.add(createBook("Emma", 1, 1, 0, 1));
+        ArrayList<String[]> userRecords = new ArrayList<>();
+        userRecords.add(RecordCodec.splitFields("Tom | 0 | Dune | 2024-04-01 | 2024-04-15"));
+        userRecords.add(RecordCodec.splitFields("Ann | 0 | Dune | 2024-04-02 | 2024-04-16"));
+        userRecords.add(RecordCodec.splitFields("tom | 0 | Dune | 2024-04-03 | 2024-04-17 "
+                + "| 1 | Emma | 2024-04-03 | 2024-04-17"));
+
+        UserList listOfUsers = UserStorage.resolveUserRecords(userRecords, listOfBooks);
+
+        assertTrue(UserStorage.hasRepairedUsers());
+        assertEquals(2, listOfUsers.size());
+        assertEquals("Tom | 0 | Dune | 2024-04-01 | 2024-04-15 | 1 | Emma | 2024-04-03 | 2024-04-17\n",
+                UserStorage.serializeUser(listOfUsers.getUserByName("tom")));
+        assertEquals(2, listOfBooks.getBookById(0).getNumberOfLoans());
+        assertEquals(1, listOfBooks.getBookById(1).getNumberOfLoans());
+    }
+
+    @Test
+    public void parseBook_serializedBook_sameBook() {
+        Book book = BookStorage.parseBook(BookStorage.serializeBook(createBook("Emma", 5, 2, 3, 9)).strip());
+
+        assertEquals("Emma", book.getName());
+        assertEquals(5, book.getNumberTotal());
+        assertEquals(2, book.getNumberBorrowed());
+        assertEquals(3, book.getNumberInInventory());
+        assertEquals(9, BookStorage.parseBook("Dune | 2 | 0 | 2 |  9 ").getBookId());
+        assertEquals(Book.UNASSIGNED_ID, BookStorage.parseBook("Dune | 2 | 0 | 2").getBookId());
+    }
+
+    @Test
+    public void splitFields_sameAsRegexSplit() {
+        String[] records = {"Dune | 2 | 0 | 2 | 5", "Dune | 2 |  | ", " | ", "", "Dune", " | Dune", "a |  | b",
+            "a | | b", "a  |  b", "Alice | 0 | Dune | 2024-04-01 | 2024-04-15 | "};
+        for (String record : records) {
+            assertArrayEquals(record.split(" \\| "), RecordCodec.splitFields(record), record);
+        }
+    }
+
+    @Test
+    public void parseNumber_sameAsParseInt() {
+        for (String number : NUMBERS) {
+            long expectedNumber;
+            try {
+                expectedNumber = Integer.parseInt(number);
+            } catch (NumberFormatException e) {
+                expectedNumber = RecordCodec.INVALID_NUMBER;
+            }
+            assertEquals(expectedNumber, RecordCodec.parseNumber(number, 0, number.length()), number);
+        }
+    }
+
+    @Test
+    public void parseDate_sameAsLocalDateParse() {
+        for (String date : DATES) {
+            LocalDate expectedDate;
+            try {
+                expectedDate = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                expectedDate = null;
+            }
+            assertEquals(expectedDate, RecordCodec.parseDate(date), date);
+        }
+    }
+
+    private static Book createBook(String title, int numberTotal, int numberBorrowed, int numberInInventory,
+                                   int bookId) {
+        Book book = new Book(title);
+        book.setNumberTotal(numberTotal);
+        book.setNumberBorrowed(numberBorrowed);
+        book.setNumberInInventory(numberInInventory);
+        book.setBookId(bookId);
+        return book;
+    }
+}
@@ -0,0 +1,72 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class ShardedStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void load_usersDifferingInCaseInTwoShards_mergedWithoutQuarantine() throws Exception {
+        File shardDirectory = this.tempDir.resolve("library").toFile();
+        Files.createDirectories(shardDirectory.toPath());
+        Files.write(new File(shardDirectory, "shards.txt").toPath(), "2".getBytes());
+
+        BookList listOfBooks = new BookList();
+        Book dune = new Book("Dune");
+        Book emma = new Book("Emma");
+        listOfBooks.add(dune);
+        listOfBooks.add(emma);
+        for (Book book : listOfBooks) {
+            book.setNumberTotal(2);
+            book.setNumberBorrowed(1);
+            book.setNumberInInventory(1);
+        }
+        User alice = new User("Alice", listOfBooks);
+        alice.borrowBook(dune.getBookId(), LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 15));
+        User lowerCaseAlice = new User("alice", listOfBooks);
+        lowerCaseAlice.borrowBook(emma.getBookId(), LocalDate.of(2024, 4, 2), LocalDate.of(2024, 4, 16));
+        Files.write(new File(shardDirectory, "books-0.txt").toPath(), BookStorage.encodeBooks(listOfBooks));
+        Files.write(new File(shardDirectory, "users-0.txt").toPath(),
+                UserStorage.encodeUsers(new ArrayList<>(Arrays.asList(alice))));
+        Files.write(new File(shardDirectory, "users-1.txt").toPath(),
+                UserStorage.encodeUsers(new ArrayList<>(Arrays.asList(lowerCaseAlice))));
+
+        UserList loadedUsers = loadAndClose(shardDirectory);
+
+        assertEquals(1, loadedUsers.size());
+        assertEquals("Alice", loadedUsers.get(0).getName());
+        assertEquals(2, loadedUsers.get(0).getUserBooks().size());
+        assertFalse(new File(shardDirectory, "users-0.txt.corrupt").exists());
+        assertFalse(new File(shardDirectory, "users-1.txt.corrupt").exists());
+
+        UserList reloadedUsers = loadAndClose(shardDirectory);
+        assertEquals(1, reloadedUsers.size());
+        assertEquals(2, reloadedUsers.getUserByName("ALICE").getUserBooks().size());
+    }
+
+    private static UserList loadAndClose(File shardDirectory) {
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        ShardedStorageBackend storage = new ShardedStorageBackend(shardDirectory, 2);
+        storage.load(listOfBooks, listOfUsers);
+        storage.close(listOfBooks, listOfUsers);
+        return listOfUsers;
+    }
+}
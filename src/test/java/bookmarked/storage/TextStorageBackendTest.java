@@ -0,0 +1,148 @@
+package bookmarked.storage;
+
+import bookmarked.Book;
+import bookmarked.BookList;
+import bookmarked.user.User;
+import bookmarked.user.UserList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextStorageBackendTest {
+    private static final int NUMBER_OF_BOOKS = 200000;
+    private static final long TIMEOUT_MILLIS = 60000;
+    private static final int NUMBER_OF_USERS = 50;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void bye_duringRepairingLoad_bookFileKeptWhole() throws Exception {
+        // books without IDs are given one while loading, so book.txt is rewritten before the load finishes
+        StringBuilder oldBooks = new StringBuilder();
+        for (int i = 0; i < NUMBER_OF_BOOKS; i += 1) {
+            oldBooks.append("Title ").append(i).append(" | 1 | 0 | 1\n");
+        }
+        File bookDataFile = this.tempDir.resolve("book.txt").toFile();
+        Files.write(bookDataFile.toPath(), oldBooks.toString().getBytes(StandardCharsets.UTF_8));
+        long originalLength = bookDataFile.length();
+        File temporaryFile = new File(bookDataFile.getPath() + ".tmp");
+
+        String javaPath = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        Process application = new ProcessBuilder(javaPath, "-cp", System.getProperty("java.class.path"),
+                "-Dbookmarked.watchFiles=false", "bookmarked.BookMarked")
+                .directory(this.tempDir.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        // quit as soon as book.txt starts being rewritten, whether in place or through a temporary file
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!temporaryFile.exists() && bookDataFile.length() == originalLength && application.isAlive()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        try (OutputStream input = application.getOutputStream()) {
+            input.write("bye\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(application.waitFor(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        assertEquals(NUMBER_OF_BOOKS, Files.readAllLines(bookDataFile.toPath()).size());
+    }
+
+    @Test
+    public void close_readOnlySessionAfterSnapshotRestore_usersNotReadAndFilesKept() throws Exception {
+        File bookDataFile = this.tempDir.resolve("book.txt").toFile();
+        File userDataFile = this.tempDir.resolve("user.txt").toFile();
+        writeLibrary(bookDataFile, userDataFile);
+        byte[] userData = Files.readAllBytes(userDataFile.toPath());
+        loadAndClose(bookDataFile, userDataFile);
+        long userFileModified = userDataFile.lastModified();
+
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        TextStorageBackend storage = new TextStorageBackend(bookDataFile, userDataFile);
+        storage.load(listOfBooks, listOfUsers);
+        storage.close(listOfBooks, listOfUsers);
+
+        for (User user : listOfUsers) {
+            assertFalse(user.areUserBooksLoaded());
+        }
+        assertArrayEquals(userData, Files.readAllBytes(userDataFile.toPath()));
+        assertEquals(userFileModified, userDataFile.lastModified());
+    }
+
+    @Test
+    public void close_journalWithUnreadUsers_userLinesCopiedWithoutReadingBooks() throws Exception {
+        File bookDataFile = this.tempDir.resolve("book.txt").toFile();
+        File userDataFile = this.tempDir.resolve("user.txt").toFile();
+        writeLibrary(bookDataFile, userDataFile);
+        byte[] userData = Files.readAllBytes(userDataFile.toPath());
+        loadAndClose(bookDataFile, userDataFile);
+
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        TextStorageBackend storage = new TextStorageBackend(bookDataFile, userDataFile);
+        storage.load(listOfBooks, listOfUsers);
+        Book book = listOfBooks.get(0);
+        book.setNumberTotal(book.getNumberTotal() + 1);
+        book.setNumberInInventory(book.getNumberInInventory() + 1);
+        storage.writeChanges(new ArrayList<>(Arrays.asList(book)), new ArrayList<>(), new ArrayList<>());
+        storage.close(listOfBooks, listOfUsers);
+
+        for (User user : listOfUsers) {
+            assertFalse(user.areUserBooksLoaded());
+        }
+        assertArrayEquals(userData, Files.readAllBytes(userDataFile.toPath()));
+        assertFalse(JournalStorage.getJournalFile(bookDataFile).exists());
+        assertEquals(2, listOfUsers.getUserByName("User 7").getUserBooks().size());
+    }
+
+    /**
+     * Writes books and users who have each borrowed two of them, in the current format of both files.
+     */
+    private static void writeLibrary(File bookDataFile, File userDataFile) {
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        for (int i = 0; i < NUMBER_OF_USERS + 1; i += 1) {
+            // every book is borrowed by the users before and after it, and the first and last only by one
+            int numberBorrowed = i == 0 || i == NUMBER_OF_USERS ? 1 : 2;
+            Book book = new Book("Title " + i);
+            listOfBooks.add(book);
+            book.setNumberTotal(2);
+            book.setNumberInInventory(2 - numberBorrowed);
+            book.setNumberBorrowed(numberBorrowed);
+        }
+        LocalDate borrowDate = LocalDate.of(2024, 4, 1);
+        for (int i = 0; i < NUMBER_OF_USERS; i += 1) {
+            User user = new User("User " + i, listOfBooks);
+            user.borrowBook(listOfBooks.get(i).getBookId(), borrowDate, borrowDate.plusWeeks(2));
+            user.borrowBook(listOfBooks.get(i + 1).getBookId(), borrowDate, borrowDate.plusWeeks(2));
+            listOfUsers.add(user);
+        }
+        BookStorage.writeBookToTxt(bookDataFile, listOfBooks);
+        UserStorage.writeUserToTxt(userDataFile, listOfUsers);
+    }
+
+    private static void loadAndClose(File bookDataFile, File userDataFile) {
+        BookList listOfBooks = new BookList();
+        UserList listOfUsers = new UserList();
+        TextStorageBackend storage = new TextStorageBackend(bookDataFile, userDataFile);
+        storage.load(listOfBooks, listOfUsers);
+        storage.close(listOfBooks, listOfUsers);
+    }
+}